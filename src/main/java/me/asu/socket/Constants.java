@@ -12,4 +12,6 @@ public class Constants {
     public static final int ERROR_RECV = 3;
     public static final int ERROR_TIMEOUT = 4;
     public static final int ERROR_CLOSED = 5;
+    /** 发送队列已满，报文被拒绝. */
+    public static final int ERROR_QUEUE_FULL = 6;
 }
@@ -1,12 +1,31 @@
 package me.asu.socket.client;
 
 import static me.asu.socket.Constants.ERROR_OPEN;
+import static me.asu.socket.Constants.ERROR_SEND;
 
+import java.io.IOException;
 import java.net.*;
+import java.nio.file.Path;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.codec.CodecPipeline;
+import me.asu.socket.message.Heartbeat;
 import me.asu.socket.message.IMessage;
+import me.asu.socket.message.IProtoMessage;
+import me.asu.socket.message.MessageBatch;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.util.FileRegion;
+import me.asu.socket.util.HashedWheelTimer;
+import me.asu.socket.util.IdleMonitor;
+import me.asu.socket.util.IdleMonitor.IdleState;
+import me.asu.socket.util.IdleTimeouts;
+import me.asu.socket.util.KeepAlive;
 import me.asu.socket.util.Stream;
+import me.asu.socket.util.StripedExecutor;
 
 /**
  * AbstractSimpleClient.
@@ -20,13 +39,33 @@ import me.asu.socket.util.Stream;
 @Slf4j
 public abstract class AbstractSimpleClient {
 
-    /** 连接重试间隔(秒). */
+    /** 异步发送队列的最大报文数. */
     protected static final int MSG_QUEUE_TO_SERVER_MAX_SIZE = 100;
-    /** 连接重试间隔(毫秒). */
+    /** 连接重试的最小间隔(毫秒). */
     protected static final int TRY_CONNECT_INTERVAL = 1000;
+    /** 连接重试的最大间隔(毫秒). */
+    protected static final int TRY_CONNECT_INTERVAL_MAX = 30000;
     /** 连接超时(秒). */
     protected static final int CONNECT_TIMEOUT = 5;
 
+    private static final class CallbackHolder {
+
+        static final StripedExecutor CALLBACKS = new StripedExecutor("socket-client-callback",
+                Integer.getInteger("socket.client.callback.lanes",
+                        Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * 客户端定时回调（心跳、空闲、请求超时）默认使用的线程，进程内的客户端共享，
+     * 同一个 key 的回调按顺序执行.
+     *
+     * @param key 客户端
+     * @return Executor
+     */
+    static Executor defaultCallbackExecutor(Object key) {
+        return CallbackHolder.CALLBACKS.lane(key);
+    }
+
     /** 最后一次活跃时间，包括onOpen和onRecv。onClose时要清零. */
     protected long lastActiveTimeMills = 0;
     protected Delegate delegate;
@@ -35,10 +74,77 @@ public abstract class AbstractSimpleClient {
     protected boolean shouldConnect = false;
     protected Stream stream;
     protected int tryConnectInterval = TRY_CONNECT_INTERVAL;
+    /** 重连退避，为 null 时以 tryConnectInterval 为最小间隔、不限次数. */
+    protected ReconnectBackoff reconnectBackoff;
+    /** 限制同时进行的连接数，默认进程内共享. */
+    protected ConnectLimiter connectLimiter = ConnectLimiter.getDefault();
     protected int connectTimeout = CONNECT_TIMEOUT;
+    /** 空闲检测，空闲时调用 {@link Delegate#onTimeout(String, int)}，默认不检测. */
+    protected IdleTimeouts idleTimeouts = IdleTimeouts.NONE;
+    protected IdleMonitor  idleMonitor;
+    /** 心跳间隔(毫秒)，读空闲这么久后发送 ping，0 表示不发送. */
+    protected long heartbeatInterval = 0;
+    /** ping 之后等待数据的时间(毫秒)，超时关闭连接. */
+    protected long heartbeatTimeout  = 0;
+    protected KeepAlive keepAlive;
+    /**
+     * 执行定时器触发的工作（发送心跳、关闭连接、通知 delegate、请求超时），
+     * 定时器线程是进程共享的，不能在其中阻塞.
+     */
+    protected Executor callbackExecutor = defaultCallbackExecutor(this);
+    /** 等待响应的请求，连接关闭时全部失败，超时在 callbackExecutor 中结束. */
+    protected final PendingCalls pendingCalls = new PendingCalls(HashedWheelTimer.DEFAULT,
+            callbackExecutor);
+    /** 编解码流水线，为 null 时直接按报文格式收发. */
+    protected CodecPipeline codecPipeline;
+
+    /**
+     * 开启心跳：读空闲 interval 后发送 {@link Heartbeat#newPingNotification()}，
+     * 之后 timeout 内没有收到任何数据就关闭连接。有数据往来时不发送。下次连接时生效。
+     * 需要有线程持续接收报文，如 {@link SimpleClientThreadAsync}。
+     *
+     * @param interval 读空闲时间，0 表示关闭心跳
+     * @param timeout  等待 pong 的时间
+     * @param unit     单位
+     */
+    public void setHeartbeat(long interval, long timeout, TimeUnit unit) {
+        this.heartbeatInterval = unit.toMillis(interval);
+        this.heartbeatTimeout = unit.toMillis(timeout);
+    }
 
+    /**
+     * 设置执行定时器触发工作的线程，call 的超时 future 也在其中结束.
+     *
+     * @param executor Executor
+     */
+    public void setCallbackExecutor(Executor executor) {
+        this.callbackExecutor = executor;
+        pendingCalls.setExecutor(executor);
+    }
+
+    /**
+     * 设置编解码流水线，应与服务端的 {@link me.asu.socket.server.Server#withCodec} 对应.
+     *
+     * @param pipeline 流水线，为 null 时直接按报文格式收发
+     */
+    public void setCodecPipeline(CodecPipeline pipeline) {
+        this.codecPipeline = pipeline;
+        if (stream != null) {
+            stream.setPipeline(pipeline);
+        }
+    }
+
+    protected ReconnectBackoff reconnectBackoff() {
+        if (reconnectBackoff == null) {
+            reconnectBackoff = new ReconnectBackoff(tryConnectInterval,
+                    Math.max(tryConnectInterval, TRY_CONNECT_INTERVAL_MAX), 0);
+        }
+        return reconnectBackoff;
+    }
 
     public void closeConn() {
+        stopIdleMonitor();
+        pendingCalls.connectionClosed();
         try {
             if (stream != null) {
                 stream.close();
@@ -63,6 +169,12 @@ public abstract class AbstractSimpleClient {
         }
     }
 
+    protected void onWritabilityChanged(boolean writable) {
+        if (delegate != null) {
+            delegate.onWritabilityChanged(host, port, writable);
+        }
+    }
+
     protected void onTimeout() {
         if (delegate != null) {
             delegate.onTimeout(host, port);
@@ -70,6 +182,8 @@ public abstract class AbstractSimpleClient {
     }
 
     protected void onConnClose() {
+        stopIdleMonitor();
+        pendingCalls.connectionClosed();
         lastActiveTimeMills = 0;
         shouldConnect = false;
         if (delegate != null) {
@@ -79,22 +193,165 @@ public abstract class AbstractSimpleClient {
 
     protected void onConnOpen() {
         lastActiveTimeMills = System.currentTimeMillis();
+        startIdleMonitor();
         if (delegate != null) {
             delegate.onOpen(host, port);
         }
     }
 
     protected void onSendMsgToServer(IMessage ibox) {
+        if (idleMonitor != null) {
+            idleMonitor.touchWrite();
+        }
         if (delegate != null) {
             delegate.onSend(ibox);
         }
     }
 
     protected void onRecvMsgFromServer(IMessage ibox) {
+        if (idleMonitor != null) {
+            idleMonitor.touchRead();
+        }
+        KeepAlive k = keepAlive;
+        if (k != null) {
+            k.touchRead();
+        }
+        lastActiveTimeMills = System.currentTimeMillis();
+        if (MessageBatch.isBatch(ibox)) {
+            for (ProtoMessage item : MessageBatch.read((IProtoMessage) ibox)) {
+                onRecvMsgFromServer(item);
+            }
+            return;
+        }
+        if (pendingCalls.complete(ibox)) {
+            // call 的响应交给 future，不再通知 delegate
+            return;
+        }
+        if (Heartbeat.isPong(ibox)) {
+            // 保活的 pong 不通知 delegate
+            return;
+        }
         if (delegate != null) {
             delegate.onRecv(ibox);
         }
-        lastActiveTimeMills = System.currentTimeMillis();
+    }
+
+    protected void startIdleMonitor() {
+        stopIdleMonitor();
+        if (heartbeatInterval > 0 && heartbeatTimeout > 0) {
+            keepAlive = new KeepAlive(HashedWheelTimer.DEFAULT, heartbeatInterval,
+                    heartbeatTimeout, TimeUnit.MILLISECONDS, new KeepAlive.Listener() {
+                @Override
+                public void onPing() {
+                    runCallback(new Runnable() {
+                        @Override
+                        public void run() {
+                            sendHeartbeat(Heartbeat.newPingNotification());
+                        }
+                    });
+                }
+
+                @Override
+                public void onMissedPong() {
+                    log.warn("No heartbeat from {}:{}, close the connection.", host, port);
+                    runCallback(new Runnable() {
+                        @Override
+                        public void run() {
+                            closeConn();
+                            onConnClose();
+                        }
+                    });
+                }
+            });
+            keepAlive.start();
+        }
+        if (idleTimeouts == null || !idleTimeouts.isEnabled()) {
+            return;
+        }
+        idleMonitor = new IdleMonitor(HashedWheelTimer.DEFAULT, idleTimeouts,
+                new IdleMonitor.Listener() {
+                    @Override
+                    public void onIdle(IdleState state) {
+                        runCallback(new Runnable() {
+                            @Override
+                            public void run() {
+                                onTimeout();
+                            }
+                        });
+                    }
+                });
+        idleMonitor.start();
+    }
+
+    /**
+     * 在 {@link #callbackExecutor} 中执行定时器触发的工作.
+     *
+     * @param task 任务
+     */
+    protected void runCallback(Runnable task) {
+        try {
+            callbackExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Callback of {}:{} rejected: {}", host, port, e.toString());
+        }
+    }
+
+    protected void stopIdleMonitor() {
+        KeepAlive k = keepAlive;
+        if (k != null) {
+            k.stop();
+            keepAlive = null;
+        }
+        IdleMonitor m = idleMonitor;
+        if (m != null) {
+            m.stop();
+            idleMonitor = null;
+        }
+    }
+
+    /**
+     * 阻塞发送文件的一段作为报文体，文件内容不读入内存，见 {@link FileRegion}.
+     * 直接写 socket，不经过异步发送队列，和队列中的报文之间不保证顺序。
+     *
+     * @param path   文件
+     * @param offset 起始位置
+     * @param length 长度，-1 表示到文件末尾，不超过 2G
+     * @param header 报文头部，bodyLen 会设置为 length
+     * @throws IOException 文件打不开、范围超出文件或者发送失败
+     */
+    public void sendFile(Path path, long offset, long length, ProtoMessageHeader header)
+            throws IOException {
+        if (!isConnected()) {
+            throw new IOException("Not connected to " + host + ":" + port);
+        }
+        FileRegion region = FileRegion.open(path, offset, length, header);
+        try {
+            stream.writeFile(region);
+        } catch (IOException e) {
+            onError(ERROR_SEND, null);
+            throw e;
+        } finally {
+            region.close();
+        }
+        if (idleMonitor != null) {
+            idleMonitor.touchWrite();
+        }
+    }
+
+    /**
+     * 发送心跳，在 {@link #callbackExecutor} 中调用，默认直接写出.
+     *
+     * @param ping ping
+     */
+    protected void sendHeartbeat(IMessage ping) {
+        try {
+            stream.write(ping);
+            if (idleMonitor != null) {
+                idleMonitor.touchWrite();
+            }
+        } catch (Exception e) {
+            log.warn("Failed to send heartbeat to {}:{}: {}", host, port, e.toString());
+        }
     }
 
     synchronized protected void connectToServer() {
@@ -103,7 +360,7 @@ public abstract class AbstractSimpleClient {
         try {
             socket = new Socket();
             InetSocketAddress address = new InetSocketAddress(host, port);
-            socket.connect(address, connectTimeout * 1000);
+            connectLimiter.connect(socket, address, connectTimeout * 1000);
             socket.setReuseAddress(true);
             socket.setTcpNoDelay(true);
             // false 默认，尝试发送剩余数据;
@@ -120,6 +377,10 @@ public abstract class AbstractSimpleClient {
             return;
         }
         stream.setSocket(socket);
+        if (codecPipeline != null) {
+            codecPipeline.reset();
+        }
+        stream.setPipeline(codecPipeline);
         onConnOpen();
     }
 }
@@ -0,0 +1,86 @@
+package me.asu.socket.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Semaphore;
+
+/**
+ * ConnectLimiter.
+ * 限制进程内同时进行的连接数，服务端重启时避免大量客户端同时 connect 把 accept 队列打满。
+ * 默认实例的并发数由系统属性 socket.connect.maxConcurrent 设置，默认 64。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class ConnectLimiter {
+
+    private static final class DefaultHolder {
+
+        static final ConnectLimiter DEFAULT = new ConnectLimiter(
+                Integer.getInteger("socket.connect.maxConcurrent", 64));
+    }
+
+    private final Semaphore permits;
+
+    public ConnectLimiter(int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException(
+                    "maxConcurrent must be positive (" + maxConcurrent + ")");
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+    }
+
+    public static ConnectLimiter getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * 在限制内阻塞连接 socket.
+     *
+     * @param socket  未连接的 socket
+     * @param address 地址
+     * @param timeout 连接超时（毫秒），0 表示不超时
+     * @throws IOException 连接失败，等待时被中断抛出 {@link InterruptedIOException}
+     */
+    public void connect(Socket socket, SocketAddress address, int timeout) throws IOException {
+        acquire();
+        try {
+            socket.connect(address, timeout);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 在限制内打开并阻塞连接一个 SocketChannel.
+     *
+     * @param address 地址
+     * @return 已连接的 SocketChannel
+     * @throws IOException 连接失败，等待时被中断抛出 {@link InterruptedIOException}
+     */
+    public SocketChannel open(SocketAddress address) throws IOException {
+        acquire();
+        try {
+            return SocketChannel.open(address);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    private void acquire() throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to connect");
+        }
+    }
+}
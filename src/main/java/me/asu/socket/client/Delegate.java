@@ -38,6 +38,12 @@ public interface Delegate {
      */
     void onTimeout(String host, int port);
 
+    /**
+     * 发送队列的可写状态变化通知，不可写时应暂停发送，恢复可写后继续.
+     */
+    default void onWritabilityChanged(String host, int port, boolean writable) {
+    }
+
     /**
      * 创建一个数据对象.
      * @return IMessage
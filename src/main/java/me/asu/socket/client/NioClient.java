@@ -1,21 +1,35 @@
 package me.asu.socket.client;
 
+import static me.asu.socket.Constants.ERROR_OPEN;
 import static me.asu.socket.Constants.ERROR_SEND;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
-import java.util.Arrays;
+import java.nio.file.Path;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.codec.CodecPipeline;
 import me.asu.socket.message.*;
-import me.asu.socket.util.DirectByteBufferCleaner;
+import me.asu.socket.util.BufferPool;
+import me.asu.socket.util.FileRegion;
+import me.asu.socket.util.HashedWheelTimer;
+import me.asu.socket.util.IdleMonitor;
+import me.asu.socket.util.IdleMonitor.IdleState;
+import me.asu.socket.util.IdleTimeouts;
+import me.asu.socket.util.KeepAlive;
+import me.asu.socket.util.PooledByteBuffer;
+import me.asu.socket.util.ReadBuffer;
 
 /**
  * NioClient
@@ -41,10 +55,35 @@ public class NioClient {
     SocketChannel       channel;
     ReadThread          readThread;
     MessageParserThread messageParserThread;
-    ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+    ConcurrentLinkedQueue<PooledByteBuffer> buffers = new ConcurrentLinkedQueue<PooledByteBuffer>();
+    private BufferPool            bufferPool = BufferPool.DEFAULT;
+    private int                   readChunkSize;
     private int                   readBufferMaxSize;
-    private ByteArrayOutputStream readBufferOutputStream;
+    private ReadBuffer            readBuffer;
     private Selector              selector;
+    private IdleTimeouts          idleTimeouts = IdleTimeouts.NONE;
+    private IdleMonitor           idleMonitor;
+    /** 执行定时器触发的工作（发送心跳、关闭连接、通知 delegate、请求超时），不能阻塞共享的定时器线程. */
+    @Getter
+    private Executor              callbackExecutor = AbstractSimpleClient
+            .defaultCallbackExecutor(this);
+    /** 等待响应的请求，stop 时全部失败，超时在 callbackExecutor 中结束. */
+    private final PendingCalls    pendingCalls = new PendingCalls(HashedWheelTimer.DEFAULT,
+            callbackExecutor);
+    /** 连接断开后的重连退避. */
+    @Getter
+    @Setter
+    private ReconnectBackoff      reconnectBackoff = new ReconnectBackoff(100, 30000, 0);
+    @Getter
+    @Setter
+    private ConnectLimiter        connectLimiter   = ConnectLimiter.getDefault();
+    /** 编解码流水线，为 null 时直接按报文格式收发. */
+    @Getter
+    @Setter
+    private CodecPipeline         codecPipeline;
+    private long                  heartbeatInterval;
+    private long                  heartbeatTimeout;
+    private KeepAlive             keepAlive;
 
     public NioClient(String host, int port) throws IOException {
         this(host, port, READ_CHUNK_SIZE, READ_BUFFER_MAX_SIZE);
@@ -59,7 +98,7 @@ public class NioClient {
         this.host = host;
         this.port = port;
         SocketAddress address = new InetSocketAddress(host, port);
-        SocketChannel channel = SocketChannel.open(address);
+        SocketChannel channel = connectLimiter.open(address);
         init(channel, readChunkSize, readBufferMaxSize);
     }
 
@@ -79,28 +118,64 @@ public class NioClient {
         onConnOpen(channel);
 
         this.readBufferMaxSize = readBufferMaxSize;
-        readChunkSize = readChunkSize > 0 ? readChunkSize : READ_CHUNK_SIZE;
-        readBufferOutputStream = new ByteArrayOutputStream(readChunkSize << 1);
+        this.readChunkSize = readChunkSize > 0 ? readChunkSize : READ_CHUNK_SIZE;
+        readBuffer = new ReadBuffer(this.readChunkSize << 1);
 
         running = true;
     }
 
 
+    /**
+     * 请求，分配 seqId 后发送，收到同一 seqId 的响应时结束返回的 future.
+     * 多个线程可以同时在一个连接上请求，响应不再通知 {@link Delegate#onRecv(IMessage)}。
+     *
+     * @param req     请求报文，seqId 和 cmdType 会被覆盖
+     * @param timeout 超时时间，超时后 future 以 {@link java.util.concurrent.TimeoutException} 结束，
+     *                在 callbackExecutor 中执行，不占用定时器线程
+     * @param unit    单位
+     * @return 响应的 future，发送失败或者 stop 时异常结束
+     */
+    public CompletableFuture<IProtoMessage> call(IProtoMessage req, long timeout,
+            TimeUnit unit) {
+        CompletableFuture<IProtoMessage> future = pendingCalls.register(req, timeout, unit);
+        send(req);
+        return future;
+    }
+
     public void send(IMessage message) {
         if (!channel.isConnected()) {
             try {
                 reconnect();
             } catch (IOException e) {
                 e.printStackTrace();
+                pendingCalls.fail(message, e);
                 onError(ERROR_SEND, message);
                 return;
             }
         }
+        PooledByteBuffer pooled = null;
         try {
-            ByteBuffer wrap = ByteBuffer.wrap(message.pack());
-            do {
-                channel.write(wrap);
-            } while (wrap.hasRemaining());
+            CodecPipeline pipeline = codecPipeline;
+            if (pipeline != null && pipeline.hasOutbound()) {
+                // 编码器可能有状态，和写出一起串行
+                synchronized (this) {
+                    ByteBuffer buffer = pipeline.encode(message);
+                    do {
+                        channel.write(buffer);
+                    } while (buffer.hasRemaining());
+                }
+            } else {
+                pooled = bufferPool.acquire(message.encodedSize());
+                ByteBuffer buffer = pooled.buffer();
+                message.encodeTo(buffer);
+                buffer.flip();
+                // 多个线程共用连接，整个报文写完才释放，避免交错
+                synchronized (this) {
+                    do {
+                        channel.write(buffer);
+                    } while (buffer.hasRemaining());
+                }
+            }
             if (delegate != null) {
                 delegate.onSend(message);
             }
@@ -108,7 +183,55 @@ public class NioClient {
             if (!(e instanceof InterruptedException)) {
                 log.error("", e);
             }
+            pendingCalls.fail(message, e);
             onError(ERROR_SEND, message);
+        } finally {
+            if (pooled != null) {
+                pooled.release();
+            }
+        }
+    }
+
+    /**
+     * 发送文件的一段作为报文体，由内核 sendfile 直接写到 socket，文件内容不经过 JVM 堆.
+     * 写完才返回，期间其他线程的 send 等待。设置了出站编解码流水线时不支持。
+     *
+     * @param path   文件
+     * @param offset 起始位置
+     * @param length 长度，-1 表示到文件末尾，不超过 2G
+     * @param header 报文头部，bodyLen 会设置为 length
+     * @throws IOException 文件打不开、范围超出文件或者发送失败
+     */
+    public void sendFile(Path path, long offset, long length, ProtoMessageHeader header)
+            throws IOException {
+        CodecPipeline pipeline = codecPipeline;
+        if (pipeline != null && pipeline.hasOutbound()) {
+            throw new IOException("File regions can not pass through the codec pipeline.");
+        }
+        FileRegion region = FileRegion.open(path, offset, length, header);
+        try {
+            ByteBuffer head = ByteBuffer.allocate(region.header().getLength());
+            region.encodeHeader(head);
+            head.flip();
+            synchronized (this) {
+                do {
+                    channel.write(head);
+                } while (head.hasRemaining());
+                while (!region.isDone()) {
+                    if (region.transferTo(channel) == 0) {
+                        // 非阻塞的 channel，等 socket 缓冲区腾出空间
+                        Thread.sleep(1);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while sending " + path);
+        } catch (IOException e) {
+            onError(ERROR_SEND, null);
+            throw e;
+        } finally {
+            region.close();
         }
     }
 
@@ -121,27 +244,184 @@ public class NioClient {
 
     public void stop() {
         setRunning(false);
+        stopIdleMonitor();
+        pendingCalls.connectionClosed();
         if (readThread != null) {
             readThread.interrupt();
         }
         if (messageParserThread != null) {
             messageParserThread.interrupt();
         }
+        PooledByteBuffer pooled;
+        while ((pooled = buffers.poll()) != null) {
+            pooled.release();
+        }
+    }
+
+    /**
+     * 设置空闲检测，空闲时调用 {@link Delegate#onTimeout(String, int)}，已经连接时立即生效.
+     *
+     * @param idleTimeouts IdleTimeouts
+     */
+    public void setIdleTimeouts(IdleTimeouts idleTimeouts) {
+        this.idleTimeouts = idleTimeouts;
+        if (channel != null && channel.isConnected()) {
+            startIdleMonitor();
+        }
+    }
+
+    /**
+     * 开启心跳：读空闲 interval 后发送 {@link Heartbeat#newPingNotification()}，
+     * 之后 timeout 内没有收到任何数据就关闭连接并重连。有数据往来时不发送。下次连接时生效。
+     *
+     * @param interval 读空闲时间，0 表示关闭心跳
+     * @param timeout  等待 pong 的时间
+     * @param unit     单位
+     */
+    public void setHeartbeat(long interval, long timeout, TimeUnit unit) {
+        this.heartbeatInterval = unit.toMillis(interval);
+        this.heartbeatTimeout = unit.toMillis(timeout);
+    }
+
+    /**
+     * 设置执行定时器触发工作的线程，call 的超时 future 也在其中结束.
+     *
+     * @param executor Executor
+     */
+    public void setCallbackExecutor(Executor executor) {
+        this.callbackExecutor = executor;
+        pendingCalls.setExecutor(executor);
+    }
+
+    private void startIdleMonitor() {
+        stopIdleMonitor();
+        if (heartbeatInterval > 0 && heartbeatTimeout > 0) {
+            keepAlive = new KeepAlive(HashedWheelTimer.DEFAULT, heartbeatInterval,
+                    heartbeatTimeout, TimeUnit.MILLISECONDS, new KeepAlive.Listener() {
+                @Override
+                public void onPing() {
+                    runCallback(new Runnable() {
+                        @Override
+                        public void run() {
+                            send(Heartbeat.newPingNotification());
+                        }
+                    });
+                }
+
+                @Override
+                public void onMissedPong() {
+                    log.warn("No heartbeat from {}:{}, close the connection.", host, port);
+                    runCallback(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                channel.close();
+                            } catch (IOException e) {
+                                log.error("", e);
+                            }
+                            // 读线程发现 channel 关闭后重连
+                            selector.wakeup();
+                        }
+                    });
+                }
+            });
+            keepAlive.start();
+        }
+        if (idleTimeouts == null || !idleTimeouts.isEnabled()) {
+            return;
+        }
+        idleMonitor = new IdleMonitor(HashedWheelTimer.DEFAULT, idleTimeouts,
+                new IdleMonitor.Listener() {
+                    @Override
+                    public void onIdle(IdleState state) {
+                        runCallback(new Runnable() {
+                            @Override
+                            public void run() {
+                                onTimeout();
+                            }
+                        });
+                    }
+                });
+        idleMonitor.start();
+    }
+
+    private void runCallback(Runnable task) {
+        try {
+            callbackExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            log.warn("Callback of {}:{} rejected: {}", host, port, e.toString());
+        }
+    }
+
+    private void stopIdleMonitor() {
+        KeepAlive k = keepAlive;
+        if (k != null) {
+            k.stop();
+            keepAlive = null;
+        }
+        IdleMonitor m = idleMonitor;
+        if (m != null) {
+            m.stop();
+            idleMonitor = null;
+        }
+    }
+
+    protected void onTimeout() {
+        if (delegate != null) {
+            delegate.onTimeout(host, port);
+        }
     }
 
     private void reconnect() throws IOException {
+        // 关闭的 channel 不能再 connect，重新打开一个
         SocketAddress address = new InetSocketAddress(host, port);
-        channel.connect(address);
-        channel.configureBlocking(false);
-        channel.register(this.selector, SelectionKey.OP_READ);
-        while (!channel.finishConnect()) {
+        SocketChannel ch = connectLimiter.open(address);
+        ch.configureBlocking(false);
+        // 旧连接残留的半个报文不能和新连接的数据拼在一起
+        synchronized (readBuffer) {
+            PooledByteBuffer pooled;
+            while ((pooled = buffers.poll()) != null) {
+                pooled.release();
+            }
+            readBuffer.clear();
+        }
+        ch.register(this.selector, SelectionKey.OP_READ);
+        if (codecPipeline != null) {
+            codecPipeline.reset();
+        }
+        channel = ch;
+        onConnOpen(ch);
+    }
+
+    /**
+     * 按 {@link ReconnectBackoff} 退避重连，直到成功、重试次数用完或者 stop.
+     *
+     * @return 是否重连成功
+     */
+    private boolean reconnectWithBackoff() {
+        reconnectBackoff.reset();
+        while (running) {
             try {
-                Thread.sleep(1);
+                reconnect();
+                return true;
+            } catch (IOException e) {
+                log.warn("Reconnect to {}:{} failed: {}", host, port, e.getMessage());
+            }
+            long delay = reconnectBackoff.nextDelayMillis();
+            if (delay < 0) {
+                log.warn("Give up reconnecting to {}:{} after {} attempts.", host, port,
+                        reconnectBackoff.getAttempts());
+                onError(ERROR_OPEN, null);
+                return false;
+            }
+            try {
+                Thread.sleep(delay);
             } catch (InterruptedException e) {
-                // ignore;
+                Thread.currentThread().interrupt();
+                return false;
             }
         }
-        onConnOpen(channel);
+        return false;
     }
 
     protected void onError(int code, IMessage ibox) {
@@ -151,17 +431,15 @@ public class NioClient {
     }
 
     protected void onConnClose(SocketChannel channel) {
+        stopIdleMonitor();
         if (delegate != null) {
-            try {
-                InetSocketAddress address = (InetSocketAddress) channel.getLocalAddress();
-                delegate.onClose(address.getHostName(), address.getPort());
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            // channel 可能已经关闭，取不到地址
+            delegate.onClose(host, port);
         }
     }
 
     protected void onConnOpen(SocketChannel channel) {
+        startIdleMonitor();
         if (delegate != null) {
             try {
                 InetSocketAddress address = (InetSocketAddress) channel.getLocalAddress();
@@ -173,10 +451,29 @@ public class NioClient {
     }
 
     protected void onSendMsgToServer(IMessage ibox) {
+        if (idleMonitor != null) {
+            idleMonitor.touchWrite();
+        }
         delegate.onSend(ibox);
     }
 
     protected void onRecvMsgFromServer(IMessage ibox) {
+        if (idleMonitor != null) {
+            idleMonitor.touchRead();
+        }
+        KeepAlive k = keepAlive;
+        if (k != null) {
+            k.touchRead();
+        }
+        if (MessageBatch.isBatch(ibox)) {
+            for (ProtoMessage item : MessageBatch.read((IProtoMessage) ibox)) {
+                onRecvMsgFromServer(item);
+            }
+            return;
+        }
+        if (pendingCalls.complete(ibox) || Heartbeat.isPong(ibox)) {
+            return;
+        }
         if (delegate != null) {
             delegate.onRecv(ibox);
         }
@@ -190,32 +487,53 @@ public class NioClient {
             while (running) {
                 try {
                     selector.select();
+                    if (running && !channel.isOpen()) {
+                        // 心跳超时关闭了连接
+                        pendingCalls.connectionClosed();
+                        onConnClose(channel);
+                        if (!reconnectWithBackoff()) {
+                            return;
+                        }
+                        continue;
+                    }
                     Iterator<SelectionKey> ite = selector.selectedKeys().iterator();
                     while (ite.hasNext()) {
                         SelectionKey key = ite.next();
                         ite.remove();
                         if (key.isReadable()) {
                             do {
-                                ByteBuffer byteBuffer = ByteBuffer.allocateDirect(512);
+                                PooledByteBuffer pooled = bufferPool.acquire(readChunkSize);
+                                ByteBuffer byteBuffer = pooled.buffer();
                                 SocketChannel channel = (SocketChannel) key.channel();
-                                int read = channel.read(byteBuffer);
-                                if (read == -1) {
-                                    channel.close();
-                                    reconnect();
-                                    break;
-                                } else if (read == 0) {
-                                    DirectByteBufferCleaner.clean(byteBuffer);
+                                int read;
+                                try {
+                                    read = channel.read(byteBuffer);
+                                } catch (IOException e) {
+                                    pooled.release();
+                                    throw e;
+                                }
+                                if (read <= 0) {
+                                    pooled.release();
+                                    if (read == -1) {
+                                        pendingCalls.connectionClosed();
+                                        onConnClose(channel);
+                                        channel.close();
+                                        if (!reconnectWithBackoff()) {
+                                            return;
+                                        }
+                                    }
                                     break;
-                                } else if (read == 512) {
-                                    byteBuffer.flip();
-                                    buffers.add(byteBuffer);
-                                } else {
-                                    byteBuffer.flip();
-                                    buffers.add(byteBuffer);
+                                }
+                                byteBuffer.flip();
+                                buffers.add(pooled);
+                                if (read < byteBuffer.capacity()) {
                                     break;
                                 }
                             } while (true);
-                            key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                            // 重连后旧的 key 已经取消
+                            if (key.isValid()) {
+                                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+                            }
                         }
 
                     }
@@ -250,58 +568,44 @@ public class NioClient {
                     }
                 } catch (Exception e) {
                     log.error("", e);
+                } finally {
+                    box.recycle();
                 }
             }
         }
 
         private boolean read(IMessage box) throws IOException {
+            // 重连时在同一把锁下清空
+            synchronized (readBuffer) {
+                return readLocked(box);
+            }
+        }
+
+        private boolean readLocked(IMessage box) throws IOException {
             // 直接只支持
             while (true) {
-                byte[] tmpBuffer = readBufferOutputStream.toByteArray();
-                if (readBufferMaxSize >= 0 && tmpBuffer.length > readBufferMaxSize) {
+                if (readBufferMaxSize >= 0 && readBuffer.readableBytes() > readBufferMaxSize) {
                     // 数据过大，可能错位了。
                     return false;
                 }
 
-                if (tmpBuffer.length > 0) {
-                    // 说明还是可以尝试一下的
-                    int ret = box.unpack(tmpBuffer, 0, tmpBuffer.length);
-                    if (ret > 0) {
-                        // 说明成功
-                        readBufferOutputStream.reset();
-                        readBufferOutputStream.write(tmpBuffer, ret, tmpBuffer.length - ret);
-                        return true;
-                    } else if (ret < 0) {
-                        // 说明数据错乱了
-                        readBufferOutputStream.reset();
-                        return false;
-                    }
+                // 说明还是可以尝试一下的
+                int ret = readBuffer.unpack(box, codecPipeline);
+                if (ret > 0) {
+                    // 说明成功
+                    return true;
+                } else if (ret < 0) {
+                    // 说明数据错乱了，readBuffer 已经清空
+                    return false;
                 }
                 // load more data
                 if (buffers.isEmpty()) {
                     return false;
                 }
-                while (!buffers.isEmpty()) {
-                    ByteBuffer buffer = null;
-                    try {
-                        buffer = buffers.remove();
-                    } catch (Exception e) {
-                        break;
-                    }
-
-                    byte[] readChunkBuffer = null;
-                    if (buffer.hasArray()) {
-                        final byte[] array = buffer.array();
-                        final int arrayOffset = buffer.arrayOffset();
-                        readChunkBuffer = Arrays.copyOfRange(array, arrayOffset + buffer.position(),
-                                arrayOffset + buffer.limit());
-                    } else {
-                        readChunkBuffer = new byte[buffer.remaining()];
-                        buffer.get(readChunkBuffer);
-                    }
-                    readBufferOutputStream.write(readChunkBuffer);
-                    DirectByteBufferCleaner.clean(buffer);
-
+                PooledByteBuffer pooled;
+                while ((pooled = buffers.poll()) != null) {
+                    readBuffer.write(pooled.buffer());
+                    pooled.release();
                 }
             }
         }
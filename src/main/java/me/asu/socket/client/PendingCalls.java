@@ -0,0 +1,238 @@
+package me.asu.socket.client;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.message.IMessage;
+import me.asu.socket.message.IProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.util.HashedWheelTimer;
+import me.asu.socket.util.HashedWheelTimer.Timeout;
+import me.asu.socket.util.HashedWheelTimer.TimerTask;
+import me.asu.socket.util.IntObjectMap;
+import me.asu.socket.util.ReferenceCounted;
+
+/**
+ * PendingCalls.
+ * 一个连接上等待响应的请求表，按 seqId 匹配 {@link ProtoMessageHeader#CMD_TYPE_RESPONSE} 报文。
+ * 多个调用方可以共用一个连接，超时由 {@link HashedWheelTimer} 统一处理，不占用线程。
+ * 超时的 future 交给 executor 结束，调用方在 future 上挂的非 Async 阶段不会在定时器线程中执行。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+@Slf4j
+public class PendingCalls {
+
+    private final HashedWheelTimer   timer;
+    private volatile Executor        executor;
+    private final IntObjectMap<Call> calls  = new IntObjectMap<Call>();
+    private final AtomicInteger      nextId = new AtomicInteger();
+
+    public PendingCalls() {
+        this(HashedWheelTimer.DEFAULT);
+    }
+
+    public PendingCalls(HashedWheelTimer timer) {
+        this(timer, null);
+    }
+
+    /**
+     * @param timer    超时定时器
+     * @param executor 结束超时 future 的线程，为 null 时在定时器线程中结束
+     */
+    public PendingCalls(HashedWheelTimer timer, Executor executor) {
+        this.timer = timer;
+        this.executor = executor;
+    }
+
+    /**
+     * 设置结束超时 future 的线程.
+     *
+     * @param executor Executor，为 null 时在定时器线程中结束
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 给请求分配 seqId 并登记，请求应在之后发送.
+     *
+     * @param req     请求，cmdType 会设置为 {@link ProtoMessageHeader#CMD_TYPE_REQUEST}
+     * @param timeout 超时时间，超时后以 {@link TimeoutException} 结束
+     * @param unit    单位
+     * @return 响应的 future
+     */
+    public CompletableFuture<IProtoMessage> register(IProtoMessage req, long timeout,
+            TimeUnit unit) {
+        ProtoMessageHeader header = req.header();
+        header.cmdType = ProtoMessageHeader.CMD_TYPE_REQUEST;
+        final Call call = new Call(req);
+        synchronized (calls) {
+            int seqId;
+            do {
+                // 0 留给不关心响应的报文
+                seqId = nextId.incrementAndGet();
+            } while (seqId == 0 || calls.containsKey(seqId));
+            header.seqId = seqId;
+            call.seqId = seqId;
+            calls.put(seqId, call);
+        }
+        call.timeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout t) {
+                if (remove(call)) {
+                    timedOut(call);
+                }
+            }
+        }, timeout, unit);
+        return call.future;
+    }
+
+    private void timedOut(final Call call) {
+        final TimeoutException cause = new TimeoutException(
+                "No response for seqId " + call.seqId + " in time");
+        Executor e = executor;
+        if (e != null) {
+            try {
+                e.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        call.future.completeExceptionally(cause);
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException ex) {
+                log.warn("Executor rejected the timeout of seqId {}, complete it on the timer.",
+                        call.seqId);
+            }
+        }
+        call.future.completeExceptionally(cause);
+    }
+
+    /**
+     * 收到报文时调用，是等待中的响应时结束对应的 future.
+     * 引用计数的报文（如 SliceProtoMessage、RecyclableProtoMessage）会 retain 一次，
+     * 调用方照常在之后回收 msg，future 的使用方用完后再调用 {@link IMessage#recycle()}。
+     *
+     * @param msg 收到的报文
+     * @return 是否匹配到了请求
+     */
+    public boolean complete(IMessage msg) {
+        if (!(msg instanceof IProtoMessage)) {
+            return false;
+        }
+        ProtoMessageHeader header = ((IProtoMessage) msg).header();
+        if (header.cmdType != ProtoMessageHeader.CMD_TYPE_RESPONSE) {
+            return false;
+        }
+        Call call;
+        synchronized (calls) {
+            call = calls.remove(header.seqId);
+        }
+        if (call == null) {
+            // 已经超时或者不是 call 发出的
+            return false;
+        }
+        call.cancelTimeout();
+        if (msg instanceof ReferenceCounted) {
+            ((ReferenceCounted) msg).retain();
+        }
+        if (!call.future.complete((IProtoMessage) msg) && msg instanceof ReferenceCounted) {
+            ((ReferenceCounted) msg).release();
+        }
+        return true;
+    }
+
+    /**
+     * 请求发送失败时调用，msg 是等待中的请求时以 cause 结束对应的 future.
+     *
+     * @param msg   发送失败的报文
+     * @param cause 原因
+     */
+    public void fail(IMessage msg, Throwable cause) {
+        if (!(msg instanceof IProtoMessage)) {
+            return;
+        }
+        int seqId = ((IProtoMessage) msg).seqId();
+        Call call;
+        synchronized (calls) {
+            call = calls.get(seqId);
+            if (call == null || call.request != msg) {
+                return;
+            }
+            calls.remove(seqId);
+        }
+        call.cancelTimeout();
+        call.future.completeExceptionally(cause);
+    }
+
+    /**
+     * 连接关闭时调用，以 cause 结束所有等待中的请求.
+     *
+     * @param cause 原因
+     */
+    public void failAll(Throwable cause) {
+        Object[] drained;
+        synchronized (calls) {
+            if (calls.isEmpty()) {
+                return;
+            }
+            drained = calls.drain();
+        }
+        for (Object o : drained) {
+            Call call = (Call) o;
+            call.cancelTimeout();
+            call.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * 连接关闭时调用.
+     */
+    public void connectionClosed() {
+        failAll(new IOException("Connection closed"));
+    }
+
+    public int size() {
+        synchronized (calls) {
+            return calls.size();
+        }
+    }
+
+    private boolean remove(Call call) {
+        synchronized (calls) {
+            if (calls.get(call.seqId) != call) {
+                return false;
+            }
+            calls.remove(call.seqId);
+            return true;
+        }
+    }
+
+    private static final class Call {
+
+        final IMessage                         request;
+        final CompletableFuture<IProtoMessage> future = new CompletableFuture<IProtoMessage>();
+        int                                    seqId;
+        volatile Timeout                       timeout;
+
+        Call(IMessage request) {
+            this.request = request;
+        }
+
+        void cancelTimeout() {
+            // 登记后、设置 timeout 前就可能因为连接关闭而结束
+            Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+        }
+    }
+}
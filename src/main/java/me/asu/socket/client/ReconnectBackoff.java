@@ -0,0 +1,70 @@
+package me.asu.socket.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * ReconnectBackoff.
+ * 重连间隔的指数退避，使用 decorrelated jitter：下次间隔在 [base, 上次间隔 * 3] 之间随机，不超过 cap。
+ * 服务端重启时大量客户端的重连时间被打散，不会同时涌入。每个客户端一个实例，非线程安全。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class ReconnectBackoff {
+
+    private final long baseMillis;
+    private final long capMillis;
+    private final int  maxAttempts;
+    private long prevMillis;
+    private int  attempts;
+
+    /**
+     * @param baseMillis  最小间隔
+     * @param capMillis   最大间隔
+     * @param maxAttempts 最多重试的次数，小于等于 0 表示不限制
+     */
+    public ReconnectBackoff(long baseMillis, long capMillis, int maxAttempts) {
+        if (baseMillis <= 0 || capMillis < baseMillis) {
+            throw new IllegalArgumentException(
+                    "Invalid backoff (" + baseMillis + ", " + capMillis + ")");
+        }
+        this.baseMillis = baseMillis;
+        this.capMillis = capMillis;
+        this.maxAttempts = maxAttempts;
+        reset();
+    }
+
+    /**
+     * 下次重试前等待的时间.
+     *
+     * @return 毫秒，重试次数用完时返回 -1
+     */
+    public long nextDelayMillis() {
+        if (maxAttempts > 0 && attempts >= maxAttempts) {
+            return -1;
+        }
+        attempts++;
+        long upper = Math.min(capMillis, prevMillis * 3);
+        long delay = upper > baseMillis
+                ? ThreadLocalRandom.current().nextLong(baseMillis, upper + 1) : baseMillis;
+        prevMillis = delay;
+        return delay;
+    }
+
+    /**
+     * 连接成功后重置.
+     */
+    public void reset() {
+        prevMillis = baseMillis;
+        attempts = 0;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+}
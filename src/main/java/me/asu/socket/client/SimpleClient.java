@@ -5,6 +5,7 @@ import static me.asu.socket.Constants.ERROR_SEND;
 
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.message.Heartbeat;
 import me.asu.socket.message.IMessage;
 import me.asu.socket.message.ProtoMessage;
 import me.asu.socket.util.Stream;
@@ -40,20 +41,32 @@ public class SimpleClient extends AbstractSimpleClient {
     }
 
 
+    /**
+     * 阻塞连接，失败时按 {@link ReconnectBackoff} 退避重试，重试次数用完或者被中断时返回，
+     * 通过 {@link #isConnected()} 判断是否成功.
+     */
     public void connect() {
         shouldConnect = true;
+        ReconnectBackoff backoff = reconnectBackoff();
+        backoff.reset();
         while (!isConnected()) {
             if (shouldConnect) {
                 connectToServer();
             }
-            if (!isConnected()) {
-                // 毫秒
-                try {
-                    Thread.sleep(tryConnectInterval);
-                } catch (Exception e) {
-                    log.error("e: " + e);
-                }
-                continue;
+            if (isConnected()) {
+                break;
+            }
+            long delay = backoff.nextDelayMillis();
+            if (delay < 0) {
+                log.warn("Give up connecting to {}:{} after {} attempts.", host, port,
+                        backoff.getAttempts());
+                return;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
             }
         }
     }
@@ -129,7 +142,7 @@ public class SimpleClient extends AbstractSimpleClient {
     }
 
     /**
-     * 阻塞获取报文。
+     * 阻塞获取报文。返回的报文归调用方所有，可复用的报文用完后调用 {@link IMessage#recycle()}。
      *
      * @return {@link IMessage} 报文容器
      */
@@ -143,12 +156,18 @@ public class SimpleClient extends AbstractSimpleClient {
         if (doRead(box)) {
             return box;
         }
+        box.recycle();
         return null;
     }
 
     private boolean doRead(IMessage box) {
         try {
             boolean succ = stream.read(box);
+            // 心跳的 pong 只用来保活，不返回给调用方
+            while (succ && Heartbeat.isPong(box)) {
+                onRecvMsgFromServer(box);
+                succ = stream.read(box);
+            }
             if (succ) {
                 onRecvMsgFromServer(box);
                 return true;
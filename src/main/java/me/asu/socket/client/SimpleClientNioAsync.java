@@ -10,6 +10,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.codec.CodecPipeline;
 import me.asu.socket.util.NioStream;
 import me.asu.socket.message.*;
 
@@ -35,18 +36,14 @@ public class SimpleClientNioAsync {
         this.host = host;
         this.port = port;
         SocketAddress address = new InetSocketAddress(host, port);
-        SocketChannel channel = SocketChannel.open(address);
+        SocketChannel channel = ConnectLimiter.getDefault().open(address);
         stream = new NioStream(channel);
     }
 
     public SimpleClientNioAsync(Delegate delegate, String host, int port) throws IOException {
+        this(host, port);
         this.delegate = delegate;
-        this.host = host;
-        this.port = port;
         stream.setDelegate(delegate);
-        SocketAddress address = new InetSocketAddress(host, port);
-        SocketChannel channel = SocketChannel.open(address);
-        stream = new NioStream(channel);
     }
 
     public void setDelegate(Delegate delegate) {
@@ -54,6 +51,13 @@ public class SimpleClientNioAsync {
         stream.setDelegate(delegate);
     }
 
+    /**
+     * 设置编解码流水线，应在 {@link #start()} 之前调用.
+     */
+    public void setCodecPipeline(CodecPipeline pipeline) {
+        stream.setPipeline(pipeline);
+    }
+
     public void send(IMessage message) {
         boolean succ = stream.send(message);
         if (!succ) {
@@ -0,0 +1,329 @@
+package me.asu.socket.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.message.Heartbeat;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.util.Stream;
+import me.asu.util.NamedThreadFactory;
+
+/**
+ * SimpleClientPool.
+ * {@link SimpleClient} 连接池，多个线程各自借出一个连接阻塞收发，用完归还。
+ * <ul>
+ * <li>{@link #start()} 时预先建立 minConnections 个连接，借出的连接总数不超过 maxConnections。</li>
+ * <li>后台定期用 {@link Heartbeat} ping 检查空闲连接，关闭失效的和空闲超过 maxIdle 的多余连接，
+ * 不足 minConnections 时补齐。</li>
+ * <li>空闲连接后进先出，常用的连接保持活跃，多余的自然空闲后被回收。</li>
+ * </ul>
+ * 配置方法应在 {@link #start()} 之前调用。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+@Slf4j
+public class SimpleClientPool implements Closeable {
+
+    private final String host;
+    private final int    port;
+    private Delegate delegate;
+    private int  minConnections     = 1;
+    private int  maxConnections     = 8;
+    private long maxIdleMillis      = 60000;
+    private long validationInterval = 30000;
+    private int  validationTimeout  = 3000;
+    private long borrowTimeout      = 5000;
+
+    private final LinkedBlockingDeque<Idle> idle     = new LinkedBlockingDeque<Idle>();
+    /** SimpleClient 的 equals 比较字段，按引用区分. */
+    private final Set<SimpleClient>         borrowed = Collections.synchronizedSet(
+            Collections.newSetFromMap(new IdentityHashMap<SimpleClient, Boolean>()));
+    private final AtomicInteger             pingSeq  = new AtomicInteger();
+    private Semaphore                permits;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean         started;
+    private volatile boolean         closed;
+
+    public SimpleClientPool(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    public SimpleClientPool withDelegate(Delegate delegate) {
+        this.delegate = delegate;
+        return this;
+    }
+
+    public SimpleClientPool withConnections(int min, int max) {
+        if (min < 0 || max <= 0 || min > max) {
+            throw new IllegalArgumentException("Invalid connections (" + min + ", " + max + ")");
+        }
+        this.minConnections = min;
+        this.maxConnections = max;
+        return this;
+    }
+
+    /**
+     * 空闲超过 maxIdle 的连接在检查时关闭，但保留 minConnections 个.
+     */
+    public SimpleClientPool withMaxIdle(long maxIdle, TimeUnit unit) {
+        this.maxIdleMillis = unit.toMillis(maxIdle);
+        return this;
+    }
+
+    /**
+     * 后台检查的间隔和 ping 的超时时间.
+     */
+    public SimpleClientPool withValidation(long interval, long timeout, TimeUnit unit) {
+        this.validationInterval = unit.toMillis(interval);
+        this.validationTimeout = (int) unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * 所有连接都已借出时 {@link #borrow()} 的最长等待时间.
+     */
+    public SimpleClientPool withBorrowTimeout(long timeout, TimeUnit unit) {
+        this.borrowTimeout = unit.toMillis(timeout);
+        return this;
+    }
+
+    /**
+     * 预先建立连接并开始后台检查.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        permits = new Semaphore(maxConnections);
+        for (int i = 0; i < minConnections; i++) {
+            try {
+                idle.offerLast(new Idle(create()));
+            } catch (IOException e) {
+                log.warn("Failed to pre-warm connection to {}:{}: {}", host, port, e.getMessage());
+                break;
+            }
+        }
+        if (validationInterval > 0) {
+            scheduler = Executors
+                    .newSingleThreadScheduledExecutor(new NamedThreadFactory("SimpleClientPool"));
+            scheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        maintain();
+                    } catch (Exception e) {
+                        log.error("", e);
+                    }
+                }
+            }, validationInterval, validationInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 借出一个已连接的客户端，用完必须调用 {@link #returnClient(SimpleClient)}，
+     * 出错时调用 {@link #invalidate(SimpleClient)}.
+     *
+     * @return SimpleClient
+     * @throws TimeoutException     borrowTimeout 内没有可用的连接
+     * @throws IOException          建立新连接失败
+     * @throws InterruptedException 等待时被中断
+     */
+    public SimpleClient borrow() throws TimeoutException, IOException, InterruptedException {
+        if (!started) {
+            throw new IllegalStateException("Pool is not started.");
+        }
+        if (closed) {
+            throw new IllegalStateException("Pool is closed.");
+        }
+        if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException(
+                    "No connection to " + host + ":" + port + " available in " + borrowTimeout
+                            + "ms");
+        }
+        try {
+            SimpleClient client = null;
+            Idle e;
+            while ((e = idle.pollFirst()) != null) {
+                if (e.client.isConnected()) {
+                    client = e.client;
+                    break;
+                }
+                destroy(e.client);
+            }
+            if (client == null) {
+                client = create();
+            }
+            borrowed.add(client);
+            return client;
+        } catch (IOException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * 归还借出的客户端，已经断开的直接关闭.
+     *
+     * @param client 借出的客户端
+     */
+    public void returnClient(SimpleClient client) {
+        if (!borrowed.remove(client)) {
+            throw new IllegalArgumentException("Client is not borrowed from this pool.");
+        }
+        permits.release();
+        if (closed || !client.isConnected() || total() >= maxConnections) {
+            destroy(client);
+        } else {
+            idle.offerFirst(new Idle(client));
+        }
+    }
+
+    /**
+     * 关闭并归还出错的客户端，如收发异常、协议错乱.
+     *
+     * @param client 借出的客户端
+     */
+    public void invalidate(SimpleClient client) {
+        if (!borrowed.remove(client)) {
+            throw new IllegalArgumentException("Client is not borrowed from this pool.");
+        }
+        permits.release();
+        destroy(client);
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        Idle e;
+        while ((e = idle.pollFirst()) != null) {
+            destroy(e.client);
+        }
+    }
+
+    /**
+     * 检查空闲连接：关闭多余的长时间空闲连接和 ping 不通的连接，然后补齐到 minConnections.
+     */
+    void maintain() {
+        List<Idle> snapshot = new ArrayList<Idle>(idle);
+        long now = System.currentTimeMillis();
+        for (Idle e : snapshot) {
+            if (closed) {
+                return;
+            }
+            // 已经被借走的不检查
+            if (!idle.remove(e)) {
+                continue;
+            }
+            if (total() >= minConnections && now - e.since > maxIdleMillis) {
+                destroy(e.client);
+                continue;
+            }
+            if (!validate(e.client) || total() >= maxConnections) {
+                destroy(e.client);
+                continue;
+            }
+            idle.offerLast(e);
+        }
+        while (!closed && total() < minConnections) {
+            try {
+                idle.offerLast(new Idle(create()));
+            } catch (IOException ex) {
+                log.warn("Failed to connect to {}:{}: {}", host, port, ex.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * 发送 ping 并等待同一 seqId 的 pong，直接使用 {@link Stream}，不通知 delegate.
+     */
+    boolean validate(SimpleClient client) {
+        if (!client.isConnected()) {
+            return false;
+        }
+        Stream stream = client.getStream();
+        Socket socket = stream.getSocket();
+        try {
+            int soTimeout = socket.getSoTimeout();
+            socket.setSoTimeout(validationTimeout);
+            try {
+                ProtoMessage ping = Heartbeat.newPing();
+                ping.header().seqId = pingSeq.incrementAndGet();
+                stream.write(ping);
+                // 空闲连接上不应该有其他报文，最多跳过几个
+                for (int i = 0; i < 8; i++) {
+                    ProtoMessage box = new ProtoMessage();
+                    if (!stream.read(box)) {
+                        return false;
+                    }
+                    if (Heartbeat.isPong(box) && box.seqId() == ping.seqId()) {
+                        return true;
+                    }
+                }
+                return false;
+            } finally {
+                if (!socket.isClosed()) {
+                    socket.setSoTimeout(soTimeout);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Connection to {}:{} failed validation: {}", host, port, e.toString());
+            return false;
+        }
+    }
+
+    private int total() {
+        return idle.size() + borrowed.size();
+    }
+
+    private SimpleClient create() throws IOException {
+        SimpleClient client = new SimpleClient(delegate, host, port);
+        client.connectToServer();
+        if (!client.isConnected()) {
+            throw new IOException("Failed to connect to " + host + ":" + port);
+        }
+        return client;
+    }
+
+    private void destroy(SimpleClient client) {
+        client.closeConn();
+    }
+
+    private static final class Idle {
+
+        final SimpleClient client;
+        final long         since = System.currentTimeMillis();
+
+        Idle(SimpleClient client) {
+            this.client = client;
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package me.asu.socket.client;
 
+import static me.asu.socket.Constants.ERROR_QUEUE_FULL;
 import static me.asu.socket.Constants.ERROR_SEND;
 
 import java.util.concurrent.*;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import me.asu.socket.message.IMessage;
+import me.asu.socket.message.IProtoMessage;
+import me.asu.socket.util.SendQueueCounter;
+import me.asu.socket.util.SendQueueLimits;
 import me.asu.socket.util.Stream;
 import me.asu.util.NamedThreadFactory;
 
@@ -22,6 +26,9 @@ import me.asu.util.NamedThreadFactory;
 public class SimpleClientThreadAsync extends SimpleClient {
 
     private LinkedBlockingDeque<Object> msgQueueToServer = new LinkedBlockingDeque<Object>();
+    /** 发送队列的限制，默认最多 {@link #MSG_QUEUE_TO_SERVER_MAX_SIZE} 个报文. */
+    private SendQueueCounter            sendQueueCounter = newSendQueueCounter(
+            SendQueueLimits.DEFAULT.withMaxMessages(MSG_QUEUE_TO_SERVER_MAX_SIZE));
     private boolean                     running          = false;
     private ExecutorService             es               = Executors
             .newFixedThreadPool(2, new NamedThreadFactory("SimpleClientThreadAsync"));
@@ -43,6 +50,33 @@ public class SimpleClientThreadAsync extends SimpleClient {
         this.port = port;
     }
 
+    /**
+     * 设置发送队列的限制，在 {@link #start()} 之前调用.
+     *
+     * @param limits SendQueueLimits
+     */
+    public void setSendQueueLimits(SendQueueLimits limits) {
+        this.sendQueueCounter = newSendQueueCounter(limits);
+    }
+
+    /**
+     * 发送队列是否低于高水位，不可写时应暂停 {@link #add(IMessage)}.
+     *
+     * @return 是否可写
+     */
+    public boolean isWritable() {
+        return sendQueueCounter.isWritable();
+    }
+
+    private SendQueueCounter newSendQueueCounter(SendQueueLimits limits) {
+        return new SendQueueCounter(limits, new SendQueueCounter.Listener() {
+            @Override
+            public void onWritabilityChanged(boolean writable) {
+                SimpleClientThreadAsync.this.onWritabilityChanged(writable);
+            }
+        });
+    }
+
     /**
      * 启动异步进程
      */
@@ -70,26 +104,67 @@ public class SimpleClientThreadAsync extends SimpleClient {
         closeConn();
     }
 
+    /**
+     * 心跳和其他报文一样排队发送.
+     */
+    @Override
+    protected void sendHeartbeat(IMessage ping) {
+        add(ping);
+    }
+
+    /**
+     * 异步请求，分配 seqId 后入队发送，收到同一 seqId 的响应时结束返回的 future.
+     * 多个调用方可以同时在一个连接上请求。
+     *
+     * @param req     请求报文，seqId 和 cmdType 会被覆盖
+     * @param timeout 超时时间，超时后 future 以 {@link java.util.concurrent.TimeoutException} 结束，
+     *                在 callbackExecutor 中执行，不占用定时器线程
+     * @param unit    单位
+     * @return 响应的 future，发送失败或者连接关闭时异常结束
+     */
+    public CompletableFuture<IProtoMessage> call(IProtoMessage req, long timeout,
+            TimeUnit unit) {
+        CompletableFuture<IProtoMessage> future = pendingCalls.register(req, timeout, unit);
+        if (!add(req)) {
+            pendingCalls.fail(req, new RejectedExecutionException("Send queue is full"));
+        }
+        return future;
+    }
+
     /**
      * 异步发送报文。
      * @param message {@link IMessage} 报文。
+     * @return 是否入队
      */
-    public void add(IMessage message) {
+    public boolean add(IMessage message) {
+        if (!sendQueueCounter.tryAdd(SendQueueLimits.sizeOf(message))) {
+            onError(ERROR_QUEUE_FULL, message);
+            return false;
+        }
         boolean succ = msgQueueToServer.offer(message);
         if (!succ) {
+            sendQueueCounter.remove(SendQueueLimits.sizeOf(message));
             onError(ERROR_SEND, message);
         }
+        return succ;
     }
 
     /**
      * 异步发送报文。
      * @param message byte[] 报文。
+     * @return 是否入队
      */
-    public void add(byte[] message) {
+    public boolean add(byte[] message) {
+        if (!sendQueueCounter.tryAdd(message.length)) {
+            onError(ERROR_QUEUE_FULL, null);
+            return false;
+        }
         boolean succ = msgQueueToServer.offer(message);
         if (!succ) {
+            sendQueueCounter.remove(message.length);
             onError(ERROR_SEND, null);
         }
+        return succ;
     }
 
     private void startThreads() {
@@ -106,7 +181,10 @@ public class SimpleClientThreadAsync extends SimpleClient {
                         continue;
                     }
 
-                    receive();
+                    IMessage box = receive();
+                    if (box != null) {
+                        box.recycle();
+                    }
                 }
             }
         });
@@ -128,6 +206,8 @@ public class SimpleClientThreadAsync extends SimpleClient {
                         if (msg == null) {
                             continue;
                         }
+                        // 报文入队后不应再修改，出队时按同样的方式计算大小
+                        sendQueueCounter.remove(SendQueueLimits.sizeOf(msg));
                     } catch (InterruptedException e) {
                         break;
                     }
@@ -142,6 +222,7 @@ public class SimpleClientThreadAsync extends SimpleClient {
                         }
                     } catch (Exception e) {
                         if (msg instanceof IMessage) {
+                            pendingCalls.fail((IMessage) msg, e);
                             onError(ERROR_SEND, (IMessage) msg);
                         } else {
                             onError(ERROR_SEND, null);
@@ -0,0 +1,175 @@
+package me.asu.socket.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import me.asu.socket.message.IMessage;
+
+/**
+ * CodecPipeline.
+ * 一个连接的编解码流水线，在报文和字节之间插入可替换的阶段：
+ * <code><pre>
+ * 入站：累积的数据 -> {@link FrameDecoder} 切帧 -> {@link Decoder} ... -> IMessage.decodeFrom
+ * 出站：IMessage.encodeTo -> {@link Encoder} ... -> socket
+ * </pre></code>
+ * 阶段之间传递 {@link ByteBuffer}，不需要变换的阶段直接返回原来的 buffer，不复制。
+ * 解码器按添加的顺序执行，编码器也按添加的顺序执行，成对的编解码器应按相反的顺序添加。
+ * <p>
+ * 没有解码器且没有自定义切帧时，入站走报文自身的解析（零拷贝的 SliceProtoMessage 不受影响）；
+ * 有解码器而没有设置切帧时，使用 {@link LengthFieldFrameDecoder#forProtoMessage(int)}。
+ * 流水线可能保存状态（如压缩字典），每个连接一个实例，由 {@link Initializer} 创建；
+ * 客户端重连时复用同一个实例，会先调用 {@link #reset()}。
+ * 只在连接的 IO 线程中使用，非线程安全。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class CodecPipeline {
+
+    /** 默认的最大帧长度. */
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 64 * 1024 * 1024;
+    /** {@link #decode(ByteBuffer)} 的返回值，表示帧被解码器丢弃，没有报文. */
+    public static final ByteBuffer DROPPED = ByteBuffer.allocate(0).asReadOnlyBuffer();
+
+    private static final FrameDecoder PROTO_FRAME_DECODER = LengthFieldFrameDecoder
+            .forProtoMessage(DEFAULT_MAX_FRAME_LENGTH);
+
+    /**
+     * 为每个新连接初始化流水线.
+     */
+    public interface Initializer {
+
+        void initPipeline(CodecPipeline pipeline);
+    }
+
+    private FrameDecoder        frameDecoder;
+    private final List<Decoder> decoders = new ArrayList<Decoder>();
+    private final List<Encoder> encoders = new ArrayList<Encoder>();
+
+    /**
+     * 用 initializer 创建一个新的流水线.
+     *
+     * @param initializer 为 null 时返回 null
+     * @return CodecPipeline
+     */
+    public static CodecPipeline create(Initializer initializer) {
+        if (initializer == null) {
+            return null;
+        }
+        CodecPipeline pipeline = new CodecPipeline();
+        initializer.initPipeline(pipeline);
+        return pipeline;
+    }
+
+    public CodecPipeline frameDecoder(FrameDecoder frameDecoder) {
+        this.frameDecoder = frameDecoder;
+        return this;
+    }
+
+    public CodecPipeline addDecoder(Decoder decoder) {
+        decoders.add(decoder);
+        return this;
+    }
+
+    public CodecPipeline addEncoder(Encoder encoder) {
+        encoders.add(encoder);
+        return this;
+    }
+
+    public FrameDecoder getFrameDecoder() {
+        return frameDecoder;
+    }
+
+    public List<Decoder> getDecoders() {
+        return decoders;
+    }
+
+    public List<Encoder> getEncoders() {
+        return encoders;
+    }
+
+    /**
+     * 入站是否需要经过流水线.
+     */
+    public boolean hasInbound() {
+        return frameDecoder != null || !decoders.isEmpty();
+    }
+
+    /**
+     * 出站是否需要经过流水线.
+     */
+    public boolean hasOutbound() {
+        return !encoders.isEmpty();
+    }
+
+    /**
+     * 清除各阶段的连接状态，同一个流水线用于新连接（如客户端重连）时调用.
+     */
+    public void reset() {
+        if (frameDecoder instanceof Resettable) {
+            ((Resettable) frameDecoder).reset();
+        }
+        for (Decoder d : decoders) {
+            if (d instanceof Resettable) {
+                ((Resettable) d).reset();
+            }
+        }
+        for (Encoder e : encoders) {
+            if (e instanceof Resettable) {
+                ((Resettable) e).reset();
+            }
+        }
+    }
+
+    /**
+     * 切出下一个帧并依次经过解码器.
+     *
+     * @param in 累积的数据，切出帧时 position 前移
+     * @return 解码后的帧；数据不够时返回 null，in 不变；帧被丢弃时返回 {@link #DROPPED}
+     * @throws IOException 数据错乱
+     */
+    public ByteBuffer decode(ByteBuffer in) throws IOException {
+        FrameDecoder fd = frameDecoder != null ? frameDecoder : PROTO_FRAME_DECODER;
+        ByteBuffer frame = fd.decode(in);
+        if (frame == null) {
+            return null;
+        }
+        for (int i = 0, n = decoders.size(); i < n; i++) {
+            frame = decoders.get(i).decode(frame);
+            if (frame == null) {
+                return DROPPED;
+            }
+        }
+        return frame;
+    }
+
+    /**
+     * 编码报文并依次经过编码器.
+     *
+     * @param message 报文
+     * @return 待写出的数据，从 position 到 limit
+     * @throws IOException 编码失败
+     */
+    public ByteBuffer encode(IMessage message) throws IOException {
+        ByteBuffer frame = ByteBuffer.allocate(message.encodedSize());
+        message.encodeTo(frame);
+        frame.flip();
+        return encode(frame);
+    }
+
+    /**
+     * 已经编码好的数据依次经过编码器.
+     *
+     * @param frame 数据，编码器可能原地修改
+     * @return 待写出的数据
+     * @throws IOException 编码失败
+     */
+    public ByteBuffer encode(ByteBuffer frame) throws IOException {
+        for (int i = 0, n = encoders.size(); i < n; i++) {
+            frame = encoders.get(i).encode(frame);
+        }
+        return frame;
+    }
+}
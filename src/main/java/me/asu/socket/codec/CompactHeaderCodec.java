@@ -0,0 +1,314 @@
+package me.asu.socket.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.util.Varints;
+
+/**
+ * CompactHeaderCodec.
+ * ProtoMessage 的紧凑头部：整数用 varint，取默认值 0 的字段省略，小报文的头部从 16 字节降到 4、5 字节。
+ * <code><pre>
+ * 1-flags，varint-bodyLen，varint-cmdId，[varint-seqId]，[1-cmdType]，[1-bodyType]，[1-code]，[1-ttl]，N-body
+ * flags：0x01 seqId，0x02 cmdType，0x04 bodyType，0x08 code，0x10 ttl，对应的位为 1 时字段存在
+ * </pre></code>
+ * 按连接协商，双方都应添加这个编解码器。握手帧是普通格式、cmdId 为 {@link #CMD_ID_COMPACT_HEADER}
+ * 的通知，不交给 Handler，code 区分两种：
+ * <ul>
+ * <li>{@link #CODE_OFFER}：发起方（initiator 为 true，一般是客户端）在第一个帧之前发送，
+ * 表示本端能解析紧凑格式；之后仍然发送普通格式。</li>
+ * <li>{@link #CODE_SWITCH}：收到对端的任一握手帧后，本端发出的第一个紧凑帧之前发送，
+ * 表示之后的帧都是紧凑格式；对端收到后按紧凑格式切帧。</li>
+ * </ul>
+ * 对端没有这个编解码器时不会回复握手帧，本端一直发送普通格式。
+ * 作为第一个解码器、最后一个编码器使用，同时用 {@link #frameDecoder()} 切帧，和压缩等阶段一起使用时：
+ * <code><pre>
+ * pipeline.frameDecoder(compact.frameDecoder()).addDecoder(compact).addDecoder(deflate)
+ *         .addEncoder(deflate).addEncoder(compact);
+ * </pre></code>
+ * 编码时原地改写帧的头部，不复制报文体；需要插入握手帧或者有多个帧时写入连接自己的缓冲区，
+ * 在下一次编码前有效。解码时展开为普通格式，写入连接自己的缓冲区，在下一次切帧前有效。
+ * 保存连接状态，每个连接一个实例。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class CompactHeaderCodec implements Decoder, Encoder, Resettable {
+
+    /** 保留给紧凑头部握手的 cmdId，业务不应使用. */
+    public static final int  CMD_ID_COMPACT_HEADER = Integer.MIN_VALUE + 4;
+    /** 握手帧的 code：本端能解析紧凑格式. */
+    public static final byte CODE_OFFER            = 0;
+    /** 握手帧的 code：本端之后发出的帧都是紧凑格式. */
+    public static final byte CODE_SWITCH           = 1;
+
+    private static final int HEADER_LENGTH   = 16;
+    private static final int FLAG_SEQ_ID     = 0x01;
+    private static final int FLAG_CMD_TYPE   = 0x02;
+    private static final int FLAG_BODY_TYPE  = 0x04;
+    private static final int FLAG_CODE       = 0x08;
+    private static final int FLAG_TTL        = 0x10;
+    private static final int FLAGS_MASK      = 0x1F;
+    /** 紧凑头部的最大字节数，比普通头部多 4 字节. */
+    private static final int MAX_COMPACT_HEADER_LENGTH = 1 + 3 * Varints.MAX_INT_SIZE + 4;
+    /** 缓存的解码缓冲区最大字节数，更大的帧临时分配. */
+    private static final int MAX_CACHED_BUFFER_SIZE    = 256 * 1024;
+
+    private final boolean      initiator;
+    private final int          maxFrameLength;
+    private final FrameDecoder standardFrameDecoder;
+    private final FrameDecoder frameDecoder = new FrameDecoder() {
+        @Override
+        public ByteBuffer decode(ByteBuffer in) throws IOException {
+            return peerCompact ? decodeCompactFrame(in) : standardFrameDecoder.decode(in);
+        }
+    };
+    /** 对端发来的帧是否已经是紧凑格式. */
+    private volatile boolean peerCompact;
+    /** 对端能否解析紧凑格式，即是否收到过对端的握手帧. */
+    private volatile boolean peerAccepts;
+    /** 本端是否已经发送 {@link #CODE_OFFER}，只在发送线程中使用. */
+    private          boolean offerSent;
+    /** 本端是否已经发送 {@link #CODE_SWITCH}，只在发送线程中使用. */
+    private          boolean switchSent;
+    private final ByteBuffer scratch = ByteBuffer.allocate(MAX_COMPACT_HEADER_LENGTH);
+    private       ByteBuffer output;
+    private       ByteBuffer encodeOutput;
+
+    /**
+     * @param initiator 是否主动发起握手；为 false 时等对端发起
+     */
+    public CompactHeaderCodec(boolean initiator) {
+        this(initiator, CodecPipeline.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    public CompactHeaderCodec(boolean initiator, int maxFrameLength) {
+        if (maxFrameLength <= HEADER_LENGTH) {
+            throw new IllegalArgumentException("Invalid maxFrameLength: " + maxFrameLength);
+        }
+        this.initiator = initiator;
+        this.maxFrameLength = maxFrameLength;
+        this.standardFrameDecoder = LengthFieldFrameDecoder.forProtoMessage(maxFrameLength);
+    }
+
+    /**
+     * 对端发来的帧已经是紧凑格式.
+     */
+    public boolean isPeerCompact() {
+        return peerCompact;
+    }
+
+    /**
+     * 这个连接的切帧器：握手之前按普通格式切帧，之后按紧凑格式切帧并展开为普通格式.
+     *
+     * @return FrameDecoder
+     */
+    public FrameDecoder frameDecoder() {
+        return frameDecoder;
+    }
+
+    private ByteBuffer decodeCompactFrame(ByteBuffer in) throws IOException {
+        int start = in.position();
+        if (in.remaining() < 3) {
+            return null;
+        }
+        int flags = in.get(start) & 0xFF;
+        if ((flags & ~FLAGS_MASK) != 0) {
+            throw new CorruptedFrameException("Invalid compact header flags: " + flags);
+        }
+        try {
+            int index = start + 1;
+            int n = Varints.sizeAt(in, index);
+            if (n == 0) {
+                return null;
+            }
+            int bodyLen = Varints.getAt(in, index);
+            index += n;
+            if (bodyLen < 0 || bodyLen > maxFrameLength - HEADER_LENGTH) {
+                throw new CorruptedFrameException("Invalid compact body length: " + bodyLen);
+            }
+            n = Varints.sizeAt(in, index);
+            if (n == 0) {
+                return null;
+            }
+            int cmdId = Varints.getAt(in, index);
+            index += n;
+            int seqId = 0;
+            if ((flags & FLAG_SEQ_ID) != 0) {
+                n = Varints.sizeAt(in, index);
+                if (n == 0) {
+                    return null;
+                }
+                seqId = Varints.getAt(in, index);
+                index += n;
+            }
+            int bodyStart = index + Integer.bitCount(flags & ~FLAG_SEQ_ID);
+            if (in.limit() - bodyStart < bodyLen) {
+                return null;
+            }
+            ByteBuffer out = output(HEADER_LENGTH + bodyLen);
+            out.putInt(cmdId);
+            out.putInt(seqId);
+            out.putInt(bodyLen);
+            out.put((flags & FLAG_CMD_TYPE) != 0 ? in.get(index++) : 0);
+            out.put((flags & FLAG_BODY_TYPE) != 0 ? in.get(index++) : 0);
+            out.put((flags & FLAG_CODE) != 0 ? in.get(index++) : 0);
+            out.put((flags & FLAG_TTL) != 0 ? in.get(index) : 0);
+            ByteBuffer body = in.duplicate();
+            body.limit(bodyStart + bodyLen).position(bodyStart);
+            out.put(body);
+            out.flip();
+            in.position(bodyStart + bodyLen);
+            return out;
+        } catch (IllegalArgumentException e) {
+            throw new CorruptedFrameException(e.getMessage());
+        }
+    }
+
+    /**
+     * 处理对端的握手帧并丢弃，{@link #CODE_SWITCH} 之后按紧凑格式切帧.
+     */
+    @Override
+    public ByteBuffer decode(ByteBuffer frame) throws IOException {
+        int start = frame.position();
+        if (frame.remaining() == HEADER_LENGTH && frame.getInt(start) == CMD_ID_COMPACT_HEADER) {
+            if (frame.get(start + 14) == CODE_SWITCH) {
+                peerCompact = true;
+            }
+            peerAccepts = true;
+            return null;
+        }
+        return frame;
+    }
+
+    /**
+     * 对端能解析紧凑格式时改写为紧凑格式，需要时在前面加上握手帧.
+     */
+    @Override
+    public ByteBuffer encode(ByteBuffer frame) {
+        if (!switchSent && !peerAccepts) {
+            if (!initiator || offerSent) {
+                return frame;
+            }
+            offerSent = true;
+            ByteBuffer out = encodeOutput(HEADER_LENGTH + frame.remaining());
+            writeHandshake(out, CODE_OFFER);
+            out.put(frame);
+            out.flip();
+            return out;
+        }
+        int start = frame.position();
+        if (switchSent && frame.remaining() >= HEADER_LENGTH
+                && frame.remaining() == HEADER_LENGTH + frame.getInt(start + 8)) {
+            // 常见情况：只有一个帧，头部原地缩短
+            writeCompactHeader(frame, start);
+            int n = scratch.remaining();
+            if (n <= HEADER_LENGTH) {
+                int newStart = start + HEADER_LENGTH - n;
+                ByteBuffer dst = frame.duplicate();
+                dst.position(newStart);
+                dst.put(scratch);
+                frame.position(newStart);
+                return frame;
+            }
+        }
+        // 多个帧（如前面的阶段加了握手帧），第一个紧凑帧，或者紧凑头部反而更长
+        int frames = 0;
+        for (int p = start; p < frame.limit(); p += HEADER_LENGTH + frame.getInt(p + 8)) {
+            frames++;
+        }
+        int size = frame.remaining() + frames * (MAX_COMPACT_HEADER_LENGTH - HEADER_LENGTH);
+        ByteBuffer out = encodeOutput(switchSent ? size : HEADER_LENGTH + size);
+        if (!switchSent) {
+            writeHandshake(out, CODE_SWITCH);
+            switchSent = true;
+        }
+        for (int p = start; p < frame.limit(); ) {
+            int bodyLen = frame.getInt(p + 8);
+            writeCompactHeader(frame, p);
+            out.put(scratch);
+            ByteBuffer body = frame.duplicate();
+            body.limit(p + HEADER_LENGTH + bodyLen).position(p + HEADER_LENGTH);
+            out.put(body);
+            p += HEADER_LENGTH + bodyLen;
+        }
+        out.flip();
+        return out;
+    }
+
+    @Override
+    public void reset() {
+        peerCompact = false;
+        peerAccepts = false;
+        offerSent = false;
+        switchSent = false;
+    }
+
+    private static void writeHandshake(ByteBuffer out, byte code) {
+        ProtoMessageHeader hello = new ProtoMessageHeader();
+        hello.cmdId = CMD_ID_COMPACT_HEADER;
+        hello.cmdType = ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+        hello.bodyType = ProtoMessageHeader.BODY_TYPE_RAW;
+        hello.code = code;
+        hello.encodeTo(out);
+    }
+
+    /**
+     * 把 p 处的普通头部写成紧凑格式，结果在 scratch 的 position 到 limit 之间.
+     */
+    private void writeCompactHeader(ByteBuffer frame, int p) {
+        int seqId = frame.getInt(p + 4);
+        byte cmdType = frame.get(p + 12);
+        byte bodyType = frame.get(p + 13);
+        byte code = frame.get(p + 14);
+        byte ttl = frame.get(p + 15);
+        int flags = (seqId != 0 ? FLAG_SEQ_ID : 0) | (cmdType != 0 ? FLAG_CMD_TYPE : 0)
+                | (bodyType != 0 ? FLAG_BODY_TYPE : 0) | (code != 0 ? FLAG_CODE : 0)
+                | (ttl != 0 ? FLAG_TTL : 0);
+        scratch.clear();
+        scratch.put((byte) flags);
+        Varints.write(scratch, frame.getInt(p + 8));
+        Varints.write(scratch, frame.getInt(p));
+        if (seqId != 0) {
+            Varints.write(scratch, seqId);
+        }
+        if (cmdType != 0) {
+            scratch.put(cmdType);
+        }
+        if (bodyType != 0) {
+            scratch.put(bodyType);
+        }
+        if (code != 0) {
+            scratch.put(code);
+        }
+        if (ttl != 0) {
+            scratch.put(ttl);
+        }
+        scratch.flip();
+    }
+
+    private ByteBuffer output(int size) {
+        if (output != null && output.capacity() >= size) {
+            output.clear();
+            return output;
+        }
+        ByteBuffer b = ByteBuffer.allocate(size);
+        if (size <= MAX_CACHED_BUFFER_SIZE) {
+            output = b;
+        }
+        return b;
+    }
+
+    private ByteBuffer encodeOutput(int size) {
+        if (encodeOutput != null && encodeOutput.capacity() >= size) {
+            encodeOutput.clear();
+            return encodeOutput;
+        }
+        ByteBuffer b = ByteBuffer.allocate(size);
+        if (size <= MAX_CACHED_BUFFER_SIZE) {
+            encodeOutput = b;
+        }
+        return b;
+    }
+}
@@ -0,0 +1,18 @@
+package me.asu.socket.codec;
+
+import java.io.IOException;
+
+/**
+ * CorruptedFrameException.
+ * 帧的格式错误，如长度为负数或者超过上限。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class CorruptedFrameException extends IOException {
+
+    public CorruptedFrameException(String message) {
+        super(message);
+    }
+}
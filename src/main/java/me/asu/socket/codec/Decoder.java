@@ -0,0 +1,24 @@
+package me.asu.socket.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decoder.
+ * 入站的一个阶段，对一个完整的帧做变换，如解压、统计。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public interface Decoder {
+
+    /**
+     * 变换一个帧.
+     *
+     * @param frame 帧，从 position 到 limit；只在本次调用内有效
+     * @return 变换后的帧，不需要变换时直接返回 frame；返回 null 表示丢弃这个帧
+     * @throws IOException 数据错乱，调用方会丢弃累积的数据
+     */
+    ByteBuffer decode(ByteBuffer frame) throws IOException;
+}
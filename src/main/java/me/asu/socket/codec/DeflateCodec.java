@@ -0,0 +1,292 @@
+package me.asu.socket.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.util.Recycler;
+
+/**
+ * DeflateCodec.
+ * 报文体压缩，报文体不小于 threshold 字节且压缩后更小时才压缩，
+ * 用 bodyType 的 {@link ProtoMessageHeader#BODY_TYPE_FLAG_COMPRESSED} 位标记。
+ * <code><pre>
+ * 压缩后的报文体：4-原报文体长度，N-zlib 格式的 deflate 数据（带校验和）
+ * </pre></code>
+ * 头部的 bodyLen 是压缩后的长度，切帧不受影响；解码时没有标记的帧原样通过，
+ * 所以只有需要压缩的一端产生压缩帧，两端都应添加这个编解码器：
+ * <code><pre>
+ * pipeline.addDecoder(codec).addEncoder(codec);
+ * </pre></code>
+ * 处理的是 ProtoMessage 格式的帧，和加长度前缀之类的阶段一起使用时，应在它们的内侧。
+ * Deflater、Inflater 和缓冲区按线程用 {@link Recycler} 复用，实例本身无状态，可以多个连接共用。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class DeflateCodec implements Encoder, Decoder {
+
+    /** 默认的压缩阈值. */
+    public static final int DEFAULT_THRESHOLD = 1024;
+    /** 线程缓存的缓冲区最大字节数，更大的报文临时分配. */
+    private static final int MAX_CACHED_BUFFER_SIZE = 256 * 1024;
+    private static final int HEADER_LENGTH          = 16;
+    private static final int BODY_LEN_OFFSET        = 8;
+    private static final int BODY_TYPE_OFFSET       = 13;
+
+    private static final Recycler<Context> RECYCLER = new Recycler<Context>(4) {
+        @Override
+        protected Context newObject(Handle<Context> handle) {
+            return new Context(handle);
+        }
+    };
+
+    private final int threshold;
+    private final int level;
+    private final int maxBodyLength;
+
+    public DeflateCodec() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public DeflateCodec(int threshold) {
+        this(threshold, Deflater.BEST_SPEED, CodecPipeline.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param threshold     报文体不小于这个长度才压缩
+     * @param level         压缩级别，{@link Deflater#BEST_SPEED} 到 {@link Deflater#BEST_COMPRESSION}
+     * @param maxBodyLength 解压后报文体的最大长度，超过时认为数据错乱
+     */
+    public DeflateCodec(int threshold, int level, int maxBodyLength) {
+        if (threshold < 0 || maxBodyLength <= 0) {
+            throw new IllegalArgumentException(
+                    "Invalid compression (" + threshold + ", " + maxBodyLength + ")");
+        }
+        this.threshold = threshold;
+        this.level = level;
+        this.maxBodyLength = maxBodyLength;
+    }
+
+    /**
+     * 压缩报文体，结果更小时原地写回 frame 并缩短 limit，否则原样返回.
+     */
+    @Override
+    public ByteBuffer encode(ByteBuffer frame) {
+        int start = frame.position();
+        if (frame.remaining() < HEADER_LENGTH) {
+            return frame;
+        }
+        int bodyLen = frame.getInt(start + BODY_LEN_OFFSET);
+        byte bodyType = frame.get(start + BODY_TYPE_OFFSET);
+        if (bodyLen < Math.max(threshold, 8)
+                || (bodyType & ProtoMessageHeader.BODY_TYPE_FLAG_COMPRESSED) != 0
+                || frame.remaining() < HEADER_LENGTH + bodyLen) {
+            return frame;
+        }
+        if (!frame.hasArray() || frame.isReadOnly()) {
+            ByteBuffer copy = ByteBuffer.allocate(frame.remaining());
+            copy.put(frame.duplicate()).flip();
+            frame = copy;
+            start = 0;
+        }
+        byte[] array = frame.array();
+        int bodyOffset = frame.arrayOffset() + start + HEADER_LENGTH;
+        Context c = RECYCLER.get();
+        try {
+            // 输出不小于原报文体就不值得压缩，缓冲区最多 bodyLen 字节
+            byte[] out = c.buffer(bodyLen);
+            Deflater deflater = c.deflater();
+            deflater.setLevel(level);
+            byte[] dictionary = encodeDictionary();
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(array, bodyOffset, bodyLen);
+            deflater.finish();
+            int n = 4;
+            while (!deflater.finished() && n < bodyLen) {
+                n += deflater.deflate(out, n, bodyLen - n);
+            }
+            if (!deflater.finished() || n >= bodyLen) {
+                return frame;
+            }
+            putInt(out, 0, bodyLen);
+            System.arraycopy(out, 0, array, bodyOffset, n);
+            frame.putInt(start + BODY_LEN_OFFSET, n);
+            frame.put(start + BODY_TYPE_OFFSET,
+                    (byte) (bodyType | ProtoMessageHeader.BODY_TYPE_FLAG_COMPRESSED));
+            frame.limit(start + HEADER_LENGTH + n);
+            return frame;
+        } finally {
+            c.recycle();
+        }
+    }
+
+    /**
+     * 解压有标记的帧，返回的 buffer 属于当前线程，在当前线程下一次解压前有效.
+     */
+    @Override
+    public ByteBuffer decode(ByteBuffer frame) throws IOException {
+        int start = frame.position();
+        if (frame.remaining() < HEADER_LENGTH) {
+            return frame;
+        }
+        byte bodyType = frame.get(start + BODY_TYPE_OFFSET);
+        if ((bodyType & ProtoMessageHeader.BODY_TYPE_FLAG_COMPRESSED) == 0) {
+            return frame;
+        }
+        int bodyLen = frame.getInt(start + BODY_LEN_OFFSET);
+        if (bodyLen < 4 || frame.remaining() < HEADER_LENGTH + bodyLen) {
+            throw new CorruptedFrameException("Invalid compressed body length: " + bodyLen);
+        }
+        int originalLen = frame.getInt(start + HEADER_LENGTH);
+        if (originalLen < 0 || originalLen > maxBodyLength) {
+            throw new CorruptedFrameException(
+                    "Uncompressed body length " + originalLen + " exceeds " + maxBodyLength);
+        }
+        byte[] in;
+        int inOffset;
+        if (frame.hasArray()) {
+            in = frame.array();
+            inOffset = frame.arrayOffset() + start + HEADER_LENGTH + 4;
+        } else {
+            in = new byte[bodyLen - 4];
+            inOffset = 0;
+            ByteBuffer src = frame.duplicate();
+            src.position(start + HEADER_LENGTH + 4);
+            src.get(in);
+        }
+        Context c = RECYCLER.get();
+        try {
+            ByteBuffer out = c.output(HEADER_LENGTH + originalLen);
+            byte[] dst = out.array();
+            Inflater inflater = c.inflater();
+            inflater.setInput(in, inOffset, bodyLen - 4);
+            int n = 0;
+            try {
+                while (n < originalLen) {
+                    int len = inflater.inflate(dst, HEADER_LENGTH + n, originalLen - n);
+                    if (len == 0 && inflater.needsDictionary()) {
+                        // zlib 头部带有字典的 Adler-32
+                        byte[] dictionary = decodeDictionary(inflater.getAdler());
+                        if (dictionary == null) {
+                            throw new CorruptedFrameException(
+                                    "Unknown compression dictionary: " + inflater.getAdler());
+                        }
+                        inflater.setDictionary(dictionary);
+                        continue;
+                    }
+                    if (len == 0 && (inflater.finished() || inflater.needsInput())) {
+                        break;
+                    }
+                    n += len;
+                }
+            } catch (DataFormatException e) {
+                throw new CorruptedFrameException("Invalid compressed body: " + e.getMessage());
+            }
+            if (n != originalLen) {
+                throw new CorruptedFrameException(
+                        "Compressed body inflated to " + n + " bytes, expected " + originalLen);
+            }
+            ByteBuffer header = frame.duplicate();
+            header.limit(start + HEADER_LENGTH);
+            out.put(header);
+            out.putInt(BODY_LEN_OFFSET, originalLen);
+            out.put(BODY_TYPE_OFFSET,
+                    (byte) (bodyType & ~ProtoMessageHeader.BODY_TYPE_FLAG_COMPRESSED));
+            out.position(0).limit(HEADER_LENGTH + originalLen);
+            return out;
+        } finally {
+            c.recycle();
+        }
+    }
+
+    /**
+     * 压缩时使用的预置字典，默认不使用.
+     *
+     * @return 字典，为 null 时不使用
+     */
+    protected byte[] encodeDictionary() {
+        return null;
+    }
+
+    /**
+     * 解压时按 Adler-32 查找对方压缩时使用的字典，默认没有.
+     *
+     * @param adler 字典的 Adler-32
+     * @return 字典，没有时为 null
+     */
+    protected byte[] decodeDictionary(int adler) {
+        return null;
+    }
+
+    private static void putInt(byte[] b, int i, int v) {
+        b[i] = (byte) (v >>> 24);
+        b[i + 1] = (byte) (v >>> 16);
+        b[i + 2] = (byte) (v >>> 8);
+        b[i + 3] = (byte) v;
+    }
+
+    /**
+     * 线程复用的压缩状态.
+     */
+    private static final class Context {
+
+        final Recycler.Handle<Context> handle;
+        Deflater   deflater;
+        Inflater   inflater;
+        byte[]     buffer;
+        ByteBuffer output;
+
+        Context(Recycler.Handle<Context> handle) {
+            this.handle = handle;
+        }
+
+        Deflater deflater() {
+            if (deflater == null) {
+                deflater = new Deflater(Deflater.BEST_SPEED);
+            }
+            deflater.reset();
+            return deflater;
+        }
+
+        Inflater inflater() {
+            if (inflater == null) {
+                inflater = new Inflater();
+            }
+            inflater.reset();
+            return inflater;
+        }
+
+        byte[] buffer(int size) {
+            if (buffer != null && buffer.length >= size) {
+                return buffer;
+            }
+            byte[] b = new byte[size];
+            if (size <= MAX_CACHED_BUFFER_SIZE) {
+                buffer = b;
+            }
+            return b;
+        }
+
+        ByteBuffer output(int size) {
+            if (output != null && output.capacity() >= size) {
+                output.clear();
+                return output;
+            }
+            ByteBuffer b = ByteBuffer.allocate(size);
+            if (size <= MAX_CACHED_BUFFER_SIZE) {
+                output = b;
+            }
+            return b;
+        }
+
+        void recycle() {
+            handle.recycle(this);
+        }
+    }
+}
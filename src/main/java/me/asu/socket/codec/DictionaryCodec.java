@@ -0,0 +1,171 @@
+package me.asu.socket.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Adler32;
+import me.asu.socket.message.ProtoMessageHeader;
+
+/**
+ * DictionaryCodec.
+ * 带预置字典的 {@link DeflateCodec}，用于几百字节、内容相似的报文（如同一类 JSON），
+ * 单个报文压缩时也能利用字典中的公共片段。
+ * <ul>
+ * <li>连接上发出的第一个帧之前先发送一个握手帧：cmdId 为 {@link #CMD_ID_DICTIONARY} 的通知，
+ * 报文体是字典本身。对端收到后记下字典，握手帧不交给 Handler。</li>
+ * <li>压缩数据是 zlib 格式，头部带有字典的 Adler-32，解压时按它选择字典，
+ * 不需要额外的字段，也不需要等待对端确认。</li>
+ * <li>没有设置字典的一端（如服务端）收到对端的字典后，发出的报文也用这个字典压缩。</li>
+ * </ul>
+ * 保存连接状态，每个连接一个实例，在 {@link CodecPipeline.Initializer} 中创建；
+ * 字典可以用 {@link #buildDictionary(Iterable, int)} 从样本生成。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class DictionaryCodec extends DeflateCodec implements Resettable {
+
+    /** 保留给字典握手的 cmdId，业务不应使用. */
+    public static final int CMD_ID_DICTIONARY = Integer.MIN_VALUE + 2;
+    /** 字典的最大长度，即 deflate 的窗口大小. */
+    public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+    /** 默认的压缩阈值，字典对小报文也有效. */
+    public static final int SMALL_BODY_THRESHOLD = 64;
+
+    private final byte[] dictionary;
+    private final int    dictionaryId;
+    private volatile byte[] peerDictionary;
+    private volatile int    peerDictionaryId;
+    private boolean handshakeSent;
+
+    /**
+     * @param dictionary 本端压缩使用的字典，为 null 时使用对端握手发来的字典
+     */
+    public DictionaryCodec(byte[] dictionary) {
+        this(dictionary, SMALL_BODY_THRESHOLD);
+    }
+
+    public DictionaryCodec(byte[] dictionary, int threshold) {
+        super(threshold);
+        if (dictionary != null && (dictionary.length == 0
+                || dictionary.length > MAX_DICTIONARY_SIZE)) {
+            throw new IllegalArgumentException(
+                    "Dictionary size must be 1.." + MAX_DICTIONARY_SIZE + " (" + dictionary.length
+                            + ")");
+        }
+        this.dictionary = dictionary;
+        this.dictionaryId = dictionary == null ? 0 : adler32(dictionary);
+    }
+
+    /**
+     * 用样本报文体生成字典：从最新的样本开始往前取，越新的放得越靠后（deflate 对近处的匹配编码更短）.
+     *
+     * @param samples 样本，按时间顺序
+     * @param maxSize 字典的最大长度，不超过 {@link #MAX_DICTIONARY_SIZE}
+     * @return 字典
+     */
+    public static byte[] buildDictionary(Iterable<byte[]> samples, int maxSize) {
+        int size = Math.min(maxSize, MAX_DICTIONARY_SIZE);
+        List<byte[]> list = new ArrayList<byte[]>();
+        for (byte[] s : samples) {
+            list.add(s);
+        }
+        byte[] dict = new byte[size];
+        int pos = size;
+        for (int i = list.size() - 1; i >= 0 && pos > 0; i--) {
+            byte[] s = list.get(i);
+            int n = Math.min(s.length, pos);
+            pos -= n;
+            System.arraycopy(s, s.length - n, dict, pos, n);
+        }
+        if (pos == 0) {
+            return dict;
+        }
+        byte[] out = new byte[size - pos];
+        System.arraycopy(dict, pos, out, 0, out.length);
+        return out;
+    }
+
+    /**
+     * 压缩报文体，连接上的第一个帧之前加上握手帧.
+     */
+    @Override
+    public ByteBuffer encode(ByteBuffer frame) {
+        ByteBuffer encoded = super.encode(frame);
+        if (handshakeSent || dictionary == null) {
+            return encoded;
+        }
+        handshakeSent = true;
+        ByteBuffer out = ByteBuffer.allocate(16 + dictionary.length + encoded.remaining());
+        ProtoMessageHeader header = new ProtoMessageHeader();
+        header.cmdId = CMD_ID_DICTIONARY;
+        header.cmdType = ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+        header.bodyType = ProtoMessageHeader.BODY_TYPE_RAW;
+        header.bodyLen = dictionary.length;
+        header.encodeTo(out);
+        out.put(dictionary);
+        out.put(encoded);
+        out.flip();
+        return out;
+    }
+
+    /**
+     * 记下对端的字典并丢弃握手帧，其他帧按需解压.
+     */
+    @Override
+    public ByteBuffer decode(ByteBuffer frame) throws IOException {
+        int start = frame.position();
+        if (frame.remaining() >= 16 && frame.getInt(start) == CMD_ID_DICTIONARY) {
+            int len = frame.getInt(start + 8);
+            if (len <= 0 || len > MAX_DICTIONARY_SIZE || frame.remaining() < 16 + len) {
+                throw new CorruptedFrameException("Invalid dictionary length: " + len);
+            }
+            byte[] dict = new byte[len];
+            ByteBuffer body = frame.duplicate();
+            body.position(start + 16);
+            body.get(dict);
+            peerDictionaryId = adler32(dict);
+            peerDictionary = dict;
+            return null;
+        }
+        return super.decode(frame);
+    }
+
+    @Override
+    public void reset() {
+        handshakeSent = false;
+        peerDictionary = null;
+    }
+
+    /**
+     * 对端是否已经发来字典.
+     */
+    public boolean hasPeerDictionary() {
+        return peerDictionary != null;
+    }
+
+    @Override
+    protected byte[] encodeDictionary() {
+        return dictionary != null ? dictionary : peerDictionary;
+    }
+
+    @Override
+    protected byte[] decodeDictionary(int adler) {
+        byte[] peer = peerDictionary;
+        if (peer != null && peerDictionaryId == adler) {
+            return peer;
+        }
+        if (dictionary != null && dictionaryId == adler) {
+            return dictionary;
+        }
+        return null;
+    }
+
+    private static int adler32(byte[] b) {
+        Adler32 adler = new Adler32();
+        adler.update(b, 0, b.length);
+        return (int) adler.getValue();
+    }
+}
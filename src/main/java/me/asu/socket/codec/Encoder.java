@@ -0,0 +1,24 @@
+package me.asu.socket.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Encoder.
+ * 出站的一个阶段，对编码好的帧做变换，如压缩、加长度前缀、统计。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public interface Encoder {
+
+    /**
+     * 变换一个帧.
+     *
+     * @param frame 帧，从 position 到 limit；由流水线分配，可以原地修改
+     * @return 变换后的帧，不需要变换时直接返回 frame
+     * @throws IOException 编码失败
+     */
+    ByteBuffer encode(ByteBuffer frame) throws IOException;
+}
@@ -0,0 +1,24 @@
+package me.asu.socket.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * FrameDecoder.
+ * 从累积的接收数据中切出一个完整的帧，是 {@link CodecPipeline} 入站的第一步。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public interface FrameDecoder {
+
+    /**
+     * 切出一个帧.
+     *
+     * @param in 累积的数据，从 position 到 limit；切出帧时 position 前移到帧之后，数据不够时不修改
+     * @return 帧，尽量是 in 的 slice 而不是复制；数据不够时返回 null
+     * @throws IOException 数据错乱，调用方会丢弃累积的数据
+     */
+    ByteBuffer decode(ByteBuffer in) throws IOException;
+}
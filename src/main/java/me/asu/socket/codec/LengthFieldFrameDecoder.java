@@ -0,0 +1,100 @@
+package me.asu.socket.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LengthFieldFrameDecoder.
+ * 按长度字段切帧，参数的含义和 Netty 的 LengthFieldBasedFrameDecoder 相同：
+ * <code><pre>
+ * 帧长度 = lengthFieldOffset + lengthFieldLength + 长度字段的值 + lengthAdjustment
+ * 返回的帧去掉开头 initialBytesToStrip 个字节
+ * </pre></code>
+ * {@link #forProtoMessage(int)} 是 {@link me.asu.socket.message.ProtoMessage} 自身的格式。
+ * 返回的帧是输入的 slice，不复制数据。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class LengthFieldFrameDecoder implements FrameDecoder {
+
+    private final int maxFrameLength;
+    private final int lengthFieldOffset;
+    private final int lengthFieldLength;
+    private final int lengthAdjustment;
+    private final int initialBytesToStrip;
+
+    /**
+     * @param maxFrameLength      帧的最大长度，超过时认为数据错乱
+     * @param lengthFieldOffset   长度字段的偏移
+     * @param lengthFieldLength   长度字段的字节数，1、2、4
+     * @param lengthAdjustment    长度字段之后、长度字段的值之外的字节数
+     * @param initialBytesToStrip 返回的帧去掉开头的字节数
+     */
+    public LengthFieldFrameDecoder(int maxFrameLength, int lengthFieldOffset,
+            int lengthFieldLength, int lengthAdjustment, int initialBytesToStrip) {
+        if (lengthFieldLength != 1 && lengthFieldLength != 2 && lengthFieldLength != 4) {
+            throw new IllegalArgumentException(
+                    "lengthFieldLength must be 1, 2 or 4 (" + lengthFieldLength + ")");
+        }
+        if (lengthFieldOffset < 0 || initialBytesToStrip < 0 || maxFrameLength <= 0) {
+            throw new IllegalArgumentException("Invalid frame parameters");
+        }
+        this.maxFrameLength = maxFrameLength;
+        this.lengthFieldOffset = lengthFieldOffset;
+        this.lengthFieldLength = lengthFieldLength;
+        this.lengthAdjustment = lengthAdjustment;
+        this.initialBytesToStrip = initialBytesToStrip;
+    }
+
+    /**
+     * ProtoMessage 的格式：4-cmdId,4-seqId,4-bodyLen,4-其他头部，N-body.
+     *
+     * @param maxFrameLength 帧的最大长度
+     * @return LengthFieldFrameDecoder
+     */
+    public static LengthFieldFrameDecoder forProtoMessage(int maxFrameLength) {
+        return new LengthFieldFrameDecoder(maxFrameLength, 8, 4, 4, 0);
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer in) throws CorruptedFrameException {
+        int start = in.position();
+        int headerEnd = lengthFieldOffset + lengthFieldLength;
+        if (in.remaining() < headerEnd) {
+            return null;
+        }
+        long length = readLength(in, start + lengthFieldOffset);
+        long frameLength = headerEnd + length + lengthAdjustment;
+        if (length < 0 || frameLength < headerEnd) {
+            throw new CorruptedFrameException("Negative frame length: " + length);
+        }
+        if (frameLength > maxFrameLength) {
+            throw new CorruptedFrameException(
+                    "Frame length " + frameLength + " exceeds " + maxFrameLength);
+        }
+        if (frameLength < initialBytesToStrip) {
+            throw new CorruptedFrameException(
+                    "Frame length " + frameLength + " is less than initialBytesToStrip");
+        }
+        if (in.remaining() < frameLength) {
+            return null;
+        }
+        ByteBuffer frame = in.duplicate();
+        frame.position(start + initialBytesToStrip);
+        frame.limit(start + (int) frameLength);
+        in.position(start + (int) frameLength);
+        return frame.slice();
+    }
+
+    private long readLength(ByteBuffer in, int index) {
+        switch (lengthFieldLength) {
+            case 1:
+                return in.get(index) & 0xFF;
+            case 2:
+                return in.getShort(index) & 0xFFFF;
+            default:
+                return in.getInt(index);
+        }
+    }
+}
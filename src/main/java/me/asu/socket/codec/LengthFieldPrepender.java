@@ -0,0 +1,24 @@
+package me.asu.socket.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * LengthFieldPrepender.
+ * 在帧前加 4 字节的长度（不含长度字段本身），
+ * 对端用 {@code new LengthFieldFrameDecoder(max, 0, 4, 0, 4)} 切帧并去掉长度字段。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class LengthFieldPrepender implements Encoder {
+
+    @Override
+    public ByteBuffer encode(ByteBuffer frame) {
+        ByteBuffer out = ByteBuffer.allocate(4 + frame.remaining());
+        out.putInt(frame.remaining());
+        out.put(frame);
+        out.flip();
+        return out;
+    }
+}
@@ -0,0 +1,17 @@
+package me.asu.socket.codec;
+
+/**
+ * Resettable.
+ * 保存连接状态的阶段，客户端重连时由 {@link CodecPipeline#reset()} 清除，如握手、字典。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public interface Resettable {
+
+    /**
+     * 新连接建立时调用.
+     */
+    void reset();
+}
@@ -0,0 +1,141 @@
+package me.asu.socket.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import me.asu.socket.util.Varints;
+
+/**
+ * VarintLengthCodec.
+ * 把 4 字节长度前缀（如 {@link me.asu.socket.message.SimpleMessage}）改为 varint，
+ * 小于 128 字节的报文只用 1 字节长度。
+ * <code><pre>
+ * 线上：varint-bodyLen，N-body
+ * 报文：4-bodyLen，N-body
+ * </pre></code>
+ * 报文中没有保留的控制帧，不能协商，双方都应设置：
+ * <code><pre>
+ * pipeline.frameDecoder(codec.frameDecoder()).addEncoder(codec);
+ * </pre></code>
+ * 编码时原地改写长度前缀，不复制报文体；解码时还原为 4 字节长度，写入连接自己的缓冲区，
+ * 在下一次切帧前有效。每个连接一个实例。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class VarintLengthCodec implements Encoder {
+
+    private static final int LENGTH_FIELD_LENGTH    = 4;
+    /** 缓存的解码缓冲区最大字节数，更大的帧临时分配. */
+    private static final int MAX_CACHED_BUFFER_SIZE = 256 * 1024;
+
+    private final int        maxFrameLength;
+    private final ByteBuffer scratch = ByteBuffer.allocate(Varints.MAX_INT_SIZE);
+    private       ByteBuffer output;
+    private final FrameDecoder frameDecoder = new FrameDecoder() {
+        @Override
+        public ByteBuffer decode(ByteBuffer in) throws IOException {
+            return decodeFrame(in);
+        }
+    };
+
+    public VarintLengthCodec() {
+        this(CodecPipeline.DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    public VarintLengthCodec(int maxFrameLength) {
+        if (maxFrameLength <= LENGTH_FIELD_LENGTH) {
+            throw new IllegalArgumentException("Invalid maxFrameLength: " + maxFrameLength);
+        }
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * 这个连接的切帧器，切出的帧还原为 4 字节长度前缀.
+     *
+     * @return FrameDecoder
+     */
+    public FrameDecoder frameDecoder() {
+        return frameDecoder;
+    }
+
+    /**
+     * 4 字节长度前缀改为 varint，需要时逐帧改写.
+     */
+    @Override
+    public ByteBuffer encode(ByteBuffer frame) {
+        int start = frame.position();
+        if (frame.remaining() >= LENGTH_FIELD_LENGTH
+                && frame.remaining() == LENGTH_FIELD_LENGTH + frame.getInt(start)) {
+            int len = frame.getInt(start);
+            if (Varints.sizeOf(len) <= LENGTH_FIELD_LENGTH) {
+                scratch.clear();
+                Varints.write(scratch, len);
+                scratch.flip();
+                int newStart = start + LENGTH_FIELD_LENGTH - scratch.remaining();
+                ByteBuffer dst = frame.duplicate();
+                dst.position(newStart);
+                dst.put(scratch);
+                frame.position(newStart);
+                return frame;
+            }
+        }
+        // 多个帧，或者长度超过 varint 4 字节的范围
+        int frames = 0;
+        for (int p = start; p < frame.limit(); p += LENGTH_FIELD_LENGTH + frame.getInt(p)) {
+            frames++;
+        }
+        ByteBuffer out = ByteBuffer.allocate(frame.remaining() + frames);
+        for (int p = start; p < frame.limit(); ) {
+            int len = frame.getInt(p);
+            Varints.write(out, len);
+            ByteBuffer body = frame.duplicate();
+            body.limit(p + LENGTH_FIELD_LENGTH + len).position(p + LENGTH_FIELD_LENGTH);
+            out.put(body);
+            p += LENGTH_FIELD_LENGTH + len;
+        }
+        out.flip();
+        return out;
+    }
+
+    private ByteBuffer decodeFrame(ByteBuffer in) throws IOException {
+        int start = in.position();
+        int n;
+        int len;
+        try {
+            n = Varints.sizeAt(in, start);
+            if (n == 0) {
+                return null;
+            }
+            len = Varints.getAt(in, start);
+        } catch (IllegalArgumentException e) {
+            throw new CorruptedFrameException(e.getMessage());
+        }
+        if (len < 0 || len > maxFrameLength - LENGTH_FIELD_LENGTH) {
+            throw new CorruptedFrameException("Invalid frame length: " + len);
+        }
+        if (in.remaining() - n < len) {
+            return null;
+        }
+        ByteBuffer out = output(LENGTH_FIELD_LENGTH + len);
+        out.putInt(len);
+        ByteBuffer body = in.duplicate();
+        body.limit(start + n + len).position(start + n);
+        out.put(body);
+        out.flip();
+        in.position(start + n + len);
+        return out;
+    }
+
+    private ByteBuffer output(int size) {
+        if (output != null && output.capacity() >= size) {
+            output.clear();
+            return output;
+        }
+        ByteBuffer b = ByteBuffer.allocate(size);
+        if (size <= MAX_CACHED_BUFFER_SIZE) {
+            output = b;
+        }
+        return b;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017 Suk Honzeon
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.asu.socket.message;
+
+import java.nio.ByteBuffer;
+
+/**
+ * BodyCodec.
+ * 报文体和对象之间的转换，按 bodyType 注册到 {@link BodyCodecs}，
+ * 由 {@link ProtoMessage#readBody(Class)} 和 {@link ProtoMessage#writeBody(Object)} 使用。
+ * 实现应当无状态、线程安全。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public interface BodyCodec {
+
+    /**
+     * 对象编码为报文体.
+     *
+     * @param value 对象
+     * @return 报文体
+     * @throws IllegalArgumentException 不支持的类型或编码失败
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 报文体解码为对象，读取 body 的 position 到 limit，不修改 body.
+     *
+     * @param body 报文体
+     * @param type 目标类型
+     * @return 对象
+     * @throws IllegalArgumentException 不支持的类型或数据错乱
+     */
+    <T> T decode(ByteBuffer body, Class<T> type);
+}
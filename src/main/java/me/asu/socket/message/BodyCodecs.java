@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2017 Suk Honzeon
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.asu.socket.message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * BodyCodecs.
+ * 按 bodyType 注册的 {@link BodyCodec}，默认注册了：
+ * <ul>
+ * <li>{@link ProtoMessageHeader#BODY_TYPE_JSON}：{@link JsonBodyCodec}，任意类型。</li>
+ * <li>{@link ProtoMessageHeader#BODY_TYPE_RAW}：{@link #RAW}，byte[] 或 ByteBuffer。</li>
+ * <li>{@link ProtoMessageHeader#BODY_TYPE_STR_UTF8}：{@link #UTF8}，String。</li>
+ * <li>{@link ProtoMessageHeader#BODY_TYPE_BASE64_STR}：{@link #BASE64}，byte[]，报文体是它的 Base64 文本。</li>
+ * <li>{@link ProtoMessageHeader#BODY_TYPE_HEX_STR}：{@link #HEX}，byte[]，报文体是它的十六进制文本。</li>
+ * </ul>
+ * {@link ProtoMessageHeader#BODY_TYPE_XML} 没有默认实现，需要时用 {@link #register(byte, BodyCodec)} 注册。
+ * 注册应在启动时完成，之后的读取不加锁。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public final class BodyCodecs {
+
+    /** 原样的字节. */
+    public static final BodyCodec RAW    = new BodyCodec() {
+        @Override
+        public byte[] encode(Object value) {
+            if (value instanceof byte[]) {
+                return (byte[]) value;
+            }
+            if (value instanceof ByteBuffer) {
+                return toArray((ByteBuffer) value);
+            }
+            throw unsupported(ProtoMessageHeader.BODY_TYPE_RAW, value);
+        }
+
+        @Override
+        public <T> T decode(ByteBuffer body, Class<T> type) {
+            if (type.isAssignableFrom(byte[].class)) {
+                return type.cast(toArray(body));
+            }
+            if (type.isAssignableFrom(ByteBuffer.class)) {
+                return type.cast(body.asReadOnlyBuffer());
+            }
+            throw unsupported(ProtoMessageHeader.BODY_TYPE_RAW, type);
+        }
+    };
+    /** UTF-8 文本. */
+    public static final BodyCodec UTF8   = new BodyCodec() {
+        @Override
+        public byte[] encode(Object value) {
+            if (value instanceof CharSequence) {
+                return value.toString().getBytes(StandardCharsets.UTF_8);
+            }
+            throw unsupported(ProtoMessageHeader.BODY_TYPE_STR_UTF8, value);
+        }
+
+        @Override
+        public <T> T decode(ByteBuffer body, Class<T> type) {
+            if (!type.isAssignableFrom(String.class)) {
+                throw unsupported(ProtoMessageHeader.BODY_TYPE_STR_UTF8, type);
+            }
+            if (body.hasArray()) {
+                return type.cast(new String(body.array(), body.arrayOffset() + body.position(),
+                        body.remaining(), StandardCharsets.UTF_8));
+            }
+            return type.cast(StandardCharsets.UTF_8.decode(body.duplicate()).toString());
+        }
+    };
+    /** Base64 文本表示的字节. */
+    public static final BodyCodec BASE64 = new BodyCodec() {
+        @Override
+        public byte[] encode(Object value) {
+            if (value instanceof byte[]) {
+                return Base64.getEncoder().encode((byte[]) value);
+            }
+            throw unsupported(ProtoMessageHeader.BODY_TYPE_BASE64_STR, value);
+        }
+
+        @Override
+        public <T> T decode(ByteBuffer body, Class<T> type) {
+            if (!type.isAssignableFrom(byte[].class)) {
+                throw unsupported(ProtoMessageHeader.BODY_TYPE_BASE64_STR, type);
+            }
+            return type.cast(toArray(Base64.getDecoder().decode(body.duplicate())));
+        }
+    };
+    /** 十六进制文本表示的字节. */
+    public static final BodyCodec HEX    = new BodyCodec() {
+        private final byte[] digits = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        public byte[] encode(Object value) {
+            if (!(value instanceof byte[])) {
+                throw unsupported(ProtoMessageHeader.BODY_TYPE_HEX_STR, value);
+            }
+            byte[] b = (byte[]) value;
+            byte[] out = new byte[b.length << 1];
+            for (int i = 0; i < b.length; i++) {
+                out[i << 1] = digits[(b[i] >>> 4) & 0x0F];
+                out[(i << 1) + 1] = digits[b[i] & 0x0F];
+            }
+            return out;
+        }
+
+        @Override
+        public <T> T decode(ByteBuffer body, Class<T> type) {
+            if (!type.isAssignableFrom(byte[].class)) {
+                throw unsupported(ProtoMessageHeader.BODY_TYPE_HEX_STR, type);
+            }
+            int len = body.remaining();
+            if ((len & 1) != 0) {
+                throw new IllegalArgumentException("Odd hex body length: " + len);
+            }
+            int p = body.position();
+            byte[] out = new byte[len >> 1];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = (byte) ((digit(body.get(p + (i << 1))) << 4)
+                        | digit(body.get(p + (i << 1) + 1)));
+            }
+            return type.cast(out);
+        }
+
+        private int digit(byte c) {
+            int d = Character.digit(c, 16);
+            if (d < 0) {
+                throw new IllegalArgumentException("Invalid hex digit: " + (char) c);
+            }
+            return d;
+        }
+    };
+
+    private static volatile BodyCodec[] codecs = new BodyCodec[ProtoMessageHeader.BODY_TYPE_MASK
+            + 1];
+
+    static {
+        register(ProtoMessageHeader.BODY_TYPE_JSON, JsonBodyCodec.INSTANCE);
+        register(ProtoMessageHeader.BODY_TYPE_RAW, RAW);
+        register(ProtoMessageHeader.BODY_TYPE_STR_UTF8, UTF8);
+        register(ProtoMessageHeader.BODY_TYPE_BASE64_STR, BASE64);
+        register(ProtoMessageHeader.BODY_TYPE_HEX_STR, HEX);
+    }
+
+    private BodyCodecs() {
+    }
+
+    /**
+     * 注册或替换一个 bodyType 的编解码.
+     *
+     * @param bodyType 0 到 127
+     * @param codec    为 null 时取消注册
+     */
+    public static synchronized void register(byte bodyType, BodyCodec codec) {
+        if (bodyType < 0) {
+            throw new IllegalArgumentException("bodyType must be 0..127 (" + bodyType + ")");
+        }
+        BodyCodec[] copy = codecs.clone();
+        copy[bodyType] = codec;
+        codecs = copy;
+    }
+
+    /**
+     * bodyType 对应的编解码.
+     *
+     * @param bodyType bodyType，忽略压缩标记位
+     * @return BodyCodec
+     * @throws IllegalStateException 没有注册
+     */
+    public static BodyCodec get(byte bodyType) {
+        BodyCodec codec = codecs[bodyType & ProtoMessageHeader.BODY_TYPE_MASK];
+        if (codec == null) {
+            throw new IllegalStateException("No BodyCodec registered for bodyType " + bodyType);
+        }
+        return codec;
+    }
+
+    private static byte[] toArray(ByteBuffer b) {
+        if (b.hasArray() && b.arrayOffset() == 0 && b.position() == 0
+                && b.remaining() == b.array().length) {
+            return b.array();
+        }
+        byte[] out = new byte[b.remaining()];
+        b.duplicate().get(out);
+        return out;
+    }
+
+    private static IllegalArgumentException unsupported(byte bodyType, Object value) {
+        return new IllegalArgumentException("bodyType " + bodyType + " does not support "
+                + (value == null ? "null" : value.getClass().getName()));
+    }
+
+    private static IllegalArgumentException unsupported(byte bodyType, Class<?> type) {
+        return new IllegalArgumentException(
+                "bodyType " + bodyType + " cannot be read as " + type.getName());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 Suk Honzeon
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+package me.asu.socket.message;
+
+
+/**
+ * Heartbeat.
+ * 心跳报文，有两种形式：
+ * <ul>
+ * <li>请求形式：cmdId 为 {@link #CMD_ID_PING} 的请求是 ping，同一 cmdId、同一 seqId 的响应是 pong，
+ * 客户端可以用 call(Heartbeat.newPing(), ...) 发送并等待 pong。</li>
+ * <li>通知形式：cmdId 为 {@link #CMD_ID_PING} 的通知是 ping，cmdId 为 {@link #CMD_ID_PONG}
+ * 的通知是 pong，用于 {@link me.asu.socket.util.KeepAlive} 保活，不占用 seqId。</li>
+ * </ul>
+ * 服务端收到 ping 时在 IO 层直接回复对应形式的 pong，不交给 Handler。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public final class Heartbeat {
+
+    /** 保留给心跳的 cmdId，业务不应使用. */
+    public static final int CMD_ID_PING = Integer.MIN_VALUE;
+    /** 保留给通知形式 pong 的 cmdId，业务不应使用. */
+    public static final int CMD_ID_PONG = Integer.MIN_VALUE + 1;
+
+    private Heartbeat() {
+    }
+
+    /**
+     * 创建一个 ping 请求，没有报文体.
+     *
+     * @return ping
+     */
+    public static ProtoMessage newPing() {
+        ProtoMessage ping = new ProtoMessage();
+        ping.header().cmdId = CMD_ID_PING;
+        ping.header().cmdType = ProtoMessageHeader.CMD_TYPE_REQUEST;
+        ping.header().bodyType = ProtoMessageHeader.BODY_TYPE_RAW;
+        return ping;
+    }
+
+    /**
+     * 创建一个通知形式的 ping，没有报文体.
+     *
+     * @return ping
+     */
+    public static ProtoMessage newPingNotification() {
+        ProtoMessage ping = newPing();
+        ping.header().cmdType = ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+        return ping;
+    }
+
+    /**
+     * 创建 ping 的回复：请求形式回复同一 seqId 的响应，通知形式回复 {@link #CMD_ID_PONG} 通知.
+     *
+     * @param ping ping
+     * @return pong
+     */
+    public static ProtoMessage pong(IProtoMessage ping) {
+        ProtoMessage pong = new ProtoMessage();
+        pong.header().seqId = ping.seqId();
+        pong.header().bodyType = ProtoMessageHeader.BODY_TYPE_RAW;
+        if (ping.header().cmdType == ProtoMessageHeader.CMD_TYPE_NOTIFICATION) {
+            pong.header().cmdId = CMD_ID_PONG;
+            pong.header().cmdType = ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+        } else {
+            pong.header().cmdId = CMD_ID_PING;
+            pong.header().cmdType = ProtoMessageHeader.CMD_TYPE_RESPONSE;
+        }
+        return pong;
+    }
+
+    public static boolean isPing(IMessage message) {
+        if (!(message instanceof IProtoMessage)) {
+            return false;
+        }
+        ProtoMessageHeader header = ((IProtoMessage) message).header();
+        return header.cmdId == CMD_ID_PING
+                && (header.cmdType == ProtoMessageHeader.CMD_TYPE_REQUEST
+                || header.cmdType == ProtoMessageHeader.CMD_TYPE_NOTIFICATION);
+    }
+
+    public static boolean isPong(IMessage message) {
+        if (!(message instanceof IProtoMessage)) {
+            return false;
+        }
+        ProtoMessageHeader header = ((IProtoMessage) message).header();
+        if (header.cmdId == CMD_ID_PING) {
+            return header.cmdType == ProtoMessageHeader.CMD_TYPE_RESPONSE;
+        }
+        return header.cmdId == CMD_ID_PONG
+                && header.cmdType == ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+    }
+}
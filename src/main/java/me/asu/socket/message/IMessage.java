@@ -24,6 +24,8 @@ package me.asu.socket.message;
 
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 /**
@@ -66,5 +68,61 @@ public interface IMessage {
     int unpack(byte[] bytes, int offset, int length);
 
     int getPackageLength();
-}
 
+    /**
+     * 编码后的长度，即 {@link #encodeTo(ByteBuffer)} 写入的字节数。
+     * 默认实现通过 {@link #pack()} 计算，实现类应覆盖以避免分配.
+     *
+     * @return 字节数
+     */
+    default int encodedSize() {
+        try {
+            return pack().length;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 编码到 dst，从 dst 的 position 开始写入，写完后 position 后移 {@link #encodedSize()}。
+     * 调用方保证 dst 的剩余空间足够.
+     *
+     * @param dst 目标缓冲区
+     */
+    default void encodeTo(ByteBuffer dst) {
+        try {
+            dst.put(pack());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 从 src 的 position 开始解码一个报文。成功时 position 后移包长度，
+     * 数据不够时 position 不变.
+     *
+     * @param src 源缓冲区
+     * @return 包长度，0 表示数据不够，小于 0 表示数据错乱。
+     */
+    default int decodeFrom(ByteBuffer src) {
+        int ret;
+        if (src.hasArray()) {
+            ret = unpack(src.array(), src.arrayOffset() + src.position(), src.remaining());
+        } else {
+            byte[] bytes = new byte[src.remaining()];
+            src.duplicate().get(bytes);
+            ret = unpack(bytes);
+        }
+        if (ret > 0) {
+            src.position(src.position() + ret);
+        }
+        return ret;
+    }
+
+    /**
+     * 框架在 onRecv 返回后调用，可复用的报文借此归还到对象池。
+     * 默认不做任何事；需要在 onRecv 之后继续使用可复用报文时，先调用它的 retain().
+     */
+    default void recycle() {
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 Suk Honzeon
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.asu.socket.message;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * JsonBodyCodec.
+ * {@link ProtoMessageHeader#BODY_TYPE_JSON} 的编解码，使用 fastjson，UTF-8。
+ * 编码直接输出 byte[]，解码直接从报文体的字节解析，都不经过中间的 String；
+ * 报文体不在堆数组中（如落盘的报文体）时先拷贝出来。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class JsonBodyCodec implements BodyCodec {
+
+    public static final JsonBodyCodec INSTANCE = new JsonBodyCodec();
+
+    @Override
+    public byte[] encode(Object value) {
+        try {
+            return JSON.toJSONBytes(value);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Failed to encode JSON body: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public <T> T decode(ByteBuffer body, Class<T> type) {
+        byte[] array;
+        int offset;
+        int length = body.remaining();
+        if (body.hasArray()) {
+            array = body.array();
+            offset = body.arrayOffset() + body.position();
+        } else {
+            array = new byte[length];
+            offset = 0;
+            body.duplicate().get(array);
+        }
+        try {
+            return JSON.parseObject(array, offset, length, StandardCharsets.UTF_8, type);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Invalid JSON body: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2017 Suk Honzeon
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.asu.socket.message;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import me.asu.socket.util.Varints;
+
+/**
+ * MessageBatch.
+ * 批量报文：一个 cmdId 为 {@link #CMD_ID_BATCH} 的通知，报文体里装着多个子报文，
+ * 省去每个子报文的 16 字节头部和一次切帧解析。
+ * <code><pre>
+ * body:   varint-count, item...
+ * item:   varint-cmdId, varint-seqId, 1-cmdType, 1-bodyType, 1-code, 1-ttl, varint-bodyLen, N-body
+ * </pre></code>
+ * 小的 cmdId、seqId 和报文体长度各占 1~2 字节，一个子报文的头部通常 7~9 字节。
+ * 服务端在 IO 层拆开后逐个交给 Handler.onRecv，或者通过 BatchHandler 一次交给业务；
+ * 客户端逐个当作收到的报文处理（SimpleClient 同步 receive 时返回批量报文本身，用 {@link #read} 拆开）。
+ * 发送方用 {@link Builder} 打包，
+ * 或者用 {@link me.asu.socket.util.MessageBatcher} 按数量、字节数自动打包。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public final class MessageBatch {
+
+    /** 保留给批量报文的 cmdId，业务不应使用. */
+    public static final int CMD_ID_BATCH = Integer.MIN_VALUE + 3;
+    /** 子报文头部的固定字节数：cmdType、bodyType、code、ttl. */
+    private static final int ITEM_FIXED_SIZE = 4;
+
+    private MessageBatch() {
+    }
+
+    public static boolean isBatch(IMessage msg) {
+        return msg instanceof IProtoMessage
+                && ((IProtoMessage) msg).header().cmdId == CMD_ID_BATCH;
+    }
+
+    /**
+     * 子报文编码后的字节数.
+     *
+     * @param msg 子报文
+     * @return 字节数
+     */
+    public static int itemSize(IProtoMessage msg) {
+        ProtoMessageHeader h = msg.header();
+        int bodyLen = bodyLength(msg);
+        return Varints.sizeOf(h.cmdId) + Varints.sizeOf(h.seqId) + ITEM_FIXED_SIZE
+                + Varints.sizeOf(bodyLen) + bodyLen;
+    }
+
+    /**
+     * 按需逐个解出子报文.
+     *
+     * @param batch 批量报文，读取期间不能回收
+     * @return Reader
+     */
+    public static Reader read(IProtoMessage batch) {
+        ByteBuffer data;
+        if (batch instanceof SliceProtoMessage) {
+            data = ((SliceProtoMessage) batch).bodySlice();
+        } else {
+            data = ByteBuffer.wrap(batch.body());
+        }
+        return new Reader(data);
+    }
+
+    private static int bodyLength(IProtoMessage msg) {
+        if (msg instanceof SliceProtoMessage) {
+            return ((SliceProtoMessage) msg).bodySlice().remaining();
+        }
+        byte[] body = msg.body();
+        return body == null ? 0 : body.length;
+    }
+
+    /**
+     * 打包多个子报文，添加时复制报文内容，之后子报文可以继续使用或回收. 非线程安全。
+     */
+    public static final class Builder {
+
+        private ByteBuffer buffer;
+        private int        count;
+
+        public Builder() {
+            this(256);
+        }
+
+        public Builder(int initialCapacity) {
+            buffer = ByteBuffer.allocate(Math.max(initialCapacity, 16));
+        }
+
+        public Builder add(IProtoMessage msg) {
+            ensureWritable(itemSize(msg));
+            ProtoMessageHeader h = msg.header();
+            Varints.write(buffer, h.cmdId);
+            Varints.write(buffer, h.seqId);
+            buffer.put(h.cmdType);
+            buffer.put(h.bodyType);
+            buffer.put(h.code);
+            buffer.put(h.ttl);
+            if (msg instanceof SliceProtoMessage) {
+                ByteBuffer body = ((SliceProtoMessage) msg).bodySlice();
+                Varints.write(buffer, body.remaining());
+                buffer.put(body);
+            } else {
+                byte[] body = msg.body() == null ? IMessage.EMPTY_BODY : msg.body();
+                Varints.write(buffer, body.length);
+                buffer.put(body);
+            }
+            count++;
+            return this;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        /**
+         * 已添加的子报文编码后的字节数，不含批量报文自身的头部.
+         */
+        public int size() {
+            return Varints.sizeOf(count) + buffer.position();
+        }
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        /**
+         * 生成批量报文并清空，可以继续添加下一批.
+         *
+         * @return 批量报文
+         */
+        public ProtoMessage build() {
+            byte[] body = new byte[size()];
+            ByteBuffer out = ByteBuffer.wrap(body);
+            Varints.write(out, count);
+            buffer.flip();
+            out.put(buffer);
+            buffer.clear();
+            count = 0;
+            ProtoMessage batch = new ProtoMessage();
+            batch.header().cmdId = CMD_ID_BATCH;
+            batch.header().cmdType = ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+            batch.header().bodyType = ProtoMessageHeader.BODY_TYPE_RAW;
+            batch.setBody(body);
+            return batch;
+        }
+
+        private void ensureWritable(int size) {
+            if (buffer.remaining() >= size) {
+                return;
+            }
+            int capacity = buffer.capacity();
+            while (capacity - buffer.position() < size) {
+                capacity <<= 1;
+            }
+            ByteBuffer b = ByteBuffer.allocate(capacity);
+            buffer.flip();
+            b.put(buffer);
+            buffer = b;
+        }
+    }
+
+    /**
+     * 逐个解出子报文，每次 {@link #next()} 才解析下一个. 数据错乱时抛出 {@link IllegalArgumentException}。
+     */
+    public static final class Reader implements Iterator<ProtoMessage>, Iterable<ProtoMessage> {
+
+        private final ByteBuffer data;
+        private final int        count;
+        private       int        index;
+
+        Reader(ByteBuffer data) {
+            this.data = data;
+            try {
+                this.count = data.hasRemaining() ? Varints.read(data) : 0;
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Malformed batch");
+            }
+            if (count < 0) {
+                throw new IllegalArgumentException("Malformed batch count: " + count);
+            }
+        }
+
+        /**
+         * 子报文的个数.
+         */
+        public int count() {
+            return count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public ProtoMessage next() {
+            if (index >= count) {
+                throw new NoSuchElementException();
+            }
+            ProtoMessage msg = new ProtoMessage();
+            ProtoMessageHeader h = msg.header();
+            try {
+                h.cmdId = Varints.read(data);
+                h.seqId = Varints.read(data);
+                h.cmdType = data.get();
+                h.bodyType = data.get();
+                h.code = data.get();
+                h.ttl = data.get();
+                int bodyLen = Varints.read(data);
+                if (bodyLen < 0 || bodyLen > data.remaining()) {
+                    throw new IllegalArgumentException("Malformed batch item length: " + bodyLen);
+                }
+                byte[] body = bodyLen == 0 ? IMessage.EMPTY_BODY : new byte[bodyLen];
+                data.get(body);
+                msg.setBody(body);
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Malformed batch item " + index);
+            }
+            index++;
+            return msg;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Iterator<ProtoMessage> iterator() {
+            return this;
+        }
+    }
+}
@@ -23,7 +23,6 @@
 package me.asu.socket.message;
 
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import me.asu.util.Bytes;
@@ -46,6 +45,8 @@ import me.asu.util.Hex;
  * body:
  *      byte array.
  * </pre></code>
+ * 报文体可以用 {@link #readBody(Class)} / {@link #writeBody(Object)} 按 bodyType 对应的
+ * {@link BodyCodec} 读写对象，解码结果缓存在报文上。
  * <p>2017 Suk All rights reserved.</p>
  *
  * @author Suk
@@ -61,6 +62,14 @@ public class ProtoMessage implements IProtoMessage, Cloneable {
      */
     public byte[]             body   = EMPTY_BODY;
 
+    /** readBody 的解码结果和类型，报文体变化时清除. */
+    @lombok.Getter(lombok.AccessLevel.NONE)
+    @lombok.Setter(lombok.AccessLevel.NONE)
+    private transient Object   decodedBody;
+    @lombok.Getter(lombok.AccessLevel.NONE)
+    @lombok.Setter(lombok.AccessLevel.NONE)
+    private transient Class<?> decodedType;
+
     public static ProtoMessage create(IProtoMessage message) {
         ProtoMessage newMsg = new ProtoMessage();
         newMsg.getHeader().readFrom(message.getHeader());
@@ -84,13 +93,43 @@ public class ProtoMessage implements IProtoMessage, Cloneable {
 
     @Override
     public byte[] pack() throws IOException {
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize());
+        encodeTo(buffer);
+        return buffer.array();
+    }
+
+    @Override
+    public int encodedSize() {
+        return header.getLength() + body.length;
+    }
+
+    @Override
+    public void encodeTo(ByteBuffer dst) {
         // adjust
         header.bodyLen = body.length;
 
-        stream.write(header.pack());
-        stream.write(body);
-        return stream.toByteArray();
+        header.encodeTo(dst);
+        dst.put(body);
+    }
+
+    @Override
+    public int decodeFrom(ByteBuffer src) {
+        int start = src.position();
+        if (!header.readHeader(src)) {
+            return 0;
+        }
+        if (header.bodyLen < 0) {
+            // 数据错乱
+            src.position(start);
+            clear();
+            return -1;
+        }
+        if (!readBodyBytes(src)) {
+            src.position(start);
+            clear();
+            return 0;
+        }
+        return src.position() - start;
     }
 
     @Override
@@ -106,11 +145,7 @@ public class ProtoMessage implements IProtoMessage, Cloneable {
         if (bytes == null) {
             return 0;
         }
-        if (readPackage(ByteBuffer.wrap(bytes, offset, length))) {
-            return getPackageLength();
-        } else {
-            return 0;
-        }
+        return decodeFrom(ByteBuffer.wrap(bytes, offset, length));
     }
 
     @Override
@@ -141,6 +176,64 @@ public class ProtoMessage implements IProtoMessage, Cloneable {
             this.body = body;
         }
         header.setBodyLen(this.body.length);
+        bodyChanged();
+    }
+
+    /**
+     * 用 bodyType 对应的 {@link BodyCodec} 解码报文体.
+     * 结果缓存在报文上，以同一类型再次读取时直接返回，不重复解码。
+     *
+     * @param type 目标类型
+     * @return 对象
+     * @throws IllegalStateException    bodyType 没有注册编解码
+     * @throws IllegalArgumentException 不支持的类型或数据错乱
+     */
+    public <T> T readBody(Class<T> type) {
+        if (decodedBody != null && decodedType == type) {
+            return type.cast(decodedBody);
+        }
+        T value = BodyCodecs.get(header.bodyType).decode(bodyBuffer(), type);
+        decodedBody = value;
+        decodedType = type;
+        return value;
+    }
+
+    /**
+     * 用当前 bodyType 对应的 {@link BodyCodec} 编码报文体.
+     *
+     * @param value 对象
+     */
+    public void writeBody(Object value) {
+        writeBody(header.bodyType, value);
+    }
+
+    /**
+     * 设置 bodyType 并用对应的 {@link BodyCodec} 编码报文体.
+     *
+     * @param bodyType bodyType
+     * @param value    对象
+     */
+    public void writeBody(byte bodyType, Object value) {
+        byte[] b = BodyCodecs.get(bodyType).encode(value);
+        header.bodyType = bodyType;
+        setBody(b);
+    }
+
+    /**
+     * 供 {@link BodyCodec} 解码的报文体视图，解码器不会修改它.
+     *
+     * @return ByteBuffer
+     */
+    protected ByteBuffer bodyBuffer() {
+        return ByteBuffer.wrap(body());
+    }
+
+    /**
+     * 报文体变化后调用，清除 readBody 的缓存.
+     */
+    protected void bodyChanged() {
+        decodedBody = null;
+        decodedType = null;
     }
 
     @Override
@@ -154,17 +247,7 @@ public class ProtoMessage implements IProtoMessage, Cloneable {
 
     public void resetBody() {
         body = EMPTY_BODY;
-    }
-
-    private boolean readPackage(ByteBuffer byteBuffer) {
-        if (!header.readHeader(byteBuffer)) {
-            return false;
-        }
-        if (!readBody(byteBuffer)) {
-            clear();
-            return false;
-        }
-        return true;
+        bodyChanged();
     }
 
     private boolean canReadBody(ByteBuffer byteBuffer) {
@@ -172,12 +255,13 @@ public class ProtoMessage implements IProtoMessage, Cloneable {
         return byteBuffer.remaining() >= bodyLength;
     }
 
-    private boolean readBody(ByteBuffer byteBuffer) {
+    private boolean readBodyBytes(ByteBuffer byteBuffer) {
         if (!canReadBody(byteBuffer)) {
             return false;
         }
         body = new byte[header.bodyLen];
         byteBuffer.get(body);
+        bodyChanged();
         return true;
     }
 
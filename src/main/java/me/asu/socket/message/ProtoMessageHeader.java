@@ -22,10 +22,8 @@
 
 package me.asu.socket.message;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import me.asu.util.Bytes;
 
 /**
  * 头部
@@ -43,6 +41,13 @@ public class ProtoMessageHeader {
     public static final byte BODY_TYPE_STR_UTF8 = 3;
     public static final byte BODY_TYPE_BASE64_STR = 4;
     public static final byte BODY_TYPE_HEX_STR = 5;
+    /**
+     * bodyType 的最高位表示报文体已压缩，见 {@link me.asu.socket.codec.DeflateCodec}.
+     * 解码后清除，应用看到的是原来的 bodyType.
+     */
+    public static final byte BODY_TYPE_FLAG_COMPRESSED = (byte) 0x80;
+    /** bodyType 去掉标记位后的类型. */
+    public static final byte BODY_TYPE_MASK = 0x7F;
 
     public static final byte CMD_TYPE_REQUEST = 0;
     public static final byte CMD_TYPE_RESPONSE = 1;
@@ -65,7 +70,7 @@ public class ProtoMessageHeader {
      */
     public byte cmdType = CMD_TYPE_REQUEST;
     /**
-     * json: 0
+     * json: 0, 最高位是 {@link #BODY_TYPE_FLAG_COMPRESSED}
      */
     public byte bodyType = BODY_TYPE_JSON;
     /**
@@ -103,15 +108,24 @@ public class ProtoMessageHeader {
     }
 
     public byte[] pack() throws IOException {
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        stream.write(Bytes.toBytes(cmdId));
-        stream.write(Bytes.toBytes(seqId));
-        stream.write(Bytes.toBytes(bodyLen));
-        stream.write(cmdType);
-        stream.write(bodyType);
-        stream.write(code);
-        stream.write(ttl);
-        return stream.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocate(getLength());
+        encodeTo(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * 写入头部，dst 的 position 后移 {@link #getLength()}.
+     *
+     * @param dst 目标缓冲区
+     */
+    public void encodeTo(ByteBuffer dst) {
+        dst.putInt(cmdId);
+        dst.putInt(seqId);
+        dst.putInt(bodyLen);
+        dst.put(cmdType);
+        dst.put(bodyType);
+        dst.put(code);
+        dst.put(ttl);
     }
 
     public boolean canReadHeader(ByteBuffer byteBuffer) {
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2017 Suk Honzeon
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.asu.socket.message;
+
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.asu.socket.util.Recycler;
+import me.asu.socket.util.ReferenceCounted;
+
+/**
+ * RecyclableProtoMessage.
+ * 可复用的 {@link ProtoMessage}，由线程本地的 {@link Recycler} 管理，连同 header 一起复用；
+ * 报文体长度和上次相同时报文体数组也复用。
+ * <ul>
+ * <li>在 Handler.createMessage() / Delegate.createMessage() 中返回 {@link #newInstance()} 即可启用。</li>
+ * <li>框架在 onRecv 返回后调用 {@link #recycle()} 归还；
+ * onRecv 之后还要使用（交给其他线程、放入队列、ChannelContext.send() 等），
+ * 先调用 {@link #retain()}，用完再调用 {@link #recycle()}。</li>
+ * <li>交给 ChannelContext.send() 的报文由框架在写出后归还一次。</li>
+ * </ul>
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class RecyclableProtoMessage extends ProtoMessage implements ReferenceCounted {
+
+    private static final Recycler<RecyclableProtoMessage> RECYCLER = new Recycler<RecyclableProtoMessage>() {
+        @Override
+        protected RecyclableProtoMessage newObject(Handle<RecyclableProtoMessage> handle) {
+            return new RecyclableProtoMessage(handle);
+        }
+    };
+
+    private final Recycler.Handle<RecyclableProtoMessage> handle;
+    private final AtomicInteger                           refCnt = new AtomicInteger(1);
+
+    private RecyclableProtoMessage(Recycler.Handle<RecyclableProtoMessage> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * 从当前线程的对象池中取一个报文，引用计数为 1.
+     *
+     * @return RecyclableProtoMessage
+     */
+    public static RecyclableProtoMessage newInstance() {
+        RecyclableProtoMessage message = RECYCLER.get();
+        message.refCnt.set(1);
+        return message;
+    }
+
+    @Override
+    public int decodeFrom(ByteBuffer src) {
+        int start = src.position();
+        if (!header.readHeader(src)) {
+            return 0;
+        }
+        int bodyLen = header.bodyLen;
+        if (bodyLen < 0) {
+            src.position(start);
+            header.clear();
+            return -1;
+        }
+        if (src.remaining() < bodyLen) {
+            src.position(start);
+            header.clear();
+            return 0;
+        }
+        if (body.length != bodyLen) {
+            body = bodyLen == 0 ? EMPTY_BODY : new byte[bodyLen];
+        }
+        src.get(body);
+        bodyChanged();
+        return src.position() - start;
+    }
+
+    @Override
+    public int refCnt() {
+        return refCnt.get();
+    }
+
+    @Override
+    public RecyclableProtoMessage retain() {
+        for (; ; ) {
+            int current = refCnt.get();
+            if (current <= 0) {
+                throw new IllegalStateException("refCnt: " + current + ", already recycled.");
+            }
+            if (refCnt.compareAndSet(current, current + 1)) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public boolean release() {
+        for (; ; ) {
+            int current = refCnt.get();
+            if (current <= 0) {
+                throw new IllegalStateException("refCnt: " + current + ", already recycled.");
+            }
+            if (refCnt.compareAndSet(current, current - 1)) {
+                if (current == 1) {
+                    header.clear();
+                    bodyChanged();
+                    handle.recycle(this);
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 同 {@link #release()}，引用计数降为 0 时归还到对象池.
+     */
+    @Override
+    public void recycle() {
+        release();
+    }
+}
@@ -23,7 +23,6 @@
 package me.asu.socket.message;
 
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
@@ -64,13 +63,33 @@ public class SimpleMessage implements IMessage, Cloneable {
      */
     @Override
     public byte[] pack() throws IOException {
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(encodedSize());
+        encodeTo(buffer);
+        return buffer.array();
+    }
+
+    @Override
+    public int encodedSize() {
+        return getHeaderLength() + body.length;
+    }
+
+    @Override
+    public void encodeTo(ByteBuffer dst) {
         // adjust
         this.bodyLen = body.length;
 
-        stream.write(Bytes.toBytes(bodyLen));
-        stream.write(body);
-        return stream.toByteArray();
+        dst.putInt(bodyLen);
+        dst.put(body);
+    }
+
+    @Override
+    public int decodeFrom(ByteBuffer src) {
+        int start = src.position();
+        int ret = readPackage(src);
+        if (ret <= 0) {
+            src.position(start);
+        }
+        return ret;
     }
 
     /**
@@ -100,11 +119,7 @@ public class SimpleMessage implements IMessage, Cloneable {
         if (bytes == null) {
             return 0;
         }
-        if (readPackage(ByteBuffer.wrap(bytes, offset, length))) {
-            return getPackageLength();
-        } else {
-            return 0;
-        }
+        return decodeFrom(ByteBuffer.wrap(bytes, offset, length));
     }
 
     @Override
@@ -165,15 +180,20 @@ public class SimpleMessage implements IMessage, Cloneable {
         return true;
     }
 
-    private boolean readPackage(ByteBuffer byteBuffer) {
+    private int readPackage(ByteBuffer byteBuffer) {
         if (!readHeader(byteBuffer)) {
-            return false;
+            return 0;
+        }
+        if (bodyLen < 0) {
+            // 数据错乱
+            reset();
+            return -1;
         }
         if (!readBody(byteBuffer)) {
             reset();
-            return false;
+            return 0;
         }
-        return true;
+        return getHeaderLength() + bodyLen;
     }
 
     private boolean canReadBody(ByteBuffer byteBuffer) {
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2017 Suk Honzeon
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package me.asu.socket.message;
+
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.asu.socket.util.ByteBufferInputStream;
+import me.asu.socket.util.ReferenceCounted;
+import me.asu.socket.util.ResourceLeakDetector;
+import me.asu.socket.util.SpilledBody;
+import me.asu.util.Bytes;
+import me.asu.util.Hex;
+
+/**
+ * SliceProtoMessage.
+ * 报文格式同 {@link ProtoMessage}，但从接收缓冲区解析时报文体不拷贝，
+ * 而是接收缓冲区的只读视图（{@link #bodySlice()}），并持有接收缓冲区的引用计数。
+ * <ul>
+ * <li>在 Handler.createMessage() 中返回此类型即可启用。</li>
+ * <li>框架在 onRecv 返回后调用 {@link #recycle()} 释放；自行解析的报文用完调用 {@link #release()}。</li>
+ * <li>交给 ChannelContext.send() 发送时，由框架在写出后释放一次。</li>
+ * <li>跨线程、延后使用或原样发送时先调用 {@link #retain()}。</li>
+ * <li>{@link #body()} 会把报文体拷贝出来，只在确实需要 byte[] 时调用。</li>
+ * <li>服务端设置了 SpillPolicy 时，超过阈值的报文体落盘（{@link #isSpilled()}），
+ * bodySlice() 是临时文件的内存映射，应该用它或 {@link #bodyStream()} 读取。</li>
+ * <li>没有释放就被 GC 回收时由 {@link ResourceLeakDetector} 报告，
+ * -Dsocket.leakDetection.level=paranoid 时记录解析时的调用栈。</li>
+ * </ul>
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class SliceProtoMessage extends ProtoMessage implements ReferenceCounted {
+
+    private static final ResourceLeakDetector LEAK_DETECTOR = new ResourceLeakDetector(
+            "SliceProtoMessage");
+
+    private final AtomicInteger                refCnt = new AtomicInteger(1);
+    /** 报文体，对外只提供只读视图. */
+    private       ByteBuffer                   slice;
+    private       ReferenceCounted             owner;
+    private       ResourceLeakDetector.Tracker tracker;
+
+    /**
+     * 从 src 解码，报文体引用 src 中的数据，并对 owner 增加引用计数。
+     * owner 为 null 时报文体拷贝出来，同 {@link ProtoMessage}。
+     *
+     * @param src   源缓冲区
+     * @param owner src 底层数据的所有者
+     * @return 同 {@link IMessage#decodeFrom(ByteBuffer)}
+     */
+    public int decodeFrom(ByteBuffer src, ReferenceCounted owner) {
+        if (owner == null) {
+            return super.decodeFrom(src);
+        }
+        int start = src.position();
+        if (!header.readHeader(src)) {
+            return 0;
+        }
+        int bodyLen = header.bodyLen;
+        if (bodyLen < 0) {
+            src.position(start);
+            header.clear();
+            return -1;
+        }
+        if (src.remaining() < bodyLen) {
+            src.position(start);
+            header.clear();
+            return 0;
+        }
+        ByteBuffer s = src.slice();
+        s.limit(bodyLen);
+        src.position(src.position() + bodyLen);
+
+        releaseSlice();
+        owner.retain();
+        this.owner = owner;
+        this.slice = s;
+        this.body = EMPTY_BODY;
+        bodyChanged();
+        this.refCnt.set(1);
+        this.tracker = LEAK_DETECTOR.track(this);
+        return src.position() - start;
+    }
+
+    /**
+     * 使用接收缓冲区之外准备好的报文体（如落盘的报文体），对 owner 增加引用计数.
+     *
+     * @param header 报文头，bodyLen 以 body 为准
+     * @param body   报文体，从 position 到 limit
+     * @param owner  body 底层数据的所有者
+     */
+    public void wrap(ProtoMessageHeader header, ByteBuffer body, ReferenceCounted owner) {
+        releaseSlice();
+        this.header.readFrom(header);
+        this.header.bodyLen = body.remaining();
+        owner.retain();
+        this.owner = owner;
+        this.slice = body.slice();
+        this.body = EMPTY_BODY;
+        bodyChanged();
+        this.refCnt.set(1);
+        this.tracker = LEAK_DETECTOR.track(this);
+    }
+
+    /**
+     * 报文体是否落盘在临时文件中.
+     */
+    public boolean isSpilled() {
+        return owner instanceof SpilledBody;
+    }
+
+    /**
+     * 以输入流的形式读取报文体，不拷贝.
+     *
+     * @return InputStream
+     */
+    public InputStream bodyStream() {
+        return new ByteBufferInputStream(bodySlice());
+    }
+
+    /**
+     * 报文体的只读视图，position 为 0，limit 为报文体长度.
+     *
+     * @return ByteBuffer
+     */
+    public ByteBuffer bodySlice() {
+        if (slice != null) {
+            return slice.asReadOnlyBuffer();
+        }
+        ensureAccessible();
+        return ByteBuffer.wrap(body).asReadOnlyBuffer();
+    }
+
+    /**
+     * 解码时直接读取引用的数据，不拷贝.
+     */
+    @Override
+    protected ByteBuffer bodyBuffer() {
+        if (slice != null) {
+            ensureAccessible();
+            return slice.duplicate();
+        }
+        return super.bodyBuffer();
+    }
+
+    @Override
+    public byte[] body() {
+        ensureAccessible();
+        if (slice != null && body.length != slice.remaining()) {
+            byte[] copy = new byte[slice.remaining()];
+            slice.duplicate().get(copy);
+            body = copy;
+        }
+        return body;
+    }
+
+    @Override
+    public byte[] getBody() {
+        return body();
+    }
+
+    @Override
+    public void setBody(byte[] body) {
+        releaseSlice();
+        super.setBody(body);
+    }
+
+    @Override
+    public void resetBody() {
+        releaseSlice();
+        super.resetBody();
+    }
+
+    @Override
+    public int encodedSize() {
+        if (slice == null) {
+            return super.encodedSize();
+        }
+        return header.getLength() + slice.remaining();
+    }
+
+    @Override
+    public void encodeTo(ByteBuffer dst) {
+        if (slice == null) {
+            super.encodeTo(dst);
+            return;
+        }
+        ensureAccessible();
+        header.bodyLen = slice.remaining();
+        header.encodeTo(dst);
+        dst.put(slice.duplicate());
+    }
+
+    @Override
+    public int refCnt() {
+        return refCnt.get();
+    }
+
+    @Override
+    public SliceProtoMessage retain() {
+        for (; ; ) {
+            int current = refCnt.get();
+            if (current <= 0) {
+                throw new IllegalStateException("refCnt: " + current + ", already released.");
+            }
+            if (refCnt.compareAndSet(current, current + 1)) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public boolean release() {
+        for (; ; ) {
+            int current = refCnt.get();
+            if (current <= 0) {
+                throw new IllegalStateException("refCnt: " + current + ", already released.");
+            }
+            if (refCnt.compareAndSet(current, current - 1)) {
+                if (current == 1) {
+                    releaseSlice();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 同 {@link #release()}，和 {@link RecyclableProtoMessage} 一致.
+     */
+    @Override
+    public void recycle() {
+        release();
+    }
+
+    @Override
+    public String toString() {
+        if (refCnt.get() <= 0) {
+            return "{header: " + header.toString() + ", body: (released)}";
+        }
+        if (isSpilled()) {
+            return "{header: " + header.toString() + ", body: (spilled " + header.bodyLen
+                    + " bytes)}";
+        }
+        byte[] b = body();
+        return "{header: " + header.toString() + ", body: \""
+                + (header.getBodyType() == 1 ? Bytes.toString(b) : Hex.encodeHexString(b)) + "\"}";
+    }
+
+    private void ensureAccessible() {
+        if (refCnt.get() <= 0) {
+            throw new IllegalStateException("message already released.");
+        }
+    }
+
+    private void releaseSlice() {
+        ReferenceCounted o = owner;
+        if (o == null) {
+            return;
+        }
+        owner = null;
+        slice = null;
+        bodyChanged();
+        if (tracker != null) {
+            tracker.close();
+            tracker = null;
+        }
+        o.release();
+    }
+}
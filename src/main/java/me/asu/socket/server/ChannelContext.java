@@ -1,8 +1,12 @@
 package me.asu.socket.server;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.file.Path;
 import lombok.Data;
 import me.asu.socket.message.IMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.util.FileRegion;
 
 /**
  * @author Suk.
@@ -11,36 +15,110 @@ import me.asu.socket.message.IMessage;
 @Data
 public class ChannelContext {
 
-    Worker            worker;
+    Connection        connection;
     InetSocketAddress address;
     String            host;
     int               port;
 
-    public ChannelContext(Worker worker) {
-        this.worker = worker;
-        address = (InetSocketAddress) worker.getSocket().getRemoteSocketAddress();
+    public ChannelContext(Connection connection) {
+        this.connection = connection;
+        address = connection.getRemoteAddress();
         host = address.getAddress().getHostAddress();
         port = address.getPort();
     }
 
+    /**
+     * 阻塞模式下的 {@link Worker}，NIO 模式下返回 null.
+     *
+     * @return Worker
+     */
+    public Worker getWorker() {
+        return connection instanceof Worker ? (Worker) connection : null;
+    }
+
+    /**
+     * 发送报文。引用计数的报文（如 {@link me.asu.socket.message.SliceProtoMessage}）
+     * 由框架在写出或发送失败后释放一次，调用方需要继续使用时先 retain().
+     *
+     * @param message 报文
+     */
     public void send(IMessage message) {
-        worker.addSendData(message);
+        connection.addSendData(message);
     }
 
     public void send(IMessage message, SendCallBack callBack) {
-        worker.addSendData(message, callBack);
+        connection.addSendData(message, callBack);
     }
 
     public void send(byte[] message) {
-        worker.addSendData(message);
+        connection.addSendData(message);
     }
 
     public void send(byte[] message, SendCallBack callBack) {
-        worker.addSendData(message, callBack);
+        connection.addSendData(message, callBack);
+    }
+
+    /**
+     * 以文件的一段作为报文体发送，文件内容不读入内存，见 {@link FileRegion}.
+     * 文件在写完或者发送失败后关闭。设置了出站编解码流水线时不支持，回调 onError。
+     *
+     * @param path     文件
+     * @param offset   起始位置
+     * @param length   长度，-1 表示到文件末尾，不超过 2G
+     * @param header   报文头部，bodyLen 会设置为 length
+     * @param callBack 回调，可以为 null
+     * @throws IOException 文件打不开或者范围超出文件
+     */
+    public void sendFile(Path path, long offset, long length, ProtoMessageHeader header,
+            SendCallBack callBack) throws IOException {
+        connection.addSendData(FileRegion.open(path, offset, length, header), callBack);
+    }
+
+    public void sendFile(Path path, long offset, long length, ProtoMessageHeader header)
+            throws IOException {
+        sendFile(path, offset, length, header, null);
+    }
+
+    /**
+     * 添加报文但不发送，调用 {@link #flush()} 时和其他报文合并写出.
+     *
+     * @param message 报文
+     */
+    public void write(IMessage message) {
+        connection.write(message, null);
+    }
+
+    public void write(IMessage message, SendCallBack callBack) {
+        connection.write(message, callBack);
+    }
+
+    public void write(byte[] message) {
+        connection.write(message, null);
+    }
+
+    public void write(byte[] message, SendCallBack callBack) {
+        connection.write(message, callBack);
+    }
+
+    /**
+     * 发送 {@link #write(IMessage)} 添加的报文.
+     */
+    public void flush() {
+        connection.flush();
+    }
+
+    /**
+     * 发送队列是否低于高水位，不可写时应暂停发送，
+     * 恢复可写时会调用 {@link Handler#onWritabilityChanged(ChannelContext)}.
+     *
+     * @return 是否可写
+     */
+    public boolean isWritable() {
+        return connection.isWritable();
     }
 
     public void close() {
-        worker.shutdown();
+        connection.shutdown();
     }
 
 }
@@ -0,0 +1,262 @@
+package me.asu.socket.server;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.message.IMessage;
+import me.asu.socket.message.IProtoMessage;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.util.IntObjectMap;
+import me.asu.socket.util.ReferenceCounted;
+import me.asu.socket.util.StripedExecutor;
+
+/**
+ * 按 cmdId 把报文分发给 {@link CommandHandler} 的 {@link Handler}，代替 onRecv 里的大 switch。
+ * <p>
+ * 小于 {@link #DENSE_SIZE} 的 cmdId 直接用数组下标查找，其他的放在 {@link IntObjectMap} 中，都不装箱。
+ * 每个命令可以在 IO 线程直接执行，也可以交给线程池执行，避免耗时的命令阻塞 IO 线程。
+ * 请求（{@link ProtoMessageHeader#CMD_TYPE_REQUEST}）的响应由 dispatcher 回填 cmdId、seqId
+ * 和 {@link ProtoMessageHeader#CMD_TYPE_RESPONSE} 后发送。
+ * <p>
+ * 命令应在 {@link Server#start()} 之前注册完。连接的其他通知可以通过继承覆盖。
+ *
+ * @author Suk
+ * @since 2026-10-17
+ */
+@Slf4j
+public class CommandDispatcher extends Handler.HandlerAdapter {
+
+    /** 数组直接索引的 cmdId 范围 [0, DENSE_SIZE). */
+    public static final int  DENSE_SIZE       = 1024;
+    /** 响应码：没有注册的 cmdId. */
+    public static final byte CODE_UNKNOWN_CMD = 1;
+    /** 响应码：处理器抛出异常. */
+    public static final byte CODE_ERROR       = 2;
+    /** 响应码：线程池拒绝执行. */
+    public static final byte CODE_BUSY        = 3;
+    /** 响应码：报文体超过长度限制，没有处理（见 {@link me.asu.socket.util.FrameSizeLimits}）. */
+    public static final byte CODE_TOO_LARGE   = 4;
+
+    private       Entry[]             dense  = new Entry[16];
+    private final IntObjectMap<Entry> sparse = new IntObjectMap<Entry>();
+
+    /**
+     * 注册在 IO 线程直接执行的命令，适合不阻塞的快速处理.
+     *
+     * @param cmdId   cmdId
+     * @param handler 处理器
+     * @return this
+     */
+    public CommandDispatcher register(int cmdId, CommandHandler handler) {
+        return put(cmdId, new Entry(handler, null, null));
+    }
+
+    /**
+     * 注册交给 executor 执行的命令，同一个连接的请求可能并发执行，响应顺序不定.
+     *
+     * @param cmdId    cmdId
+     * @param handler  处理器
+     * @param executor 执行处理器的线程池
+     * @return this
+     */
+    public CommandDispatcher register(int cmdId, CommandHandler handler, Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        return put(cmdId, new Entry(handler, executor, null));
+    }
+
+    /**
+     * 注册交给分道线程池执行的命令，同一个连接的请求在同一个通道中按顺序执行.
+     *
+     * @param cmdId    cmdId
+     * @param handler  处理器
+     * @param executor 分道线程池
+     * @return this
+     */
+    public CommandDispatcher register(int cmdId, CommandHandler handler,
+            StripedExecutor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor is null");
+        }
+        return put(cmdId, new Entry(handler, null, executor));
+    }
+
+    public boolean isRegistered(int cmdId) {
+        return lookup(cmdId) != null;
+    }
+
+    @Override
+    public void onRecv(IMessage message, ChannelContext ctx) {
+        if (!(message instanceof IProtoMessage)) {
+            super.onRecv(message, ctx);
+            return;
+        }
+        IProtoMessage request = (IProtoMessage) message;
+        Entry entry = lookup(request.cmdId());
+        if (entry == null) {
+            onUnknownCommand(request, ctx);
+            return;
+        }
+        if (entry.isInline()) {
+            dispatch(entry.handler, request, ctx);
+        } else {
+            offload(entry, request, ctx);
+        }
+    }
+
+    /**
+     * 没有注册的 cmdId，默认对请求回复 {@link #CODE_UNKNOWN_CMD}.
+     *
+     * @param request 报文
+     * @param ctx     连接
+     */
+    protected void onUnknownCommand(IProtoMessage request, ChannelContext ctx) {
+        log.warn("{}: unknown cmdId {}.", ctx.getAddress(), request.cmdId());
+        replyCode(request, CODE_UNKNOWN_CMD, ctx);
+    }
+
+    private void offload(final Entry entry, final IProtoMessage request,
+            final ChannelContext ctx) {
+        // 框架在 onRecv 返回后回收报文，交给其他线程前先持有一次
+        final boolean refCounted = request instanceof ReferenceCounted;
+        if (refCounted) {
+            ((ReferenceCounted) request).retain();
+        }
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    dispatch(entry.handler, request, ctx);
+                } finally {
+                    if (refCounted) {
+                        ((ReferenceCounted) request).release();
+                    }
+                }
+            }
+        };
+        try {
+            if (entry.striped != null) {
+                entry.striped.execute(ctx, task);
+            } else {
+                entry.executor.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("{}: cmdId {} rejected.", ctx.getAddress(), request.cmdId());
+            replyCode(request, CODE_BUSY, ctx);
+            if (refCounted) {
+                ((ReferenceCounted) request).release();
+            }
+        }
+    }
+
+    private void dispatch(CommandHandler handler, IProtoMessage request, ChannelContext ctx) {
+        IProtoMessage response;
+        try {
+            response = handler.handle(request, ctx);
+        } catch (Exception e) {
+            log.error("{}: cmdId {} failed.", ctx.getAddress(), request.cmdId(), e);
+            replyCode(request, CODE_ERROR, ctx);
+            return;
+        }
+        if (response == null) {
+            return;
+        }
+        if (!isRequest(request)) {
+            if (response != request && response instanceof ReferenceCounted) {
+                ((ReferenceCounted) response).release();
+            }
+            return;
+        }
+        if (response == request && response instanceof ReferenceCounted) {
+            // 原样返回请求时，发送后的释放和框架的回收各一次
+            ((ReferenceCounted) response).retain();
+        }
+        reply(request, response, ctx);
+    }
+
+    private void replyCode(IProtoMessage request, byte code, ChannelContext ctx) {
+        ProtoMessage response = codeResponse(request.header(), code);
+        if (response != null) {
+            ctx.send(response);
+        }
+    }
+
+    /**
+     * 只有响应码的响应.
+     *
+     * @param request 请求的报文头
+     * @param code    响应码
+     * @return 不是请求时返回 null
+     */
+    static ProtoMessage codeResponse(ProtoMessageHeader request, byte code) {
+        if (request.cmdType != ProtoMessageHeader.CMD_TYPE_REQUEST) {
+            return null;
+        }
+        ProtoMessage response = new ProtoMessage();
+        ProtoMessageHeader resp = response.header();
+        resp.cmdId = request.cmdId;
+        resp.seqId = request.seqId;
+        resp.cmdType = ProtoMessageHeader.CMD_TYPE_RESPONSE;
+        resp.code = code;
+        return response;
+    }
+
+    private static void reply(IProtoMessage request, IProtoMessage response,
+            ChannelContext ctx) {
+        ProtoMessageHeader req = request.header();
+        ProtoMessageHeader resp = response.header();
+        resp.cmdId = req.cmdId;
+        resp.seqId = req.seqId;
+        resp.cmdType = ProtoMessageHeader.CMD_TYPE_RESPONSE;
+        ctx.send(response);
+    }
+
+    private static boolean isRequest(IProtoMessage message) {
+        return message.header().cmdType == ProtoMessageHeader.CMD_TYPE_REQUEST;
+    }
+
+    private Entry lookup(int cmdId) {
+        if (cmdId >= 0 && cmdId < DENSE_SIZE) {
+            Entry[] d = dense;
+            return cmdId < d.length ? d[cmdId] : null;
+        }
+        return sparse.get(cmdId);
+    }
+
+    private synchronized CommandDispatcher put(int cmdId, Entry entry) {
+        if (entry.handler == null) {
+            throw new IllegalArgumentException("handler is null");
+        }
+        if (cmdId >= 0 && cmdId < DENSE_SIZE) {
+            if (cmdId >= dense.length) {
+                Entry[] grown = new Entry[Math.min(DENSE_SIZE,
+                        Integer.highestOneBit(cmdId) << 1)];
+                System.arraycopy(dense, 0, grown, 0, dense.length);
+                dense = grown;
+            }
+            dense[cmdId] = entry;
+        } else {
+            sparse.put(cmdId, entry);
+        }
+        return this;
+    }
+
+    private static final class Entry {
+
+        final CommandHandler  handler;
+        final Executor        executor;
+        final StripedExecutor striped;
+
+        Entry(CommandHandler handler, Executor executor, StripedExecutor striped) {
+            this.handler = handler;
+            this.executor = executor;
+            this.striped = striped;
+        }
+
+        boolean isInline() {
+            return executor == null && striped == null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package me.asu.socket.server;
+
+import me.asu.socket.message.IProtoMessage;
+
+/**
+ * 单个 cmdId 的处理器，注册到 {@link CommandDispatcher}.
+ *
+ * @author Suk
+ * @since 2026-10-17
+ */
+public interface CommandHandler {
+
+    /**
+     * 处理请求.
+     * 请求只在本方法内有效，需要在返回后继续使用时自行复制或 retain。
+     *
+     * @param request 请求
+     * @param ctx     连接
+     * @return 响应报文，{@link CommandDispatcher} 会设置 cmdId、seqId 和 cmdType 后发送；
+     *         null 表示不响应。请求不是 {@code CMD_TYPE_REQUEST} 时忽略返回值
+     * @throws Exception 处理失败，请求会收到 {@link CommandDispatcher#CODE_ERROR} 响应
+     */
+    IProtoMessage handle(IProtoMessage request, ChannelContext ctx) throws Exception;
+}
@@ -0,0 +1,61 @@
+package me.asu.socket.server;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 服务端连接抽象，{@link ChannelContext} 通过它发送数据和关闭连接。
+ * 阻塞模式由 {@link Worker} 实现，NIO 模式由 {@link NioChannel} 实现。
+ *
+ * @author Suk
+ * @since 2026-10-17
+ */
+public interface Connection {
+
+    /**
+     * 远端地址.
+     *
+     * @return InetSocketAddress
+     */
+    InetSocketAddress getRemoteAddress();
+
+    /**
+     * 添加待发送数据，支持 {@link me.asu.socket.message.IMessage} 和 byte[].
+     *
+     * @param data 数据
+     */
+    void addSendData(Object data);
+
+    /**
+     * 添加待发送数据，发送完成后回调.
+     *
+     * @param data     数据
+     * @param callBack 回调
+     */
+    void addSendData(Object data, SendCallBack callBack);
+
+    /**
+     * 添加待发送数据，但不触发发送，直到调用 {@link #flush()}。
+     * 用于一次产生多个报文的场景，多个报文合并成一次写出.
+     *
+     * @param data     数据
+     * @param callBack 回调，flush 写出后调用，可以为 null
+     */
+    void write(Object data, SendCallBack callBack);
+
+    /**
+     * 发送之前 {@link #write(Object, SendCallBack)} 添加的数据.
+     */
+    void flush();
+
+    /**
+     * 发送队列是否低于高水位.
+     *
+     * @return false 表示应暂停发送
+     */
+    boolean isWritable();
+
+    /**
+     * 关闭连接.
+     */
+    void shutdown();
+}
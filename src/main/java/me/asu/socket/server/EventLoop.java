@@ -0,0 +1,208 @@
+package me.asu.socket.server;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.codec.CodecPipeline;
+import me.asu.socket.util.BufferPool;
+import me.asu.socket.util.FrameSizeLimits;
+import me.asu.socket.util.IdleTimeouts;
+import me.asu.socket.util.PooledByteBuffer;
+import me.asu.socket.util.SendQueueLimits;
+import me.asu.socket.util.SpillPolicy;
+
+/**
+ * NIO 模式下的 worker 事件循环。
+ * 每个 EventLoop 独占一个线程和一个 Selector，负责其名下所有连接的读写；
+ * 其他线程通过 {@link #execute(Runnable)} 提交任务到此线程执行。
+ *
+ * @author Suk
+ * @since 2026-10-17
+ */
+@Slf4j
+public class EventLoop implements Runnable {
+
+    private final static int READ_CHUNK_SIZE = 4 * 1024;
+
+    private final Selector         selector;
+    private final Queue<Runnable>  tasks    = new ConcurrentLinkedQueue<Runnable>();
+    private final AtomicBoolean    wakenUp  = new AtomicBoolean(false);
+    private final Set<NioChannel>  channels = new HashSet<NioChannel>();
+    /** 同一个 EventLoop 上的连接共用一个读缓冲区，从 {@link BufferPool} 申请的直接内存. */
+    private final PooledByteBuffer readBuffer;
+    @Getter
+    private volatile boolean running = false;
+    private volatile Thread  thread;
+    /** 新连接的大报文体落盘设置，为 null 时不落盘. */
+    @Setter
+    private volatile SpillPolicy spillPolicy;
+    /** 新连接的报文体长度限制，为 null 时不限制. */
+    @Setter
+    private volatile FrameSizeLimits frameSizeLimits;
+
+    public EventLoop() throws IOException {
+        this(READ_CHUNK_SIZE);
+    }
+
+    public EventLoop(int readChunkSize) throws IOException {
+        readChunkSize = readChunkSize > 0 ? readChunkSize : READ_CHUNK_SIZE;
+        this.selector = Selector.open();
+        this.readBuffer = BufferPool.DEFAULT.acquire(readChunkSize);
+    }
+
+    public boolean inEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * 提交任务到事件循环线程执行。
+     *
+     * @param task 任务
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        if (!inEventLoop()) {
+            wakeup();
+        }
+    }
+
+    /**
+     * 将新接入的连接注册到此事件循环.
+     *
+     * @param channel 非阻塞的 SocketChannel
+     * @param handler 服务处理器
+     */
+    public void register(SocketChannel channel, Handler handler) {
+        register(channel, handler, SendQueueLimits.DEFAULT, IdleTimeouts.NONE);
+    }
+
+    /**
+     * 将新接入的连接注册到此事件循环.
+     *
+     * @param channel 非阻塞的 SocketChannel
+     * @param handler 服务处理器
+     * @param limits  发送队列的限制
+     * @param idle    空闲检测
+     */
+    public void register(SocketChannel channel, Handler handler, SendQueueLimits limits,
+            IdleTimeouts idle) {
+        register(channel, handler, limits, idle, null);
+    }
+
+    /**
+     * 将新接入的连接注册到此事件循环.
+     *
+     * @param channel  非阻塞的 SocketChannel
+     * @param handler  服务处理器
+     * @param limits   发送队列的限制
+     * @param idle     空闲检测
+     * @param pipeline 这个连接的编解码流水线，为 null 时直接按报文格式收发
+     */
+    public void register(final SocketChannel channel, final Handler handler,
+            final SendQueueLimits limits, final IdleTimeouts idle,
+            final CodecPipeline pipeline) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                NioChannel ch = new NioChannel(EventLoop.this, channel, handler, limits);
+                ch.setPipeline(pipeline);
+                ch.setSpillPolicy(spillPolicy);
+                ch.setFrameSizeLimits(frameSizeLimits);
+                try {
+                    ch.register(selector, idle);
+                    channels.add(ch);
+                } catch (IOException e) {
+                    log.error("", e);
+                    ch.close();
+                }
+            }
+        });
+    }
+
+    void deregister(NioChannel ch) {
+        channels.remove(ch);
+    }
+
+    public void shutdown() {
+        running = false;
+        wakeup();
+    }
+
+    @Override
+    public void run() {
+        thread = Thread.currentThread();
+        running = true;
+        while (running) {
+            try {
+                wakenUp.set(false);
+                if (tasks.isEmpty()) {
+                    selector.select();
+                } else {
+                    selector.selectNow();
+                }
+                processSelectedKeys();
+                runAllTasks();
+            } catch (Exception e) {
+                log.error("", e);
+            }
+        }
+        closeAll();
+    }
+
+    private void wakeup() {
+        if (wakenUp.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> ite = selector.selectedKeys().iterator();
+        while (ite.hasNext()) {
+            SelectionKey key = ite.next();
+            ite.remove();
+            NioChannel ch = (NioChannel) key.attachment();
+            if (!key.isValid()) {
+                ch.close();
+                continue;
+            }
+            if (key.isReadable()) {
+                ch.read(readBuffer.buffer());
+            }
+            if (key.isValid() && key.isWritable()) {
+                ch.doFlush();
+            }
+        }
+    }
+
+    private void runAllTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.error("", e);
+            }
+        }
+    }
+
+    private void closeAll() {
+        runAllTasks();
+        for (NioChannel ch : new ArrayList<NioChannel>(channels)) {
+            ch.close();
+        }
+        channels.clear();
+        try {
+            selector.close();
+        } catch (IOException e) {
+            log.error("", e);
+        }
+        readBuffer.release();
+    }
+}
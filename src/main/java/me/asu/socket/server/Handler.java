@@ -3,6 +3,7 @@ package me.asu.socket.server;
 
 import lombok.extern.slf4j.Slf4j;
 import me.asu.socket.message.*;
+import me.asu.socket.util.IdleMonitor.IdleState;
 
 /**
  * 服务处理器
@@ -41,6 +42,35 @@ public interface Handler {
      */
     void onTimeout(ChannelContext ctx);
 
+    /**
+     * 空闲通知，由 {@link Server#withIdleTimeout} 设置的空闲检测触发，持续空闲时每个周期通知一次。
+     * 默认调用 {@link #onTimeout(ChannelContext)}，读空闲和读写空闲时关闭连接；
+     * 需要发送心跳而不是关闭连接时覆盖此方法.
+     */
+    default void onIdle(ChannelContext ctx, IdleState state) {
+        onTimeout(ctx);
+        if (state != IdleState.WRITER_IDLE) {
+            ctx.close();
+        }
+    }
+
+    /**
+     * 发送队列的可写状态变化通知，通过 {@link ChannelContext#isWritable()} 获取当前状态。
+     * 不可写时应暂停向这个连接发送，恢复可写后继续.
+     */
+    default void onWritabilityChanged(ChannelContext ctx) {
+    }
+
+    /**
+     * 收到 {@link MessageBatch} 批量报文时通知，子报文在遍历时才解析.
+     * 默认逐个调用 {@link #onRecv(IMessage, ChannelContext)}；需要整批处理时覆盖此方法.
+     */
+    default void onRecvBatch(MessageBatch.Reader items, ChannelContext ctx) {
+        for (ProtoMessage item : items) {
+            onRecv(item, ctx);
+        }
+    }
+
     /**
      * 创建一个数据对象.
      *
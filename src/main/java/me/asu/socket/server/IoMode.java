@@ -0,0 +1,24 @@
+package me.asu.socket.server;
+
+/**
+ * 服务端 IO 模式.
+ *
+ * @author Suk
+ * @since 2026-10-17
+ */
+public enum IoMode {
+    /**
+     * 每个连接一个 {@link Worker}，阻塞读写。用于低并发，高吞吐量场景。
+     */
+    BLOCKING,
+    /**
+     * 一个 boss 线程接收连接，N 个 {@link EventLoop} 基于 Selector 处理读写，
+     * 少量线程支撑大量连接。
+     */
+    NIO,
+    /**
+     * 同 {@link #BLOCKING}，但 {@link Worker} 的读、写和 {@link Handler} 回调都运行在虚拟线程上，
+     * 不受 socket.serverSocket.pool.max 限制。需要 JDK 21+。
+     */
+    VIRTUAL
+}
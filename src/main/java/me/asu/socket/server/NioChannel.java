@@ -0,0 +1,586 @@
+package me.asu.socket.server;
+
+import static me.asu.socket.Constants.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.codec.CodecPipeline;
+import me.asu.socket.message.Heartbeat;
+import me.asu.socket.message.IMessage;
+import me.asu.socket.message.IProtoMessage;
+import me.asu.socket.message.MessageBatch;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.util.BufferPool;
+import me.asu.socket.util.FileRegion;
+import me.asu.socket.util.FrameSizeLimits;
+import me.asu.socket.util.HashedWheelTimer;
+import me.asu.socket.util.IdleMonitor;
+import me.asu.socket.util.IdleMonitor.IdleState;
+import me.asu.socket.util.IdleTimeouts;
+import me.asu.socket.util.PooledByteBuffer;
+import me.asu.socket.util.ReadBuffer;
+import me.asu.socket.util.SendQueueCounter;
+import me.asu.socket.util.SendQueueLimits;
+import me.asu.socket.util.SpillPolicy;
+import me.asu.util.StreamUtils;
+
+/**
+ * NIO 模式下的连接，所有读写都在所属的 {@link EventLoop} 线程中执行。
+ *
+ * @author Suk
+ * @since 2026-10-17
+ */
+@Slf4j
+public class NioChannel implements Connection {
+
+    private static final RuntimeException NOT_SUPPORT_TYPE = new RuntimeException(
+            "not support data type");
+    /** 合并写出时一次最多编码的字节数，超过的报文下一次写. */
+    private static final int MAX_GATHER_SIZE = BufferPool.MAX_SIZE;
+
+    @Getter
+    private final EventLoop         eventLoop;
+    @Getter
+    private final SocketChannel     channel;
+    private final Handler           handler;
+    @Getter
+    private final InetSocketAddress remoteAddress;
+    @Getter
+    private final ChannelContext    ctx;
+    private       SelectionKey      key;
+    @Getter
+    private volatile boolean closed = false;
+
+    private final Queue<SendMessage> sendingQueue   = new ConcurrentLinkedQueue<SendMessage>();
+    private final AtomicBoolean      flushScheduled = new AtomicBoolean(false);
+    /** 发送队列的字节数和报文数限制. */
+    private final SendQueueCounter   sendQueueCounter;
+    /** 空闲检测，没有设置时为 null. */
+    private IdleMonitor idleMonitor;
+    private ByteBuffer  pendingWrite;
+    /** pendingWrite 之后要写出的文件，头部已经在 pendingWrite 中. */
+    private SendMessage pendingFile;
+    /** pendingWrite 中包含的报文，写完后回调. */
+    private final Queue<SendMessage> pendingMessages = new ArrayDeque<SendMessage>();
+    /** 报文编码缓冲区，从 {@link BufferPool} 申请，发送队列清空后归还. */
+    private PooledByteBuffer writeBuffer;
+
+    /** 编解码流水线，为 null 时直接按报文格式收发. */
+    private CodecPipeline pipeline;
+
+    /** 半包数据累积在这里，等待后续数据. */
+    private final ReadBuffer readBuffer = new ReadBuffer(1024);
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled.set(false);
+            doFlush();
+        }
+    };
+
+    private final Runnable closeTask = new Runnable() {
+        @Override
+        public void run() {
+            close();
+        }
+    };
+
+    NioChannel(EventLoop eventLoop, SocketChannel channel, final Handler handler,
+            SendQueueLimits limits) {
+        this.eventLoop = eventLoop;
+        this.channel = channel;
+        this.handler = handler;
+        this.remoteAddress = (InetSocketAddress) channel.socket().getRemoteSocketAddress();
+        this.ctx = new ChannelContext(this);
+        this.sendQueueCounter = new SendQueueCounter(limits, new SendQueueCounter.Listener() {
+            @Override
+            public void onWritabilityChanged(boolean writable) {
+                if (handler != null) {
+                    handler.onWritabilityChanged(ctx);
+                }
+            }
+        });
+    }
+
+    void setPipeline(CodecPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    void setSpillPolicy(SpillPolicy spillPolicy) {
+        readBuffer.setSpillPolicy(spillPolicy);
+    }
+
+    /**
+     * 设置报文体长度限制，超长的报文体不缓冲，按 {@link FrameSizeLimits#getAction()} 处理.
+     *
+     * @param limits 为 null 时不限制
+     */
+    void setFrameSizeLimits(final FrameSizeLimits limits) {
+        if (limits == null) {
+            readBuffer.setFrameSizeLimits(null, null);
+            return;
+        }
+        readBuffer.setFrameSizeLimits(limits, new FrameSizeLimits.Listener() {
+            @Override
+            public void onOversized(ProtoMessageHeader header, int maxBodyLength) {
+                log.warn("{}: cmdId {} body length {} exceeds {}, discarded.", remoteAddress,
+                        header.cmdId, header.bodyLen, maxBodyLength);
+                switch (limits.getAction()) {
+                    case REJECT:
+                        ProtoMessage response = CommandDispatcher
+                                .codeResponse(header, CommandDispatcher.CODE_TOO_LARGE);
+                        if (response != null) {
+                            addSendData(response);
+                        }
+                        break;
+                    case CLOSE:
+                        close();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+    }
+
+    void register(Selector selector, IdleTimeouts idle) throws IOException {
+        key = channel.register(selector, SelectionKey.OP_READ, this);
+        if (idle != null && idle.isEnabled()) {
+            idleMonitor = new IdleMonitor(HashedWheelTimer.DEFAULT, idle, new IdleMonitor.Listener() {
+                @Override
+                public void onIdle(final IdleState state) {
+                    // 回到 EventLoop 线程通知
+                    eventLoop.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!closed && handler != null) {
+                                handler.onIdle(ctx, state);
+                            }
+                        }
+                    });
+                }
+            });
+            idleMonitor.start();
+        }
+        if (handler != null) {
+            handler.onOpen(ctx);
+        }
+    }
+
+    @Override
+    public void addSendData(Object data) {
+        addSendData(data, null);
+    }
+
+    @Override
+    public void addSendData(Object data, SendCallBack callBack) {
+        if (closed) {
+            if (callBack != null) {
+                callBack.onError(new ClosedChannelException());
+            }
+            return;
+        }
+        if (enqueue(new SendMessage(data, callBack))) {
+            flush();
+        }
+    }
+
+    @Override
+    public void write(Object data, SendCallBack callBack) {
+        if (closed) {
+            if (callBack != null) {
+                callBack.onError(new ClosedChannelException());
+            }
+            return;
+        }
+        enqueue(new SendMessage(data, callBack, false));
+    }
+
+    private boolean enqueue(SendMessage m) {
+        if (!sendQueueCounter.tryAdd(m.getSize())) {
+            m.release();
+            if (m.getCallBack() != null) {
+                m.getCallBack().onError(SendMessage.QUEUE_FULL);
+            }
+            delegateException(SendMessage.QUEUE_FULL, ERROR_QUEUE_FULL);
+            return false;
+        }
+        sendingQueue.add(m);
+        if (closed) {
+            // 检查 closed 之后、入队之前连接关闭了，close() 可能已经清空过队列
+            failSendingQueue(new ClosedChannelException());
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isWritable() {
+        return sendQueueCounter.isWritable();
+    }
+
+    @Override
+    public void flush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.execute(flushTask);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (eventLoop.inEventLoop()) {
+            close();
+        } else {
+            eventLoop.execute(closeTask);
+        }
+    }
+
+    /**
+     * 从 socket 读取数据并解析报文，在 EventLoop 线程中调用。
+     *
+     * @param loopBuffer EventLoop 共用的读缓冲区
+     */
+    void read(ByteBuffer loopBuffer) {
+        try {
+            while (!closed) {
+                loopBuffer.clear();
+                int len = channel.read(loopBuffer);
+                if (len < 0) {
+                    // 客户端断开。
+                    close();
+                    return;
+                }
+                if (len == 0) {
+                    return;
+                }
+                if (idleMonitor != null) {
+                    idleMonitor.touchRead();
+                }
+                loopBuffer.flip();
+                readBuffer.write(loopBuffer);
+                decode();
+                if (len < loopBuffer.capacity()) {
+                    // 没有读满，说明 socket 缓冲区已经读空了
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            if ("Connection reset".equals(e.getMessage())) {
+                // 客户端断开。
+                delegateException(e, ERROR_CLOSED);
+            } else {
+                delegateException(e, ERROR_RECV);
+            }
+            close();
+        } catch (RuntimeException e) {
+            // 报文解析出错，缓冲区中的数据已经无法分帧
+            delegateException(e, ERROR_RECV);
+            close();
+        }
+    }
+
+    private void decode() throws IOException {
+        while (!closed && readBuffer.readableBytes() > 0) {
+            IMessage box = handler != null ? handler.createMessage() : new ProtoMessage();
+            int ret = readBuffer.unpack(box, pipeline);
+            if (ret <= 0) {
+                box.recycle();
+                if (ret < 0) {
+                    // 数据错乱，readBuffer 已经清空，后续数据也无法分帧
+                    throw new IOException("Corrupted frame.");
+                }
+                return;
+            }
+            fireRecv(box);
+        }
+    }
+
+    private void fireRecv(IMessage box) {
+        if (Heartbeat.isPing(box)) {
+            // 心跳直接回复，不交给 handler
+            addSendData(Heartbeat.pong((IProtoMessage) box));
+            box.recycle();
+            return;
+        }
+        if (handler == null) {
+            box.recycle();
+            return;
+        }
+        try {
+            if (MessageBatch.isBatch(box)) {
+                handler.onRecvBatch(MessageBatch.read((IProtoMessage) box), ctx);
+            } else {
+                handler.onRecv(box, ctx);
+            }
+        } catch (Exception e) {
+            delegateException(e, ERROR_RECV);
+            close();
+        } finally {
+            box.recycle();
+        }
+    }
+
+    /**
+     * 将发送队列中的数据写入 socket，在 EventLoop 线程中调用。
+     * 队列中的多个报文编码到同一个缓冲区一次写出；写不完时关注 OP_WRITE，等可写时继续。
+     */
+    void doFlush() {
+        if (closed) {
+            return;
+        }
+        try {
+            while (true) {
+                if (pendingWrite == null && pendingFile == null) {
+                    pendingWrite = gather();
+                    if (pendingWrite == null) {
+                        break;
+                    }
+                }
+                if (pendingWrite != null) {
+                    channel.write(pendingWrite);
+                    if (pendingWrite.hasRemaining()) {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    pendingWrite = null;
+                    if (idleMonitor != null) {
+                        idleMonitor.touchWrite();
+                    }
+                    SendMessage m;
+                    while ((m = pendingMessages.poll()) != null) {
+                        if (m.getCallBack() != null) {
+                            m.getCallBack().onComplete(true);
+                        }
+                    }
+                }
+                if (pendingFile != null) {
+                    // 由内核直接从文件写到 socket
+                    FileRegion region = (FileRegion) pendingFile.getData();
+                    region.transferTo(channel);
+                    if (!region.isDone()) {
+                        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                        return;
+                    }
+                    SendMessage f = pendingFile;
+                    pendingFile = null;
+                    f.release();
+                    if (f.getCallBack() != null) {
+                        f.getCallBack().onComplete(true);
+                    }
+                }
+            }
+            releaseWriteBuffer();
+            if ((key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            }
+        } catch (IOException ex) {
+            SendMessage m;
+            while ((m = pendingMessages.poll()) != null) {
+                if (m.getCallBack() != null) {
+                    m.getCallBack().onError(ex);
+                }
+            }
+            failPendingFile(ex);
+            pendingWrite = null;
+            delegateException(ex, ERROR_SEND);
+            close();
+        }
+    }
+
+    /**
+     * 从发送队列中取出报文编码到 writeBuffer，直到队列为空或者超过 {@link #MAX_GATHER_SIZE}.
+     *
+     * @return 待写出的数据，队列为空时返回 null
+     */
+    private ByteBuffer gather() {
+        ByteBuffer buffer = null;
+        SendMessage m;
+        while ((m = sendingQueue.peek()) != null) {
+            Object data = m.getData();
+            if (data instanceof FileRegion) {
+                if (pipeline != null && pipeline.hasOutbound()) {
+                    sendingQueue.poll();
+                    sendQueueCounter.remove(m.getSize());
+                    IOException e = new IOException(
+                            "File regions can not pass through the codec pipeline.");
+                    delegateException(e, ERROR_SEND);
+                    m.release();
+                    if (m.getCallBack() != null) {
+                        m.getCallBack().onError(e);
+                    }
+                    continue;
+                }
+                int size = ((FileRegion) data).header().getLength();
+                if (buffer == null) {
+                    buffer = acquireWriteBuffer(MAX_GATHER_SIZE);
+                } else if (buffer.remaining() < size) {
+                    break;
+                }
+                // 头部和前面的报文一起写出，之后写文件内容
+                sendingQueue.poll();
+                sendQueueCounter.remove(m.getSize());
+                ((FileRegion) data).encodeHeader(buffer);
+                pendingFile = m;
+                break;
+            }
+            if (data instanceof IMessage && pipeline != null && pipeline.hasOutbound()) {
+                // 编码器可能有状态，每个报文只编码一次，放不下时留到下一次写
+                try {
+                    data = pipeline.encode((IMessage) data);
+                } catch (IOException e) {
+                    sendingQueue.poll();
+                    sendQueueCounter.remove(m.getSize());
+                    delegateException(e, ERROR_SEND);
+                    m.release();
+                    if (m.getCallBack() != null) {
+                        m.getCallBack().onError(e);
+                    }
+                    continue;
+                }
+                m.release();
+                m.setData(data);
+            }
+            int size;
+            if (data instanceof IMessage) {
+                size = ((IMessage) data).encodedSize();
+            } else if (data instanceof byte[]) {
+                size = ((byte[]) data).length;
+            } else if (data instanceof ByteBuffer) {
+                size = ((ByteBuffer) data).remaining();
+            } else {
+                sendingQueue.poll();
+                sendQueueCounter.remove(m.getSize());
+                delegateException(NOT_SUPPORT_TYPE, ERROR_SEND);
+                m.release();
+                if (m.getCallBack() != null) {
+                    m.getCallBack().onError(NOT_SUPPORT_TYPE);
+                }
+                continue;
+            }
+            if (buffer == null) {
+                buffer = acquireWriteBuffer(Math.max(size, MAX_GATHER_SIZE));
+            } else if (buffer.remaining() < size) {
+                break;
+            }
+            sendingQueue.poll();
+            sendQueueCounter.remove(m.getSize());
+            try {
+                if (data instanceof IMessage) {
+                    ((IMessage) data).encodeTo(buffer);
+                } else if (data instanceof ByteBuffer) {
+                    buffer.put(((ByteBuffer) data).duplicate());
+                } else {
+                    buffer.put((byte[]) data);
+                }
+            } finally {
+                // 已经编码到 writeBuffer，可以释放了
+                m.release();
+            }
+            pendingMessages.add(m);
+        }
+        if (buffer == null) {
+            return null;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private ByteBuffer acquireWriteBuffer(int size) {
+        if (writeBuffer != null && writeBuffer.capacity() < size) {
+            releaseWriteBuffer();
+        }
+        if (writeBuffer == null) {
+            writeBuffer = BufferPool.DEFAULT.acquire(size);
+        }
+        ByteBuffer buffer = writeBuffer.buffer();
+        buffer.clear();
+        return buffer;
+    }
+
+    private void releaseWriteBuffer() {
+        if (writeBuffer != null) {
+            writeBuffer.release();
+            writeBuffer = null;
+        }
+    }
+
+    /**
+     * 关闭连接，在 EventLoop 线程中调用。
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (idleMonitor != null) {
+            idleMonitor.stop();
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        StreamUtils.closeQuietly(channel);
+        eventLoop.deregister(this);
+
+        ClosedChannelException cause = new ClosedChannelException();
+        SendMessage m;
+        while ((m = pendingMessages.poll()) != null) {
+            if (m.getCallBack() != null) {
+                m.getCallBack().onError(cause);
+            }
+        }
+        failPendingFile(cause);
+        pendingWrite = null;
+        releaseWriteBuffer();
+        failSendingQueue(cause);
+        if (handler != null) {
+            handler.onClose(ctx);
+        }
+        log.debug("channel for {} is closed.", remoteAddress);
+    }
+
+    /**
+     * 清空发送队列，释放报文并通知回调失败，可以在任意线程中调用.
+     *
+     * @param cause 原因
+     */
+    private void failSendingQueue(Throwable cause) {
+        SendMessage m;
+        while ((m = sendingQueue.poll()) != null) {
+            sendQueueCounter.remove(m.getSize());
+            m.release();
+            if (m.getCallBack() != null) {
+                m.getCallBack().onError(cause);
+            }
+        }
+    }
+
+    private void failPendingFile(Throwable cause) {
+        SendMessage f = pendingFile;
+        if (f != null) {
+            pendingFile = null;
+            f.release();
+            if (f.getCallBack() != null) {
+                f.getCallBack().onError(cause);
+            }
+        }
+    }
+
+    private void delegateException(Throwable e, int code) {
+        if (handler != null) {
+            handler.onError(code, e, ctx);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package me.asu.socket.server;
+
+import java.util.concurrent.RejectedExecutionException;
+import lombok.Data;
+import me.asu.socket.util.FileRegion;
+import me.asu.socket.util.ReferenceCounted;
+import me.asu.socket.util.SendQueueLimits;
+
+/**
+ * 发送队列中的数据.
+ *
+ * @author Suk
+ * @since 2018/11/13
+ */
+@Data
+class SendMessage {
+
+    /** 只用于触发 flush，不带数据. */
+    static final SendMessage FLUSH = new SendMessage(null, null, true);
+    /** 发送队列已满时回调的异常. */
+    static final RejectedExecutionException QUEUE_FULL = new RejectedExecutionException(
+            "send queue is full");
+
+    Object       data;
+    SendCallBack callBack;
+    /** 写入后是否需要 flush. */
+    boolean      flush;
+    /** 入队时的字节数，出队时按这个数扣减. */
+    int          size;
+
+    public SendMessage(Object data, SendCallBack callBack) {
+        this(data, callBack, true);
+    }
+
+    public SendMessage(Object data, SendCallBack callBack, boolean flush) {
+        this.data = data;
+        this.callBack = callBack;
+        this.flush = flush;
+        this.size = SendQueueLimits.sizeOf(data);
+    }
+
+    /**
+     * 数据写出（或者发送失败）后调用，释放引用计数的数据.
+     */
+    void release() {
+        if (data instanceof ReferenceCounted && ((ReferenceCounted) data).refCnt() > 0) {
+            ((ReferenceCounted) data).release();
+        } else if (data instanceof FileRegion) {
+            ((FileRegion) data).close();
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package me.asu.socket.server;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.concurrent.*;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.codec.CodecPipeline;
+import me.asu.socket.util.FrameSizeLimits;
+import me.asu.socket.util.IdleTimeouts;
+import me.asu.socket.util.SendQueueLimits;
+import me.asu.socket.util.SpillPolicy;
+import me.asu.socket.util.StripedExecutor;
+import me.asu.socket.util.VirtualThreads;
 import me.asu.util.NamedThreadFactory;
 import me.asu.util.Strings;
 
 /**
- * 用于低并发，高吞吐量场景。
+ * 默认 {@link IoMode#BLOCKING} 模式用于低并发，高吞吐量场景；
+ * 连接数较多时使用 {@link IoMode#NIO} 模式，由少量 {@link EventLoop} 线程处理所有连接。
  *
  * @author Suk
  * @since 2018/11/13
@@ -28,6 +39,23 @@ public class Server implements Runnable {
     private ExecutorService boss;
     private Handler         handler;
     private int readTimeout = 90000;
+    private IoMode              ioMode       = IoMode.BLOCKING;
+    /** NIO 模式下 worker 事件循环的数量，默认为 CPU 核数. */
+    private int                 workerCount  = Runtime.getRuntime().availableProcessors();
+    private ServerSocketChannel serverChannel;
+    private EventLoop[]         eventLoops;
+    /** 每个连接发送队列的限制. */
+    private SendQueueLimits     sendQueueLimits = SendQueueLimits.DEFAULT;
+    /** 空闲检测，为 null 时用 readTimeout 作为读空闲时间. */
+    private IdleTimeouts        idleTimeouts;
+    /** 阻塞模式下 {@link Handler} 回调的分道线程池，为 null 时使用 {@link StripedExecutor#getDefault()}. */
+    private StripedExecutor     dispatchExecutor;
+    /** 为每个连接创建编解码流水线，为 null 时直接按报文格式收发. */
+    private CodecPipeline.Initializer codecInitializer;
+    /** 大报文体落盘的设置，为 null 时报文体都在堆中. */
+    private SpillPolicy         spillPolicy;
+    /** 按 cmdId 的报文体长度限制，为 null 时不限制. */
+    private FrameSizeLimits     frameSizeLimits;
 
     public Server() {
         this("0.0.0.0", 0);
@@ -59,6 +87,108 @@ public class Server implements Runnable {
         return this;
     }
 
+    public Server withIoMode(IoMode ioMode) {
+        if (ioMode == IoMode.VIRTUAL && this.ioMode != IoMode.VIRTUAL) {
+            if (!VirtualThreads.isSupported()) {
+                throw new UnsupportedOperationException(
+                        "IoMode.VIRTUAL requires JDK 21+, current: " + System
+                                .getProperty("java.version"));
+            }
+            ioExecutor.shutdown();
+            ioExecutor = VirtualThreads.newThreadPerTaskExecutor("socket-serverSocket-virtual");
+        }
+        this.ioMode = ioMode;
+        return this;
+    }
+
+    public Server withWorkerCount(int workerCount) {
+        if (workerCount <= 0) {
+            throw new IllegalArgumentException("workerCount must be positive (" + workerCount + ")");
+        }
+        this.workerCount = workerCount;
+        return this;
+    }
+
+    public Server withSendQueueLimits(SendQueueLimits sendQueueLimits) {
+        if (sendQueueLimits == null) {
+            throw new IllegalArgumentException("sendQueueLimits is null");
+        }
+        this.sendQueueLimits = sendQueueLimits;
+        return this;
+    }
+
+    /**
+     * 设置阻塞模式下 {@link Handler} 回调使用的分道线程池，同一个连接固定在一个通道上按顺序回调.
+     * NIO 模式的回调在连接所属的 {@link EventLoop} 上执行，不受影响.
+     *
+     * @param dispatchExecutor StripedExecutor
+     * @return this
+     */
+    public Server withDispatchExecutor(StripedExecutor dispatchExecutor) {
+        this.dispatchExecutor = dispatchExecutor;
+        return this;
+    }
+
+    /**
+     * 设置编解码流水线，每个新连接调用一次 initializer 创建自己的 {@link CodecPipeline}.
+     * 两种 IO 模式都生效，客户端需要设置对应的流水线.
+     *
+     * @param initializer 为 null 时直接按报文格式收发
+     * @return this
+     */
+    public Server withCodec(CodecPipeline.Initializer initializer) {
+        this.codecInitializer = initializer;
+        return this;
+    }
+
+    /**
+     * 设置大报文体落盘：报文体超过阈值时边接收边写入临时文件的内存映射，不在堆中分配.
+     * 只对 {@link Handler#createMessage()} 返回 {@link me.asu.socket.message.SliceProtoMessage}
+     * 且没有入站编解码阶段的连接生效，Handler 通过 bodySlice() 或 bodyStream() 读取，onRecv 返回后由框架释放.
+     *
+     * @param spillPolicy 为 null 时不落盘
+     * @return this
+     */
+    public Server withSpillPolicy(SpillPolicy spillPolicy) {
+        this.spillPolicy = spillPolicy;
+        return this;
+    }
+
+    /**
+     * 设置按 cmdId 的报文体长度限制：读到报文头就检查，超长的报文体边接收边丢弃，不占用内存，
+     * 然后按 {@link FrameSizeLimits.Action} 回复 {@link CommandDispatcher#CODE_TOO_LARGE}、忽略或关闭连接.
+     * 有入站编解码阶段的连接由切帧器的最大帧长度限制.
+     *
+     * @param frameSizeLimits 为 null 时不限制
+     * @return this
+     */
+    public Server withFrameSizeLimits(FrameSizeLimits frameSizeLimits) {
+        this.frameSizeLimits = frameSizeLimits;
+        return this;
+    }
+
+    /**
+     * 设置空闲检测，超时后调用 {@link Handler#onIdle}，0 表示不检测对应的类型.
+     * 不设置时用 readTimeout 作为读空闲时间.
+     *
+     * @param readerIdle 读空闲时间
+     * @param writerIdle 写空闲时间
+     * @param allIdle    读写空闲时间
+     * @param unit       单位
+     * @return this
+     */
+    public Server withIdleTimeout(long readerIdle, long writerIdle, long allIdle, TimeUnit unit) {
+        this.idleTimeouts = new IdleTimeouts(readerIdle, writerIdle, allIdle, unit);
+        return this;
+    }
+
+    private IdleTimeouts idleTimeouts() {
+        if (idleTimeouts != null) {
+            return idleTimeouts;
+        }
+        return new IdleTimeouts(readTimeout, 0, 0, TimeUnit.MILLISECONDS);
+    }
+
     public static void main(String[] args) {
         Server server = new Server();
         server.start();
@@ -86,15 +216,66 @@ public class Server implements Runnable {
      */
     @Override
     public void run() {
+        if (ioMode == IoMode.NIO) {
+            runNio();
+            return;
+        }
         try {
             // establish a connection
             serverSocket = new ServerSocket(this.port);
             realPort = serverSocket.getLocalPort();
             log.info("Server running and listening on port : " + realPort);
             running = true;
+            IdleTimeouts idle = idleTimeouts();
             while (running) {
                 Socket s = serverSocket.accept();
-                ioExecutor.execute(new Worker(s, handler, readTimeout));
+                Worker worker;
+                if (ioMode == IoMode.VIRTUAL) {
+                    worker = new Worker(s, handler, readTimeout, ioExecutor, dispatchExecutor,
+                            sendQueueLimits);
+                } else {
+                    worker = new Worker(s, handler, readTimeout, null, dispatchExecutor,
+                            sendQueueLimits);
+                }
+                worker.setIdleTimeouts(idle);
+                worker.setCodecPipeline(CodecPipeline.create(codecInitializer));
+                worker.setSpillPolicy(spillPolicy);
+                worker.setFrameSizeLimits(frameSizeLimits);
+                ioExecutor.execute(worker);
+            }
+        } catch (Exception e) {
+            log.warn("Shutting down the serverSocket..");
+        }
+    }
+
+    /**
+     * 一个 boss 线程阻塞 accept，新连接轮流分配给 worker 事件循环。
+     */
+    private void runNio() {
+        try {
+            eventLoops = new EventLoop[workerCount];
+            for (int i = 0; i < workerCount; i++) {
+                eventLoops[i] = new EventLoop();
+                eventLoops[i].setSpillPolicy(spillPolicy);
+                eventLoops[i].setFrameSizeLimits(frameSizeLimits);
+                ioExecutor.execute(eventLoops[i]);
+            }
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.socket().setReuseAddress(true);
+            serverChannel.bind(new InetSocketAddress(this.port));
+            realPort = serverChannel.socket().getLocalPort();
+            log.info("Server(nio, {} workers) running and listening on port : {}", workerCount,
+                    realPort);
+            running = true;
+            IdleTimeouts idle = idleTimeouts();
+            int next = 0;
+            while (running) {
+                SocketChannel ch = serverChannel.accept();
+                ch.configureBlocking(false);
+                ch.socket().setTcpNoDelay(true);
+                eventLoops[next].register(ch, handler, sendQueueLimits, idle,
+                        CodecPipeline.create(codecInitializer));
+                next = (next + 1) % eventLoops.length;
             }
         } catch (Exception e) {
             log.warn("Shutting down the serverSocket..");
@@ -105,6 +286,9 @@ public class Server implements Runnable {
      * Checks if the serverSocket is running.
      */
     public boolean isRunning() {
+        if (serverChannel != null) {
+            return running && serverChannel.isOpen();
+        }
         return running && !serverSocket.isClosed();
     }
 
@@ -116,6 +300,16 @@ public class Server implements Runnable {
         if (serverSocket != null) {
             serverSocket.close();
         }
+        if (serverChannel != null) {
+            serverChannel.close();
+        }
+        if (eventLoops != null) {
+            for (EventLoop loop : eventLoops) {
+                if (loop != null) {
+                    loop.shutdown();
+                }
+            }
+        }
         if (boss != null) {
             boss.shutdown();
         }
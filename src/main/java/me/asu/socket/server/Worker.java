@@ -6,18 +6,39 @@ package me.asu.socket.server;
 import static me.asu.socket.Constants.*;
 
 import java.io.*;
+import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
+import me.asu.socket.codec.CodecPipeline;
+import me.asu.socket.message.Heartbeat;
 import me.asu.socket.message.IMessage;
+import me.asu.socket.message.IProtoMessage;
+import me.asu.socket.message.MessageBatch;
 import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.util.FileRegion;
+import me.asu.socket.util.FrameSizeLimits;
+import me.asu.socket.util.HashedWheelTimer;
+import me.asu.socket.util.IdleMonitor;
+import me.asu.socket.util.IdleMonitor.IdleState;
+import me.asu.socket.util.IdleTimeouts;
+import me.asu.socket.util.SendQueueCounter;
+import me.asu.socket.util.SendQueueLimits;
+import me.asu.socket.util.SpillPolicy;
 import me.asu.socket.util.Stream;
+import me.asu.socket.util.StripedExecutor;
 import me.asu.util.*;
 import rx.Observable;
 import rx.Observable.OnSubscribe;
+import rx.Scheduler;
 import rx.Subscriber;
+import rx.functions.Action0;
 import rx.schedulers.Schedulers;
 
 /**
@@ -25,8 +46,12 @@ import rx.schedulers.Schedulers;
  */
 @Slf4j
 @Getter
-public class Worker implements Runnable {
+public class Worker implements Runnable, Connection {
     private static final RuntimeException NOT_SUPPORT_TYPE = new RuntimeException( "not support data type");
+    /** 发送线程一次从队列中取出的最大报文数. */
+    private static final int MAX_SEND_BATCH = 256;
+    /** 每个连接交给回调线程、还没处理完的最大报文数. */
+    private static final int MAX_PENDING_DISPATCH = 128;
     private static final UnsafeReferenceFieldUpdater<BufferedReader, Reader> READER_UPDATER = UnsafeUpdater
             .newReferenceFieldUpdater(BufferedReader.class, "in");
     private static final UnsafeReferenceFieldUpdater<PrintWriter, Writer>    WRITER_UPDATER = UnsafeUpdater
@@ -41,34 +66,211 @@ public class Worker implements Runnable {
     ChannelContext ctx;
     int readTimeout = 0;
     private BlockingDeque<SendMessage> sendingQueue = new LinkedBlockingDeque<SendMessage>();
+    /** 发送队列的字节数和报文数限制. */
+    private final SendQueueCounter sendQueueCounter;
+    /** 空闲检测的设置，在 {@link #run()} 之前设置. */
+    @Setter
+    private IdleTimeouts idleTimeouts;
+    private IdleMonitor  idleMonitor;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    /** 发送循环所在的线程，取出报文后直接在这个线程写出. */
+    private final Scheduler sendScheduler;
+    /** {@link Handler} 回调所在的线程，同一个连接的回调按顺序执行. */
+    private final Executor  dispatchExecutor;
+    /** 交给 dispatchExecutor 还没处理完的报文数上限，超过时读线程等待. */
+    private final Semaphore dispatchPermits = new Semaphore(MAX_PENDING_DISPATCH);
 
     /**
      * @param socket
      * @param handler
      */
     public Worker(final Socket socket, Handler handler, int readTimeout) throws IOException {
+        this(socket, handler, readTimeout, null);
+    }
+
+    /**
+     * @param socket
+     * @param handler
+     * @param executor 发送和回调使用的线程池，为 null 时发送使用 RxJava 的 newThread 调度器，
+     *                 回调使用 {@link StripedExecutor#getDefault()}；如虚拟线程池 {@link me.asu.socket.util.VirtualThreads#newThreadPerTaskExecutor(String)}
+     */
+    public Worker(final Socket socket, Handler handler, int readTimeout, Executor executor)
+            throws IOException {
+        this(socket, handler, readTimeout, executor, SendQueueLimits.DEFAULT);
+    }
+
+    /**
+     * @param socket
+     * @param handler
+     * @param executor 发送和回调使用的线程池，为 null 时同上
+     * @param limits   发送队列的限制
+     */
+    public Worker(final Socket socket, Handler handler, int readTimeout, Executor executor,
+            SendQueueLimits limits) throws IOException {
+        this(socket, handler, readTimeout, executor, null, limits);
+    }
+
+    /**
+     * @param socket
+     * @param handler
+     * @param executor         发送使用的线程池，为 null 时使用 RxJava 的 newThread 调度器
+     * @param dispatchExecutor 回调使用的分道线程池，按 {@link ChannelContext} 选择通道；
+     *                         为 null 时：executor 不为 null 则回调也使用 executor，
+     *                         否则使用 {@link StripedExecutor#getDefault()}
+     * @param limits           发送队列的限制
+     */
+    public Worker(final Socket socket, Handler handler, int readTimeout, Executor executor,
+            StripedExecutor dispatchExecutor, SendQueueLimits limits) throws IOException {
         this.socket = socket;
         this.readTimeout = readTimeout;
         this.stream = new Stream(socket);
         this.stream.setReadTimeout(this.readTimeout);
         this.ctx = new ChannelContext(this);
+        this.sendScheduler = executor == null ? Schedulers.newThread() : Schedulers.from(executor);
+        if (dispatchExecutor != null) {
+            this.dispatchExecutor = dispatchExecutor.lane(ctx);
+        } else if (executor != null) {
+            this.dispatchExecutor = serial(executor);
+        } else {
+            this.dispatchExecutor = StripedExecutor.getDefault().lane(ctx);
+        }
         this.handler = handler;
+        this.sendQueueCounter = new SendQueueCounter(limits, new SendQueueCounter.Listener() {
+            @Override
+            public void onWritabilityChanged(boolean writable) {
+                if (Worker.this.handler != null) {
+                    Worker.this.handler.onWritabilityChanged(ctx);
+                }
+            }
+        });
         if (handler != null) {
             handler.onOpen(this.ctx);
         }
     }
 
+    /**
+     * 在 executor 中按提交顺序逐个执行任务.
+     */
+    private static Executor serial(Executor executor) {
+        final Scheduler.Worker w = Schedulers.from(executor).createWorker();
+        return new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                w.schedule(new Action0() {
+                    @Override
+                    public void call() {
+                        command.run();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * 设置这个连接的编解码流水线，在 {@link #run()} 之前设置.
+     *
+     * @param pipeline 为 null 时直接按报文格式收发
+     */
+    public void setCodecPipeline(CodecPipeline pipeline) {
+        stream.setPipeline(pipeline);
+    }
+
+    /**
+     * 设置大报文体落盘，在 {@link #run()} 之前设置.
+     *
+     * @param spillPolicy 为 null 时不落盘
+     */
+    public void setSpillPolicy(SpillPolicy spillPolicy) {
+        stream.setSpillPolicy(spillPolicy);
+    }
+
+    /**
+     * 设置报文体长度限制，超长的报文体不缓冲，按 {@link FrameSizeLimits#getAction()} 处理.
+     *
+     * @param limits 为 null 时不限制
+     */
+    public void setFrameSizeLimits(final FrameSizeLimits limits) {
+        if (limits == null) {
+            stream.setFrameSizeLimits(null, null);
+            return;
+        }
+        stream.setFrameSizeLimits(limits, new FrameSizeLimits.Listener() {
+            @Override
+            public void onOversized(ProtoMessageHeader header, int maxBodyLength) {
+                log.warn("{}: cmdId {} body length {} exceeds {}, discarded.", ctx.getAddress(),
+                        header.cmdId, header.bodyLen, maxBodyLength);
+                switch (limits.getAction()) {
+                    case REJECT:
+                        ProtoMessage response = CommandDispatcher
+                                .codeResponse(header, CommandDispatcher.CODE_TOO_LARGE);
+                        if (response != null) {
+                            addSendData(response);
+                        }
+                        break;
+                    case CLOSE:
+                        shutdown();
+                        break;
+                    default:
+                        break;
+                }
+            }
+        });
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return (InetSocketAddress) socket.getRemoteSocketAddress();
+    }
+
+    @Override
     public void addSendData(Object data) {
-        sendingQueue.add(new SendMessage(data, null));
+        enqueue(new SendMessage(data, null));
     }
 
+    @Override
     public void addSendData(Object data, SendCallBack callBack) {
-        sendingQueue.add(new SendMessage(data, callBack));
+        enqueue(new SendMessage(data, callBack));
     }
 
+    @Override
+    public void write(Object data, SendCallBack callBack) {
+        enqueue(new SendMessage(data, callBack, false));
+    }
+
+    @Override
+    public boolean isWritable() {
+        return sendQueueCounter.isWritable();
+    }
+
+    private void enqueue(SendMessage m) {
+        if (!sendQueueCounter.tryAdd(m.getSize())) {
+            m.release();
+            if (m.getCallBack() != null) {
+                m.getCallBack().onError(SendMessage.QUEUE_FULL);
+            }
+            delegateException(SendMessage.QUEUE_FULL, ERROR_QUEUE_FULL);
+            return;
+        }
+        sendingQueue.add(m);
+    }
+
+    @Override
+    public void flush() {
+        sendingQueue.add(SendMessage.FLUSH);
+    }
+
+    @Override
     public void shutdown() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
         log.info("worker for {} is shutting down...", ctx.getAddress());
         this.running = false;
+        if (idleMonitor != null) {
+            idleMonitor.stop();
+        }
+        // 唤醒发送线程退出
+        sendingQueue.add(SendMessage.FLUSH);
         if (stream != null && !stream.isClosed()) {
             StreamUtils.closeQuietly(stream);
             stream = null;
@@ -82,21 +284,32 @@ public class Worker implements Runnable {
     @Override
     public void run() {
         running = true;
-        Observable.create(new OnSubscribe<SendMessage>() {
+        startIdleMonitor();
+        Observable.create(new OnSubscribe<List<SendMessage>>() {
             @Override
-            public void call(Subscriber<? super SendMessage> subscriber) {
+            public void call(Subscriber<? super List<SendMessage>> subscriber) {
                 try {
                     while (running) {
+                        // 一次取出队列中所有的报文，合并写出
                         SendMessage m = sendingQueue.take();
-                        subscriber.onNext(m);
+                        if (!running) {
+                            break;
+                        }
+                        List<SendMessage> batch = new ArrayList<SendMessage>();
+                        batch.add(m);
+                        sendingQueue.drainTo(batch, MAX_SEND_BATCH - 1);
+                        subscriber.onNext(batch);
                     }
                     subscriber.onCompleted();
                 } catch (Exception e) {
                     subscriber.onError(e);
                 }
             }
-        }).observeOn(Schedulers.io()).subscribeOn(Schedulers.newThread())
-                  .subscribe(new Subscriber<SendMessage>() {
+        }).subscribeOn(sendScheduler)
+                  .subscribe(new Subscriber<List<SendMessage>>() {
+                      /** 已经写入 stream 缓冲区、等待 flush 的报文. */
+                      private final List<SendMessage> unflushed = new ArrayList<SendMessage>();
+
                       @Override
                       public void onCompleted() {
 
@@ -112,26 +325,70 @@ public class Worker implements Runnable {
                       }
 
                       @Override
-                      public void onNext(SendMessage m) {
+                      public void onNext(List<SendMessage> batch) {
+                          int i = 0;
                           try {
-                              if (m.getData() instanceof IMessage) {
-                                  stream.write((IMessage) m.getData());
-                                  if (m.getCallBack() != null) {
-                                      m.getCallBack().onComplete(true);
+                              boolean needFlush = false;
+                              for (; i < batch.size(); i++) {
+                                  SendMessage m = batch.get(i);
+                                  needFlush |= m.isFlush();
+                                  if (m.getData() == null) {
+                                      continue;
                                   }
-                              } else if (m.getData() instanceof byte[]) {
-                                  stream.write((byte[]) m.getData());
-                                  if (m.getCallBack() != null) {
-                                      m.getCallBack().onComplete(true);
+                                  sendQueueCounter.remove(m.getSize());
+                                  Object data = m.getData();
+                                  if (!(data instanceof IMessage || data instanceof byte[]
+                                          || data instanceof FileRegion)) {
+                                      m.release();
+                                      if (m.getCallBack() != null) {
+                                          m.getCallBack().onError(NOT_SUPPORT_TYPE);
+                                      }
+                                      delegateException(NOT_SUPPORT_TYPE, ERROR_SEND);
+                                      continue;
+                                  }
+                                  // 写入失败时也要回调
+                                  unflushed.add(m);
+                                  try {
+                                      if (data instanceof IMessage) {
+                                          stream.append((IMessage) data);
+                                      } else if (data instanceof byte[]) {
+                                          stream.append((byte[]) data);
+                                      } else {
+                                          stream.writeFile((FileRegion) data);
+                                      }
+                                  } finally {
+                                      m.release();
                                   }
-                              } else {
-
-                                  delegateException(NOT_SUPPORT_TYPE, ERROR_SEND);
+                              }
+                              if (needFlush) {
+                                  stream.flush();
+                                  if (idleMonitor != null) {
+                                      idleMonitor.touchWrite();
+                                  }
+                                  for (SendMessage m : unflushed) {
+                                      if (m.getCallBack() != null) {
+                                          m.getCallBack().onComplete(true);
+                                      }
+                                  }
+                                  unflushed.clear();
                               }
                           } catch (IOException ex) {
-                              if (m.getCallBack() != null) {
-                                  m.getCallBack().onError(ex);
+                              // 没写出去的都算失败
+                              for (int j = i + 1; j < batch.size(); j++) {
+                                  SendMessage m = batch.get(j);
+                                  if (m.getData() == null) {
+                                      continue;
+                                  }
+                                  sendQueueCounter.remove(m.getSize());
+                                  m.release();
+                                  unflushed.add(m);
                               }
+                              for (SendMessage m : unflushed) {
+                                  if (m.getCallBack() != null) {
+                                      m.getCallBack().onError(ex);
+                                  }
+                              }
+                              unflushed.clear();
                               delegateException(ex, ERROR_SEND);
                           } catch (IllegalStateException ex) {
                               delegateException(ex, ERROR_SEND);
@@ -140,69 +397,148 @@ public class Worker implements Runnable {
                       }
                   });
 
-        Observable.create(new OnSubscribe<IMessage>() {
-            @Override
-            public void call(Subscriber<? super IMessage> subscriber) {
-                try {
-                    boolean occurredError = false;
-                    while (running) {
-                        IMessage box;
-                        if (Worker.this.handler != null) {
-                            box = handler.createMessage();
-                        } else {
-                            box = new ProtoMessage();
-                        }
-                        if (Worker.this.stream.read(box)) {
-                            subscriber.onNext(box);
-                        } else {
-                            IllegalStateException e = new IllegalStateException(
-                                    "A error occurred when receiving data.");
-                            subscriber.onError(e);
-                            occurredError = true;
-                            break;
-                        }
+        readLoop();
+    }
+
+    /**
+     * 读循环，在调用 {@link #run()} 的线程中执行.
+     * 报文直接交给 dispatchExecutor 回调；交出未处理完的报文达到 {@link #MAX_PENDING_DISPATCH} 个时
+     * 阻塞读取，等 Handler 跟上，不会因为共用通道的其他连接阻塞而丢弃报文或断开连接。
+     * 心跳的 ping 在读线程中直接回复，不排在 Handler 的积压之后。
+     */
+    private void readLoop() {
+        Throwable error = null;
+        try {
+            while (running) {
+                IMessage box;
+                if (Worker.this.handler != null) {
+                    box = handler.createMessage();
+                } else {
+                    box = new ProtoMessage();
+                }
+                if (!Worker.this.stream.read(box)) {
+                    box.recycle();
+                    error = new IllegalStateException("A error occurred when receiving data.");
+                    break;
+                }
+                if (idleMonitor != null) {
+                    idleMonitor.touchRead();
+                }
+                if (Heartbeat.isPing(box)) {
+                    // 心跳直接回复，不交给 handler
+                    addSendData(Heartbeat.pong((IProtoMessage) box));
+                    box.recycle();
+                    continue;
+                }
+                if (!acquireDispatchPermit()) {
+                    box.recycle();
+                    break;
+                }
+                dispatch(box);
+            }
+        } catch (Exception e) {
+            error = e;
+        }
+        if (error != null) {
+            final Throwable cause = error;
+            // 排在已经交出的报文之后处理
+            try {
+                dispatchExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onReadError(cause);
                     }
-                    if (!occurredError) {
-                        subscriber.onCompleted();
+                });
+            } catch (RejectedExecutionException e) {
+                onReadError(cause);
+            }
+        }
+    }
+
+    private boolean acquireDispatchPermit() throws InterruptedException {
+        while (!dispatchPermits.tryAcquire(100, TimeUnit.MILLISECONDS)) {
+            if (!running) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void dispatch(final IMessage box) {
+        try {
+            dispatchExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        onRecv(box);
+                    } catch (Exception e) {
+                        onReadError(e);
+                    } finally {
+                        box.recycle();
+                        dispatchPermits.release();
                     }
-                } catch (Exception e) {
-                    subscriber.onError(e);
                 }
-            }
-        }).observeOn(Schedulers.io()).subscribeOn(Schedulers.immediate())
-                  .subscribe(new Subscriber<IMessage>() {
-                      @Override
-                      public void onCompleted() {
+            });
+        } catch (RejectedExecutionException e) {
+            box.recycle();
+            dispatchPermits.release();
+            throw e;
+        }
+    }
 
-                      }
+    private void onRecv(IMessage box) {
+        if (MessageBatch.isBatch(box)) {
+            if (Worker.this.handler != null) {
+                Worker.this.handler.onRecvBatch(MessageBatch.read((IProtoMessage) box), getCtx());
+            }
+        } else if (Worker.this.handler != null) {
+            Worker.this.handler.onRecv(box, getCtx());
+        }
+    }
 
-                      @Override
-                      public void onError(Throwable e) {
-                          if (e instanceof TimeoutException) {
-                              delegateException(e, ERROR_TIMEOUT);
-                          } else if (e instanceof IllegalStateException) {
-                              delegateException(e, ERROR_CLOSED);
-                          } else if (e instanceof SocketException) {
-                              if ("Connection reset".equals(e.getMessage())) {
-                                  // 客户端断开。
-                                  delegateException(e, ERROR_CLOSED);
-                              } else {
-                                  delegateException(e, ERROR_RECV);
-                              }
-                          } else {
-                              delegateException(e, ERROR_RECV);
-                          }
+    private void onReadError(Throwable e) {
+        if (closed.get()) {
+            // 本端已经关闭，读线程随之退出
+            return;
+        }
+        if (e instanceof TimeoutException) {
+            delegateException(e, ERROR_TIMEOUT);
+        } else if (e instanceof IllegalStateException) {
+            delegateException(e, ERROR_CLOSED);
+        } else if (e instanceof SocketException) {
+            if ("Connection reset".equals(e.getMessage())) {
+                // 客户端断开。
+                delegateException(e, ERROR_CLOSED);
+            } else {
+                delegateException(e, ERROR_RECV);
+            }
+        } else {
+            delegateException(e, ERROR_RECV);
+        }
 
-                          shutdown();
-                      }
+        shutdown();
+    }
 
-                      @Override
-                      public void onNext(IMessage box) {
-                          if (Worker.this.handler != null) {
-                              Worker.this.handler.onRecv(box, getCtx());
-                          }
-                      }
-                  });
+    private void startIdleMonitor() {
+        if (idleTimeouts == null || !idleTimeouts.isEnabled()) {
+            return;
+        }
+        idleMonitor = new IdleMonitor(HashedWheelTimer.DEFAULT, idleTimeouts,
+                new IdleMonitor.Listener() {
+                    @Override
+                    public void onIdle(final IdleState state) {
+                        // 在回调线程中通知，不占用定时器线程
+                        dispatchExecutor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (running && handler != null) {
+                                    handler.onIdle(getCtx(), state);
+                                }
+                            }
+                        });
+                    }
+                });
+        idleMonitor.start();
     }
 
     private void delegateException(Throwable e, int errorTimeout) {
@@ -210,16 +546,4 @@ public class Worker implements Runnable {
             handler.onError(errorTimeout, e, getCtx());
         }
     }
-
-    @Data
-    class SendMessage {
-
-        Object       data;
-        SendCallBack callBack;
-
-        public SendMessage(Object data, SendCallBack callBack) {
-            this.data = data;
-            this.callBack = callBack;
-        }
-    }
 }
@@ -0,0 +1,56 @@
+package me.asu.socket.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AbstractReferenceCounted.
+ * 引用计数的基类，初始计数为 1，降为 0 时调用 {@link #deallocate()}。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public abstract class AbstractReferenceCounted implements ReferenceCounted {
+
+    private final AtomicInteger refCnt = new AtomicInteger(1);
+
+    @Override
+    public int refCnt() {
+        return refCnt.get();
+    }
+
+    @Override
+    public ReferenceCounted retain() {
+        for (; ; ) {
+            int current = refCnt.get();
+            if (current <= 0) {
+                throw new IllegalStateException("refCnt: " + current + ", already released.");
+            }
+            if (refCnt.compareAndSet(current, current + 1)) {
+                return this;
+            }
+        }
+    }
+
+    @Override
+    public boolean release() {
+        for (; ; ) {
+            int current = refCnt.get();
+            if (current <= 0) {
+                throw new IllegalStateException("refCnt: " + current + ", already released.");
+            }
+            if (refCnt.compareAndSet(current, current - 1)) {
+                if (current == 1) {
+                    deallocate();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 引用计数降为 0 时释放资源.
+     */
+    protected abstract void deallocate();
+}
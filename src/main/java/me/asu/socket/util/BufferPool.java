@@ -0,0 +1,154 @@
+package me.asu.socket.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BufferPool.
+ * 按大小分级的直接内存缓冲区池，用于 NIO 的读写。
+ * <ul>
+ * <li>大小分级：512 字节到 64K，每级 2 倍，申请时向上取整到所在级别。</li>
+ * <li>每个线程有自己的小缓存，申请和归还大多不需要同步；线程缓存满了再放入全局池。</li>
+ * <li>全局池每级的数量有上限，超出的缓冲区直接释放。</li>
+ * <li>超过最大级别的申请不池化，归还时直接释放。</li>
+ * <li>由 {@link ResourceLeakDetector} 检测没有归还的缓冲区。</li>
+ * </ul>
+ * 可以通过系统属性 socket.bufferPool.maxPooledPerClass 和 socket.bufferPool.threadCacheSize 调整。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class BufferPool {
+
+    /** 进程共享的默认池. */
+    public static final BufferPool DEFAULT = new BufferPool(
+            Integer.getInteger("socket.bufferPool.maxPooledPerClass", 256),
+            Integer.getInteger("socket.bufferPool.threadCacheSize", 16));
+
+    private static final int MIN_SIZE_SHIFT = 9;
+    private static final int SIZE_CLASSES   = 8;
+    public static final  int MIN_SIZE       = 1 << MIN_SIZE_SHIFT;
+    public static final  int MAX_SIZE       = MIN_SIZE << (SIZE_CLASSES - 1);
+    private static final int UNPOOLED       = -1;
+
+    private final Queue<ByteBuffer>[]        pools;
+    private final AtomicInteger[]            pooledCounts;
+    private final int                        maxPooledPerClass;
+    private final int                        threadCacheSize;
+    private final ThreadLocal<ThreadCache>   threadCache;
+    private final ResourceLeakDetector       leakDetector = new ResourceLeakDetector(
+            "PooledByteBuffer");
+
+    @SuppressWarnings("unchecked")
+    public BufferPool(int maxPooledPerClass, int threadCacheSize) {
+        this.maxPooledPerClass = maxPooledPerClass;
+        this.threadCacheSize = threadCacheSize;
+        this.pools = new Queue[SIZE_CLASSES];
+        this.pooledCounts = new AtomicInteger[SIZE_CLASSES];
+        for (int i = 0; i < SIZE_CLASSES; i++) {
+            pools[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+            pooledCounts[i] = new AtomicInteger();
+        }
+        this.threadCache = new ThreadLocal<ThreadCache>() {
+            @Override
+            protected ThreadCache initialValue() {
+                return new ThreadCache();
+            }
+        };
+    }
+
+    /**
+     * 申请容量不小于 minCapacity 的直接内存缓冲区，position 为 0，limit 为 capacity.
+     *
+     * @param minCapacity 最小容量
+     * @return PooledByteBuffer，用完调用 {@link PooledByteBuffer#release()}
+     */
+    public PooledByteBuffer acquire(int minCapacity) {
+        int sizeClass = sizeClass(minCapacity);
+        ByteBuffer buffer;
+        if (sizeClass == UNPOOLED) {
+            buffer = ByteBuffer.allocateDirect(minCapacity);
+        } else {
+            buffer = threadCache.get().poll(sizeClass);
+            if (buffer == null) {
+                buffer = pools[sizeClass].poll();
+                if (buffer != null) {
+                    pooledCounts[sizeClass].decrementAndGet();
+                } else {
+                    buffer = ByteBuffer.allocateDirect(MIN_SIZE << sizeClass);
+                }
+            }
+        }
+        PooledByteBuffer pooled = new PooledByteBuffer(this, sizeClass, buffer);
+        pooled.track(leakDetector);
+        return pooled;
+    }
+
+    void release(int sizeClass, ByteBuffer buffer) {
+        if (sizeClass == UNPOOLED) {
+            DirectByteBufferCleaner.clean(buffer);
+            return;
+        }
+        buffer.clear();
+        if (threadCache.get().offer(sizeClass, buffer)) {
+            return;
+        }
+        if (pooledCounts[sizeClass].incrementAndGet() <= maxPooledPerClass) {
+            pools[sizeClass].offer(buffer);
+        } else {
+            pooledCounts[sizeClass].decrementAndGet();
+            DirectByteBufferCleaner.clean(buffer);
+        }
+    }
+
+    /**
+     * 当前未归还且被泄漏检测跟踪的缓冲区数量.
+     *
+     * @return 数量
+     */
+    public int trackedCount() {
+        return leakDetector.trackedCount();
+    }
+
+    static int sizeClass(int capacity) {
+        if (capacity > MAX_SIZE) {
+            return UNPOOLED;
+        }
+        if (capacity <= MIN_SIZE) {
+            return 0;
+        }
+        // 向上取整到 2 的幂
+        int shift = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        return shift - MIN_SIZE_SHIFT;
+    }
+
+    private final class ThreadCache {
+
+        private final ArrayDeque<ByteBuffer>[] caches;
+
+        @SuppressWarnings("unchecked")
+        ThreadCache() {
+            caches = new ArrayDeque[SIZE_CLASSES];
+            for (int i = 0; i < SIZE_CLASSES; i++) {
+                caches[i] = new ArrayDeque<ByteBuffer>(threadCacheSize);
+            }
+        }
+
+        ByteBuffer poll(int sizeClass) {
+            return caches[sizeClass].pollLast();
+        }
+
+        boolean offer(int sizeClass, ByteBuffer buffer) {
+            ArrayDeque<ByteBuffer> cache = caches[sizeClass];
+            if (cache.size() >= threadCacheSize) {
+                return false;
+            }
+            cache.addLast(buffer);
+            return true;
+        }
+    }
+}
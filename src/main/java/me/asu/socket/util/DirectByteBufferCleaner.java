@@ -1,11 +1,14 @@
 package me.asu.socket.util;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.nio.ByteBuffer;
-import sun.nio.ch.DirectBuffer;
 
 /**
  * DirectByteBufferCleaner.
  * 手工释放 ByteBuffer.allocateDirect(int capacity)
  * 申请的内存，不等gc回收。
+ * <p>JDK 9+ 使用 sun.misc.Unsafe#invokeCleaner，JDK 8 使用 DirectByteBuffer#cleaner()，
+ * 都是通过反射调用，不可用时什么也不做，由 gc 回收。</p>
  *
  * <p>2017 Suk All rights reserved.</p>
  *
@@ -15,9 +18,60 @@ import sun.nio.ch.DirectBuffer;
  */
 public class DirectByteBufferCleaner {
 
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    private static final Method CLEANER;
+    private static final Method CLEAN;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        Method cleaner = null;
+        Method clean = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Throwable e) {
+            // JDK 8
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        if (invokeCleaner == null) {
+            try {
+                ByteBuffer direct = ByteBuffer.allocateDirect(1);
+                cleaner = direct.getClass().getMethod("cleaner");
+                cleaner.setAccessible(true);
+                clean = cleaner.getReturnType().getMethod("clean");
+                clean.setAccessible(true);
+            } catch (Throwable e) {
+                cleaner = null;
+                clean = null;
+            }
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+        CLEANER = cleaner;
+        CLEAN = clean;
+    }
+
     public static void clean(final ByteBuffer byteBuffer) {
-        if (byteBuffer.isDirect()) {
-            ((DirectBuffer)byteBuffer).cleaner().clean();
+        if (byteBuffer == null || !byteBuffer.isDirect()) {
+            return;
+        }
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, byteBuffer);
+            } else if (CLEANER != null) {
+                Object cleaner = CLEANER.invoke(byteBuffer);
+                if (cleaner != null) {
+                    CLEAN.invoke(cleaner);
+                }
+            }
+        } catch (Throwable e) {
+            // ignore, 由 gc 回收
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,134 @@
+package me.asu.socket.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import me.asu.socket.message.ProtoMessageHeader;
+
+/**
+ * FileRegion.
+ * 以文件的一段作为报文体发送：先写 16 字节的 {@link ProtoMessageHeader}，
+ * 再用 {@link FileChannel#transferTo} 把文件内容直接写到 socket，对端收到的是普通的 ProtoMessage。
+ * 目标是 SocketChannel 时由内核 sendfile 完成，文件内容不经过 JVM 堆；
+ * 阻塞模式的 socket 没有 channel，经 OutputStream 按小块复制，也不会把整个文件读入内存。
+ * 发送完成或者失败后由发送方关闭。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class FileRegion implements Closeable {
+
+    private final ProtoMessageHeader header;
+    private final FileChannel        file;
+    private final long               position;
+    private final long               count;
+    private       long               transferred;
+
+    public FileRegion(FileChannel file, long position, long count, ProtoMessageHeader header) {
+        if (position < 0 || count < 0 || count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Invalid region (" + position + ", " + count + "), body is limited to 2G");
+        }
+        this.file = file;
+        this.position = position;
+        this.count = count;
+        this.header = new ProtoMessageHeader();
+        if (header != null) {
+            this.header.readFrom(header);
+        }
+        this.header.bodyLen = (int) count;
+    }
+
+    /**
+     * 打开文件的一段.
+     *
+     * @param path   文件
+     * @param offset 起始位置
+     * @param length 长度，-1 表示到文件末尾
+     * @param header 报文头部，bodyLen 会设置为 length
+     * @return FileRegion
+     * @throws IOException 文件打不开或者范围超出文件
+     */
+    public static FileRegion open(Path path, long offset, long length, ProtoMessageHeader header)
+            throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = file.size();
+            if (length < 0) {
+                length = size - offset;
+            }
+            if (offset < 0 || length < 0 || offset + length > size) {
+                throw new IOException(
+                        "Region (" + offset + ", " + length + ") is out of " + path + " (" + size
+                                + ")");
+            }
+            return new FileRegion(file, offset, length, header);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public ProtoMessageHeader header() {
+        return header;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long transferred() {
+        return transferred;
+    }
+
+    public boolean isDone() {
+        return transferred >= count;
+    }
+
+    /**
+     * 写入头部.
+     *
+     * @param dst 目标缓冲区，至少 16 字节
+     */
+    public void encodeHeader(ByteBuffer dst) {
+        header.encodeTo(dst);
+    }
+
+    /**
+     * 从上次停下的地方继续写出文件内容. 非阻塞的 channel 可能只写出一部分，可写时再调用。
+     *
+     * @param target 目标
+     * @return 本次写出的字节数
+     * @throws IOException 读写失败，或者文件在发送过程中被截短
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        long written = 0;
+        while (transferred < count) {
+            long n = file.transferTo(position + transferred, count - transferred, target);
+            if (n <= 0) {
+                if (file.size() < position + count) {
+                    throw new IOException("File is truncated while sending");
+                }
+                // socket 缓冲区满了
+                break;
+            }
+            transferred += n;
+            written += n;
+        }
+        return written;
+    }
+
+    @Override
+    public void close() {
+        try {
+            file.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package me.asu.socket.util;
+
+import me.asu.socket.message.ProtoMessageHeader;
+
+/**
+ * FrameSizeLimits.
+ * 按 cmdId 限制接收报文体的最大长度，读到报文头后立即检查，不等报文体到达：
+ * 超长的报文体边接收边丢弃，不进入接收缓冲区，内存占用和对端声明的 bodyLen 无关。
+ * 丢弃之后的处理由 {@link Action} 决定。
+ * <p>配置方法应在连接建立之前调用，之后只读。</p>
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class FrameSizeLimits {
+
+    /**
+     * 发现超长报文后的处理.
+     */
+    public enum Action {
+        /** 对请求回复错误码，其他报文只丢弃. */
+        REJECT,
+        /** 只丢弃并记录日志. */
+        DISCARD,
+        /** 关闭连接. */
+        CLOSE
+    }
+
+    /**
+     * 读到超长的报文头时在 IO 线程中回调，之后报文体被丢弃.
+     */
+    public interface Listener {
+
+        void onOversized(ProtoMessageHeader header, int maxBodyLength);
+    }
+
+    private final int                   defaultMaxBodyLength;
+    private final IntObjectMap<Integer> limits = new IntObjectMap<Integer>();
+    private       Action                action = Action.REJECT;
+
+    /**
+     * @param defaultMaxBodyLength 没有单独设置的 cmdId 的最大报文体长度
+     */
+    public FrameSizeLimits(int defaultMaxBodyLength) {
+        if (defaultMaxBodyLength < 0) {
+            throw new IllegalArgumentException(
+                    "maxBodyLength must not be negative (" + defaultMaxBodyLength + ")");
+        }
+        this.defaultMaxBodyLength = defaultMaxBodyLength;
+    }
+
+    /**
+     * 单独设置一个 cmdId 的最大报文体长度.
+     *
+     * @param cmdId         cmdId
+     * @param maxBodyLength 最大报文体长度
+     * @return this
+     */
+    public FrameSizeLimits limit(int cmdId, int maxBodyLength) {
+        if (maxBodyLength < 0) {
+            throw new IllegalArgumentException(
+                    "maxBodyLength must not be negative (" + maxBodyLength + ")");
+        }
+        limits.put(cmdId, maxBodyLength);
+        return this;
+    }
+
+    public FrameSizeLimits withAction(Action action) {
+        if (action == null) {
+            throw new IllegalArgumentException("action is null");
+        }
+        this.action = action;
+        return this;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public int getDefaultMaxBodyLength() {
+        return defaultMaxBodyLength;
+    }
+
+    /**
+     * cmdId 允许的最大报文体长度.
+     */
+    public int maxBodyLength(int cmdId) {
+        Integer max = limits.get(cmdId);
+        return max != null ? max : defaultMaxBodyLength;
+    }
+
+    @Override
+    public String toString() {
+        return "{defaultMaxBodyLength: " + defaultMaxBodyLength + ", limits: " + limits.size()
+                + ", action: " + action + "}";
+    }
+}
@@ -0,0 +1,293 @@
+package me.asu.socket.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * HashedWheelTimer.
+ * 时间轮定时器，用于大量低精度的超时（空闲检测、请求超时等）。
+ * <ul>
+ * <li>添加和取消都是 O(1)，由单独的守护线程每个 tick 处理一个槽位。</li>
+ * <li>精度为 tickDuration，任务可能晚于期望时间最多一个 tick 执行。</li>
+ * <li>任务在定时器线程中执行，不能阻塞，耗时的工作应交给其他线程。</li>
+ * </ul>
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+@Slf4j
+public class HashedWheelTimer {
+
+    /** 进程共享的默认定时器，tick 为 100 毫秒. */
+    public static final HashedWheelTimer DEFAULT = new HashedWheelTimer("socket-timer", 100,
+            TimeUnit.MILLISECONDS, 512);
+
+    private static final int STATE_INIT     = 0;
+    private static final int STATE_STARTED  = 1;
+    private static final int STATE_SHUTDOWN = 2;
+
+    public interface TimerTask {
+
+        /**
+         * 超时时调用，在定时器线程中执行.
+         *
+         * @param timeout 对应的 Timeout
+         */
+        void run(Timeout timeout);
+    }
+
+    private final String          name;
+    private final long            tickNanos;
+    private final Bucket[]        wheel;
+    private final int             mask;
+    private final Queue<Timeout>  pendingTimeouts   = new ConcurrentLinkedQueue<Timeout>();
+    private final Queue<Timeout>  cancelledTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final AtomicInteger   state             = new AtomicInteger(STATE_INIT);
+    private volatile long         startTime;
+    private          long         tick;
+    private          Thread       thread;
+
+    public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (tickDuration <= 0 || ticksPerWheel <= 0) {
+            throw new IllegalArgumentException(
+                    "tickDuration: " + tickDuration + ", ticksPerWheel: " + ticksPerWheel);
+        }
+        this.name = name;
+        this.tickNanos = Math.max(unit.toNanos(tickDuration), TimeUnit.MILLISECONDS.toNanos(1));
+        int size = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+        size = Math.max(1, size);
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 添加定时任务.
+     *
+     * @param task  任务
+     * @param delay 延迟
+     * @param unit  单位
+     * @return Timeout，可以用来取消
+     */
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        start();
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(0, delay)) - startTime;
+        Timeout timeout = new Timeout(task, deadline);
+        pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 停止定时器，没有执行的任务被丢弃.
+     */
+    public void stop() {
+        if (state.getAndSet(STATE_SHUTDOWN) == STATE_STARTED && thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void start() {
+        switch (state.get()) {
+            case STATE_INIT:
+                if (state.compareAndSet(STATE_INIT, STATE_STARTED)) {
+                    startTime = System.nanoTime();
+                    if (startTime == 0) {
+                        // 0 用来表示还没启动
+                        startTime = 1;
+                    }
+                    thread = new Thread(new Worker(), name);
+                    thread.setDaemon(true);
+                    thread.start();
+                }
+                break;
+            case STATE_STARTED:
+                break;
+            default:
+                throw new IllegalStateException("timer " + name + " is stopped.");
+        }
+        while (startTime == 0) {
+            // 等待启动线程设置 startTime
+            Thread.yield();
+        }
+    }
+
+    private final class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            while (state.get() == STATE_STARTED) {
+                if (!waitForNextTick()) {
+                    continue;
+                }
+                processCancelled();
+                transferPending();
+                wheel[(int) (tick & mask)].expire();
+                tick++;
+            }
+        }
+
+        private boolean waitForNextTick() {
+            long deadline = tickNanos * (tick + 1);
+            while (true) {
+                long current = System.nanoTime() - startTime;
+                long sleepMillis = (deadline - current + 999999) / 1000000;
+                if (sleepMillis <= 0) {
+                    return true;
+                }
+                try {
+                    Thread.sleep(sleepMillis);
+                } catch (InterruptedException e) {
+                    if (state.get() != STATE_STARTED) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        private void transferPending() {
+            // 每个 tick 最多转移 100000 个，避免新任务太多时饿死当前槽位
+            for (int i = 0; i < 100000; i++) {
+                Timeout timeout = pendingTimeouts.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.state.get() == Timeout.ST_CANCELLED) {
+                    continue;
+                }
+                long calculated = timeout.deadline / tickNanos;
+                timeout.remainingRounds = (calculated - tick) / wheel.length;
+                // 已经过期的放到当前槽位
+                long ticks = Math.max(calculated, tick);
+                wheel[(int) (ticks & mask)].add(timeout);
+            }
+        }
+
+        private void processCancelled() {
+            Timeout timeout;
+            while ((timeout = cancelledTimeouts.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                }
+            }
+        }
+    }
+
+    public final class Timeout {
+
+        private static final int ST_INIT      = 0;
+        private static final int ST_CANCELLED = 1;
+        private static final int ST_EXPIRED   = 2;
+
+        private final TimerTask     task;
+        private final long          deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+        private       long          remainingRounds;
+        private       Timeout       next;
+        private       Timeout       prev;
+        private       Bucket        bucket;
+
+        private Timeout(TimerTask task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消任务.
+         *
+         * @return false 表示已经执行或者已经取消
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run(this);
+            } catch (Throwable t) {
+                log.warn("An exception was thrown by timer task.", t);
+            }
+        }
+    }
+
+    /**
+     * 时间轮的槽位，双向链表，只在定时器线程中访问.
+     */
+    private static final class Bucket {
+
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            Timeout next = timeout.next;
+            if (timeout.prev != null) {
+                timeout.prev.next = next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            if (timeout == head) {
+                head = next;
+            }
+            if (timeout == tail) {
+                tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package me.asu.socket.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IdleMonitor.
+ * 一个连接的空闲检测：读空闲、写空闲、读写都空闲。
+ * 收发报文时只更新时间戳（{@link #touchRead()}、{@link #touchWrite()}），
+ * 由 {@link HashedWheelTimer} 到期时检查，没有到空闲时间就按最后活跃时间重新排期。
+ * 空闲事件在定时器线程中回调，处理耗时的工作应交给其他线程。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class IdleMonitor {
+
+    public enum IdleState {
+        /** 一段时间没有收到数据. */
+        READER_IDLE,
+        /** 一段时间没有发送数据. */
+        WRITER_IDLE,
+        /** 一段时间没有收发数据. */
+        ALL_IDLE
+    }
+
+    public interface Listener {
+
+        /**
+         * 空闲通知，持续空闲时每个空闲周期通知一次.
+         *
+         * @param state 空闲类型
+         */
+        void onIdle(IdleState state);
+    }
+
+    private final HashedWheelTimer timer;
+    private final IdleTimeouts     timeouts;
+    private final Listener         listener;
+    private volatile long    lastReadTime;
+    private volatile long    lastWriteTime;
+    private volatile boolean stopped;
+    private final Check[] checks = new Check[3];
+
+    public IdleMonitor(HashedWheelTimer timer, IdleTimeouts timeouts, Listener listener) {
+        this.timer = timer == null ? HashedWheelTimer.DEFAULT : timer;
+        this.timeouts = timeouts == null ? IdleTimeouts.NONE : timeouts;
+        this.listener = listener;
+    }
+
+    /**
+     * 开始检测.
+     */
+    public void start() {
+        long now = System.nanoTime();
+        lastReadTime = now;
+        lastWriteTime = now;
+        schedule(IdleState.READER_IDLE, timeouts.getReaderIdleMillis());
+        schedule(IdleState.WRITER_IDLE, timeouts.getWriterIdleMillis());
+        schedule(IdleState.ALL_IDLE, timeouts.getAllIdleMillis());
+    }
+
+    /**
+     * 停止检测，连接关闭时调用.
+     */
+    public void stop() {
+        stopped = true;
+        for (Check check : checks) {
+            if (check != null && check.timeout != null) {
+                check.timeout.cancel();
+            }
+        }
+    }
+
+    /**
+     * 收到数据时调用.
+     */
+    public void touchRead() {
+        lastReadTime = System.nanoTime();
+    }
+
+    /**
+     * 发送数据时调用.
+     */
+    public void touchWrite() {
+        lastWriteTime = System.nanoTime();
+    }
+
+    private void schedule(IdleState state, long idleMillis) {
+        if (idleMillis <= 0) {
+            return;
+        }
+        Check check = new Check(state, TimeUnit.MILLISECONDS.toNanos(idleMillis));
+        checks[state.ordinal()] = check;
+        check.timeout = timer.newTimeout(check, idleMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private final class Check implements HashedWheelTimer.TimerTask {
+
+        private final    IdleState                 state;
+        private final    long                      idleNanos;
+        private volatile HashedWheelTimer.Timeout  timeout;
+
+        Check(IdleState state, long idleNanos) {
+            this.state = state;
+            this.idleNanos = idleNanos;
+        }
+
+        @Override
+        public void run(HashedWheelTimer.Timeout t) {
+            if (stopped) {
+                return;
+            }
+            long last;
+            switch (state) {
+                case READER_IDLE:
+                    last = lastReadTime;
+                    break;
+                case WRITER_IDLE:
+                    last = lastWriteTime;
+                    break;
+                default:
+                    last = Math.max(lastReadTime, lastWriteTime);
+                    break;
+            }
+            long next = idleNanos - (System.nanoTime() - last);
+            if (next > 0) {
+                // 期间有活动，按最后活跃时间重新排期
+                timeout = timer.newTimeout(this, next, TimeUnit.NANOSECONDS);
+                return;
+            }
+            timeout = timer.newTimeout(this, idleNanos, TimeUnit.NANOSECONDS);
+            if (listener != null) {
+                listener.onIdle(state);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package me.asu.socket.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IdleTimeouts.
+ * 空闲检测的时间设置，0 表示不检测对应的类型.
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class IdleTimeouts {
+
+    /** 不检测. */
+    public static final IdleTimeouts NONE = new IdleTimeouts(0, 0, 0, TimeUnit.MILLISECONDS);
+
+    private final long readerIdleMillis;
+    private final long writerIdleMillis;
+    private final long allIdleMillis;
+
+    public IdleTimeouts(long readerIdle, long writerIdle, long allIdle, TimeUnit unit) {
+        this.readerIdleMillis = Math.max(0, unit.toMillis(readerIdle));
+        this.writerIdleMillis = Math.max(0, unit.toMillis(writerIdle));
+        this.allIdleMillis = Math.max(0, unit.toMillis(allIdle));
+    }
+
+    public long getReaderIdleMillis() {
+        return readerIdleMillis;
+    }
+
+    public long getWriterIdleMillis() {
+        return writerIdleMillis;
+    }
+
+    public long getAllIdleMillis() {
+        return allIdleMillis;
+    }
+
+    public boolean isEnabled() {
+        return readerIdleMillis > 0 || writerIdleMillis > 0 || allIdleMillis > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "{readerIdleMillis: " + readerIdleMillis + ", writerIdleMillis: " + writerIdleMillis
+                + ", allIdleMillis: " + allIdleMillis + "}";
+    }
+}
@@ -0,0 +1,164 @@
+package me.asu.socket.util;
+
+import java.util.Arrays;
+
+/**
+ * IntObjectMap.
+ * 以 int 为 key 的开放寻址哈希表（线性探测），key 不装箱，没有 Entry 对象。
+ * 删除时回移后续元素，不留墓碑。value 不能为 null。非线程安全。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class IntObjectMap<V> {
+
+    private static final int   DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR      = 0.5f;
+
+    private int[]    keys;
+    private Object[] values;
+    private int      size;
+    private int      maxSize;
+    private int      mask;
+
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntObjectMap(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(initialCapacity, 2) - 1) << 1;
+        allocate(capacity);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int i = indexOf(key);
+        return i < 0 ? null : (V) values[i];
+    }
+
+    /**
+     * 放入 key，已存在时替换.
+     *
+     * @param key   key
+     * @param value 不能为 null
+     * @return 原来的值，没有时为 null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                V old = (V) values[i];
+                values[i] = value;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > maxSize) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V old = (V) values[i];
+        values[i] = null;
+        size--;
+        // 把后面同一探测链上的元素往前移，填补空位
+        int free = i;
+        int j = (i + 1) & mask;
+        while (values[j] != null) {
+            int home = hash(keys[j]) & mask;
+            // home 不在 (free, j] 之间时才能移到 free
+            if ((j - home & mask) >= (j - free & mask)) {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                values[j] = null;
+                free = j;
+            }
+            j = (j + 1) & mask;
+        }
+        return old;
+    }
+
+    public boolean containsKey(int key) {
+        return indexOf(key) >= 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 清空并返回所有的值.
+     *
+     * @return 值的数组，顺序不定
+     */
+    public Object[] drain() {
+        Object[] out = new Object[size];
+        int n = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                out[n++] = values[i];
+            }
+        }
+        Arrays.fill(values, null);
+        size = 0;
+        return out;
+    }
+
+    private int indexOf(int key) {
+        int i = hash(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int j = hash(oldKeys[i]) & mask;
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        maxSize = Math.max(1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    private static int hash(int key) {
+        // seqId 通常是连续的，乘法散列避免聚集
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
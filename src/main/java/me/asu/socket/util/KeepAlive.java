@@ -0,0 +1,108 @@
+package me.asu.socket.util;
+
+import java.util.concurrent.TimeUnit;
+import me.asu.socket.util.HashedWheelTimer.Timeout;
+import me.asu.socket.util.HashedWheelTimer.TimerTask;
+import me.asu.socket.util.IdleMonitor.IdleState;
+
+/**
+ * KeepAlive.
+ * 连接保活：读空闲 interval 后通知发送 ping，timeout 内没有再收到任何数据就认为连接已断开。
+ * 有数据往来的连接不会发送 ping；收到 pong 或者其他报文都算作活跃。
+ * 回调在 {@link HashedWheelTimer} 线程中执行，不应阻塞。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class KeepAlive {
+
+    public interface Listener {
+
+        /**
+         * 连接读空闲，需要发送一个 ping.
+         */
+        void onPing();
+
+        /**
+         * ping 之后 timeout 内没有收到数据，应关闭连接.
+         */
+        void onMissedPong();
+    }
+
+    private final HashedWheelTimer timer;
+    private final long             timeoutMillis;
+    private final Listener         listener;
+    private final IdleMonitor      idleMonitor;
+    private volatile long    lastReadTime;
+    private volatile boolean awaitingPong;
+    private volatile boolean stopped;
+    private volatile Timeout pongTimeout;
+
+    public KeepAlive(HashedWheelTimer timer, long interval, long timeout, TimeUnit unit,
+            Listener listener) {
+        if (interval <= 0 || timeout <= 0) {
+            throw new IllegalArgumentException(
+                    "Invalid keepalive (" + interval + ", " + timeout + ")");
+        }
+        this.timer = timer == null ? HashedWheelTimer.DEFAULT : timer;
+        this.timeoutMillis = unit.toMillis(timeout);
+        this.listener = listener;
+        this.idleMonitor = new IdleMonitor(this.timer, new IdleTimeouts(interval, 0, 0, unit),
+                new IdleMonitor.Listener() {
+                    @Override
+                    public void onIdle(IdleState state) {
+                        ping();
+                    }
+                });
+    }
+
+    public void start() {
+        lastReadTime = System.nanoTime();
+        idleMonitor.start();
+    }
+
+    public void stop() {
+        stopped = true;
+        idleMonitor.stop();
+        Timeout t = pongTimeout;
+        if (t != null) {
+            t.cancel();
+        }
+    }
+
+    /**
+     * 收到任何数据时调用.
+     */
+    public void touchRead() {
+        lastReadTime = System.nanoTime();
+        awaitingPong = false;
+        idleMonitor.touchRead();
+    }
+
+    public boolean isAwaitingPong() {
+        return awaitingPong;
+    }
+
+    private void ping() {
+        if (stopped || awaitingPong) {
+            return;
+        }
+        awaitingPong = true;
+        final long sentAt = System.nanoTime();
+        listener.onPing();
+        pongTimeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout t) {
+                if (stopped) {
+                    return;
+                }
+                if (lastReadTime - sentAt < 0) {
+                    stopped = true;
+                    idleMonitor.stop();
+                    listener.onMissedPong();
+                }
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
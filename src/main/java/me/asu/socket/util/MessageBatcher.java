@@ -0,0 +1,152 @@
+package me.asu.socket.util;
+
+import java.io.Closeable;
+import java.util.concurrent.TimeUnit;
+import me.asu.socket.message.IMessage;
+import me.asu.socket.message.IProtoMessage;
+import me.asu.socket.message.MessageBatch;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.util.HashedWheelTimer.Timeout;
+import me.asu.socket.util.HashedWheelTimer.TimerTask;
+
+/**
+ * MessageBatcher.
+ * 把连续发送的小报文打包成 {@link MessageBatch}，攒够 maxCount 个或 maxBytes 字节时发出一批；
+ * 设置了 linger 时，第一个报文加入后最多等 linger 就发出，否则由调用方 {@link #flush()}。
+ * 只有一个报文时原样发出，不加批量头部。线程安全，{@link Sink#send(IMessage)} 在锁内调用，
+ * 发出的顺序和加入的顺序一致，Sink 不应阻塞。
+ * <code><pre>
+ * MessageBatcher batcher = new MessageBatcher(new MessageBatcher.Sink() {
+ *     public void send(IMessage message) {
+ *         ctx.send(message);
+ *     }
+ * }, 64, 16 * 1024);
+ * </pre></code>
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class MessageBatcher implements Closeable {
+
+    public interface Sink {
+
+        /**
+         * 发出一批（或者单个）报文.
+         *
+         * @param message 报文
+         */
+        void send(IMessage message);
+    }
+
+    private final Sink                  sink;
+    private final int                   maxCount;
+    private final int                   maxBytes;
+    private final HashedWheelTimer      timer;
+    private final long                  lingerMillis;
+    private final MessageBatch.Builder  builder = new MessageBatch.Builder();
+    private IProtoMessage first;
+    private Timeout       lingerTimeout;
+
+    public MessageBatcher(Sink sink, int maxCount, int maxBytes) {
+        this(sink, maxCount, maxBytes, null, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param sink     发出报文
+     * @param maxCount 一批最多的报文数
+     * @param maxBytes 一批子报文的字节数达到这个值时发出
+     * @param timer    linger 使用的定时器，为 null 时使用 {@link HashedWheelTimer#DEFAULT}（精度 100 毫秒）
+     * @param linger   第一个报文最长的等待时间，0 表示不自动发出
+     * @param unit     单位
+     */
+    public MessageBatcher(Sink sink, int maxCount, int maxBytes, HashedWheelTimer timer,
+            long linger, TimeUnit unit) {
+        if (sink == null || maxCount <= 0 || maxBytes <= 0 || linger < 0) {
+            throw new IllegalArgumentException(
+                    "Invalid batch (" + maxCount + ", " + maxBytes + ", " + linger + ")");
+        }
+        this.sink = sink;
+        this.maxCount = maxCount;
+        this.maxBytes = maxBytes;
+        this.timer = timer == null ? HashedWheelTimer.DEFAULT : timer;
+        this.lingerMillis = unit.toMillis(linger);
+    }
+
+    /**
+     * 加入一个报文，内容会被复制，之后调用方可以继续使用或回收.
+     *
+     * @param msg 报文
+     */
+    public synchronized void add(IProtoMessage msg) {
+        if (builder.isEmpty() && first == null) {
+            // 先保留一份，只有一个时不用打包
+            first = ProtoMessage.create(msg);
+            if (maxCount > 1 && MessageBatch.itemSize(msg) < maxBytes) {
+                scheduleLinger();
+                return;
+            }
+        } else {
+            if (first != null) {
+                builder.add(first);
+                first = null;
+            }
+            builder.add(msg);
+            if (builder.count() < maxCount && builder.size() < maxBytes) {
+                return;
+            }
+        }
+        // 在锁内发出，多个线程（包括 linger 定时器）发出的顺序和取出的顺序一致
+        sink.send(take());
+    }
+
+    /**
+     * 立即发出已加入的报文.
+     */
+    public synchronized void flush() {
+        IMessage out = take();
+        if (out != null) {
+            sink.send(out);
+        }
+    }
+
+    /**
+     * 当前等待发出的报文数.
+     */
+    public synchronized int pending() {
+        return first != null ? 1 : builder.count();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    private IMessage take() {
+        if (lingerTimeout != null) {
+            lingerTimeout.cancel();
+            lingerTimeout = null;
+        }
+        if (first != null) {
+            IMessage m = first;
+            first = null;
+            return m;
+        }
+        if (builder.isEmpty()) {
+            return null;
+        }
+        return builder.build();
+    }
+
+    private void scheduleLinger() {
+        if (lingerMillis <= 0) {
+            return;
+        }
+        lingerTimeout = timer.newTimeout(new TimerTask() {
+            @Override
+            public void run(Timeout t) {
+                flush();
+            }
+        }, lingerMillis, TimeUnit.MILLISECONDS);
+    }
+}
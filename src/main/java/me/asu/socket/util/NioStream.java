@@ -2,12 +2,10 @@ package me.asu.socket.util;
 
 import static me.asu.socket.Constants.ERROR_SEND;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
-import java.util.Arrays;
 import java.util.Iterator;
 import java.util.concurrent.LinkedBlockingDeque;
 import lombok.Getter;
@@ -15,7 +13,9 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import me.asu.socket.client.AbstractSimpleClient;
 import me.asu.socket.client.Delegate;
+import me.asu.socket.codec.CodecPipeline;
 import me.asu.socket.message.*;
+import me.asu.socket.util.IdleMonitor.IdleState;
 
 /**
  * NioStream
@@ -30,11 +30,22 @@ public class NioStream {
 
     private final static int READ_CHUNK_SIZE      = 4 * 1024;
     private final static int READ_BUFFER_MAX_SIZE = -1;
-    private final ByteBuffer buffer;
-    private byte[] readChunkBuffer = null;
+    private final int             readChunkSize;
     private int                   readBufferMaxSize;
-    private ByteArrayOutputStream readBufferOutputStream;
+    private ReadBuffer            readBuffer;
+    private BufferPool            bufferPool = BufferPool.DEFAULT;
+    /** 从 socket 读取数据的直接内存缓冲区，listen 结束时归还. */
+    private PooledByteBuffer      readChunk;
+    /** 发送缓冲区，处于读模式，remaining 为上次没写完的数据；listen 结束时归还. */
+    private PooledByteBuffer      writeBuffer;
     private Selector              selector;
+    private final SocketChannel   channel;
+    private IdleTimeouts          idleTimeouts = IdleTimeouts.NONE;
+    private IdleMonitor           idleMonitor;
+    /** 编解码流水线，为 null 时直接按报文格式收发. */
+    @Getter
+    @Setter
+    private CodecPipeline         pipeline;
     @Getter
     @Setter
     private Delegate              delegate;
@@ -55,10 +66,10 @@ public class NioStream {
     public NioStream(SocketChannel channel, int readChunkSize, int readBufferMaxSize)
             throws IOException {
         channel.configureBlocking(false);
+        this.channel = channel;
         this.readBufferMaxSize = readBufferMaxSize;
-        readChunkSize = readChunkSize > 0 ? readChunkSize : READ_CHUNK_SIZE;
-        buffer = ByteBuffer.allocate(readChunkSize);
-        readBufferOutputStream = new ByteArrayOutputStream(readChunkSize << 1);
+        this.readChunkSize = readChunkSize > 0 ? readChunkSize : READ_CHUNK_SIZE;
+        readBuffer = new ReadBuffer(this.readChunkSize << 1);
         this.selector = Selector.open();
         channel.register(this.selector, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
     }
@@ -70,22 +81,38 @@ public class NioStream {
 
     public void listen() throws IOException {
         running = true;
-        while (running) {
-            selector.select();
-            Iterator<SelectionKey> ite = this.selector.selectedKeys().iterator();
-            while (ite.hasNext()) {
-                SelectionKey key = (SelectionKey) ite.next();
-                ite.remove();
-                if (key.isConnectable()) {
-                    connect(key);
-                }
-                if (key.isReadable()) {
-                    read(key);
-                }
-                if (key.isWritable()) {
-                    write(key);
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> ite = this.selector.selectedKeys().iterator();
+                while (ite.hasNext()) {
+                    SelectionKey key = (SelectionKey) ite.next();
+                    ite.remove();
+                    if (key.isConnectable()) {
+                        connect(key);
+                    }
+                    if (key.isReadable()) {
+                        read(key);
+                    }
+                    if (key.isWritable()) {
+                        write(key);
+                    }
                 }
             }
+        } finally {
+            stopIdleMonitor();
+            releaseBuffers();
+        }
+    }
+
+    private void releaseBuffers() {
+        if (readChunk != null) {
+            readChunk.release();
+            readChunk = null;
+        }
+        if (writeBuffer != null) {
+            writeBuffer.release();
+            writeBuffer = null;
         }
     }
 
@@ -101,17 +128,24 @@ public class NioStream {
 
     public void read(SelectionKey key) throws IOException {
         SocketChannel channel = (SocketChannel) key.channel();
-        IProtoMessage box;
-        if (delegate != null) {
-            box = delegate.createMessage();
-        } else {
-            box = new ProtoMessage();
-        }
         try {
-            boolean succ = read(channel, box);
-            if (succ) {
-                onRecvMsgFromServer(box);
-            } else {
+            // 一次可能读到多个报文，全部解析完
+            while (true) {
+                IProtoMessage box;
+                if (delegate != null) {
+                    box = delegate.createMessage();
+                } else {
+                    box = new ProtoMessage();
+                }
+                if (!read(channel, box)) {
+                    box.recycle();
+                    break;
+                }
+                try {
+                    onRecvMsgFromServer(box);
+                } finally {
+                    box.recycle();
+                }
             }
         } catch (Exception e) {
             channel.close();
@@ -124,69 +158,77 @@ public class NioStream {
         SocketChannel channel = (SocketChannel) key.channel();
 
         IMessage box = null;
-        do {
-            try {
-                box = msgQueueToServer.poll();
-                if (box != null) {
-                    channel.write(ByteBuffer.wrap(box.pack()));
+        try {
+            // 先写上次没写完的
+            if (writeBuffer != null && writeBuffer.buffer().hasRemaining()) {
+                channel.write(writeBuffer.buffer());
+                if (writeBuffer.buffer().hasRemaining()) {
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                    return;
+                }
+            }
+            while ((box = msgQueueToServer.poll()) != null) {
+                ByteBuffer frame = pipeline != null && pipeline.hasOutbound()
+                        ? pipeline.encode(box) : null;
+                int size = frame != null ? frame.remaining() : box.encodedSize();
+                if (writeBuffer != null && writeBuffer.capacity() < size) {
+                    writeBuffer.release();
+                    writeBuffer = null;
                 }
-            } catch (Exception e) {
-                if (!(e instanceof InterruptedException)) {
-                    log.error("", e);
+                if (writeBuffer == null) {
+                    writeBuffer = bufferPool.acquire(Math.max(size, readChunkSize));
                 }
-                if (box != null) {
-                    msgQueueToServer.addFirst(box);
+                ByteBuffer buffer = writeBuffer.buffer();
+                buffer.clear();
+                if (frame != null) {
+                    buffer.put(frame);
+                } else {
+                    box.encodeTo(buffer);
                 }
-                onError(ERROR_SEND, box);
+                buffer.flip();
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("", e);
+            if (writeBuffer != null) {
+                writeBuffer.buffer().clear().limit(0);
             }
-        } while (box != null);
+            if (box != null) {
+                msgQueueToServer.addFirst(box);
+            }
+            onError(ERROR_SEND, box);
+        }
         key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
     }
 
     public boolean read(SocketChannel channel, IMessage box) throws IOException {
         // 直接只支持
         while (true) {
-            byte[] tmpBuffer = readBufferOutputStream.toByteArray();
-            if (readBufferMaxSize >= 0 && tmpBuffer.length > readBufferMaxSize) {
+            if (readBufferMaxSize >= 0 && readBuffer.readableBytes() > readBufferMaxSize) {
                 // 数据过大，可能错位了。
                 return false;
             }
 
-            if (tmpBuffer.length > 0) {
-                // 说明还是可以尝试一下的
-                int ret = box.unpack(tmpBuffer, 0, tmpBuffer.length);
-                if (ret > 0) {
-                    // 说明成功
-                    readBufferOutputStream.reset();
-                    readBufferOutputStream.write(tmpBuffer, ret, tmpBuffer.length - ret);
-                    return true;
-                } else if (ret < 0) {
-                    // 说明数据错乱了
-                    readBufferOutputStream.reset();
-                }
-            }
-            buffer.clear();
-            int read = channel.read(buffer);
-            if (read == -1 || read == 0) {
-                return false;
+            // 说明还是可以尝试一下的，数据错乱时 readBuffer 会清空
+            if (readBuffer.unpack(box, pipeline) > 0) {
+                // 说明成功
+                return true;
             }
-            buffer.flip();
-            if (buffer.hasArray()) {
-                final byte[] array = buffer.array();
-                final int arrayOffset = buffer.arrayOffset();
-                readChunkBuffer = Arrays.copyOfRange(array, arrayOffset + buffer.position(),
-                        arrayOffset + buffer.limit());
-            } else {
-                readChunkBuffer = new byte[buffer.remaining()];
-                buffer.get(readChunkBuffer);
+            if (readChunk == null) {
+                readChunk = bufferPool.acquire(readChunkSize);
             }
-            int len = readChunkBuffer.length;
-            if (len > 0) {
-                // 进入下个循环自然会判断
-                readBufferOutputStream.write(readChunkBuffer, 0, len);
-            } else {
+            ByteBuffer chunk = readChunk.buffer();
+            chunk.clear();
+            int read = channel.read(chunk);
+            if (read == -1 || read == 0) {
                 return false;
             }
+            chunk.flip();
+            readBuffer.write(chunk);
+            // 进入下个循环自然会判断
         }
     }
 
@@ -197,7 +239,54 @@ public class NioStream {
         }
     }
 
+    /**
+     * 设置空闲检测，空闲时调用 {@link Delegate#onTimeout(String, int)}，已经连接时立即生效.
+     *
+     * @param idleTimeouts IdleTimeouts
+     */
+    public void setIdleTimeouts(IdleTimeouts idleTimeouts) {
+        this.idleTimeouts = idleTimeouts;
+        if (channel != null && channel.isConnected()) {
+            startIdleMonitor();
+        }
+    }
+
+    private void startIdleMonitor() {
+        stopIdleMonitor();
+        if (idleTimeouts == null || !idleTimeouts.isEnabled()) {
+            return;
+        }
+        idleMonitor = new IdleMonitor(HashedWheelTimer.DEFAULT, idleTimeouts,
+                new IdleMonitor.Listener() {
+                    @Override
+                    public void onIdle(IdleState state) {
+                        onTimeout();
+                    }
+                });
+        idleMonitor.start();
+    }
+
+    private void stopIdleMonitor() {
+        IdleMonitor m = idleMonitor;
+        if (m != null) {
+            m.stop();
+            idleMonitor = null;
+        }
+    }
+
+    protected void onTimeout() {
+        if (delegate != null) {
+            try {
+                InetSocketAddress address = (InetSocketAddress) channel.getRemoteAddress();
+                delegate.onTimeout(address.getHostName(), address.getPort());
+            } catch (IOException e) {
+                log.error("", e);
+            }
+        }
+    }
+
     protected void onConnClose(SocketChannel channel) {
+        stopIdleMonitor();
         if (delegate != null) {
             try {
                 InetSocketAddress address = (InetSocketAddress) channel.getLocalAddress();
@@ -209,6 +298,7 @@ public class NioStream {
     }
 
     protected void onConnOpen(SocketChannel channel) {
+        startIdleMonitor();
         if (delegate != null) {
             try {
                 InetSocketAddress address = (InetSocketAddress) channel.getLocalAddress();
@@ -220,10 +310,16 @@ public class NioStream {
     }
 
     protected void onSendMsgToServer(IMessage ibox) {
+        if (idleMonitor != null) {
+            idleMonitor.touchWrite();
+        }
         delegate.onSend(ibox);
     }
 
     protected void onRecvMsgFromServer(IMessage ibox) {
+        if (idleMonitor != null) {
+            idleMonitor.touchRead();
+        }
         if (delegate != null) {
             delegate.onRecv(ibox);
         }
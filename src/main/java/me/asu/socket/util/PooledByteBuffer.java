@@ -0,0 +1,57 @@
+package me.asu.socket.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * PooledByteBuffer.
+ * 从 {@link BufferPool} 申请的缓冲区，用完必须调用 {@link #release()} 归还，
+ * 归还后不能再访问 {@link #buffer()}。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class PooledByteBuffer {
+
+    private final BufferPool                   pool;
+    private final int                          sizeClass;
+    private       ByteBuffer                   buffer;
+    private       ResourceLeakDetector.Tracker tracker;
+
+    PooledByteBuffer(BufferPool pool, int sizeClass, ByteBuffer buffer) {
+        this.pool = pool;
+        this.sizeClass = sizeClass;
+        this.buffer = buffer;
+    }
+
+    void track(ResourceLeakDetector leakDetector) {
+        this.tracker = leakDetector.track(this);
+    }
+
+    public ByteBuffer buffer() {
+        if (buffer == null) {
+            throw new IllegalStateException("buffer already released.");
+        }
+        return buffer;
+    }
+
+    public int capacity() {
+        return buffer().capacity();
+    }
+
+    /**
+     * 归还缓冲区.
+     */
+    public void release() {
+        ByteBuffer b = buffer;
+        if (b == null) {
+            throw new IllegalStateException("buffer already released.");
+        }
+        buffer = null;
+        if (tracker != null) {
+            tracker.close();
+            tracker = null;
+        }
+        pool.release(sizeClass, b);
+    }
+}
@@ -0,0 +1,438 @@
+package me.asu.socket.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import me.asu.socket.codec.CodecPipeline;
+import me.asu.socket.message.IMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.message.SliceProtoMessage;
+
+/**
+ * ReadBuffer.
+ * 接收数据的累积缓冲区。数据追加到尾部，报文直接从缓冲区中解析，
+ * 只有解析出完整报文时才会拷贝报文体；剩余的半包数据在空间不足时移到头部（compact），
+ * 仍然不够时按 2 倍扩容，大报文分多次到达也只有 O(n) 的拷贝。
+ * <p>解析 {@link SliceProtoMessage} 时报文体不拷贝，而是引用缓冲区中的数据并持有引用计数；
+ * 还有报文体没有释放时，compact 和重置不会覆盖它们，而是换用另一个数组（优先复用已释放的数组）。</p>
+ * <p>设置了 {@link SpillPolicy} 时，超过阈值的报文体不在缓冲区中累积，读到报文头后
+ * 边接收边写入 {@link SpilledBody}，完整后交给 SliceProtoMessage；其他类型的报文容器不落盘。</p>
+ * <p>设置了 {@link FrameSizeLimits} 时，读到报文头就检查报文体长度，超长的报文体边接收边丢弃，
+ * 不进入缓冲区，并通知 {@link FrameSizeLimits.Listener}。</p>
+ * <p>非线程安全，报文体可以在其他线程释放。</p>
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class ReadBuffer {
+
+    private static final int HEADER_LENGTH   = 16;
+    private static final int BODY_LEN_OFFSET = 8;
+
+    private byte[]     array;
+    private int        readerIndex;
+    private int        writerIndex;
+    /** array 的 ByteBuffer 视图，用于从 channel 读取，array 变化时重建. */
+    private ByteBuffer view;
+    private final int  initialCapacity;
+    /** array 被报文体引用时不为 null，引用计数中包含 ReadBuffer 自己的 1 个. */
+    private Chunk          chunk;
+    /** 报文体全部释放后归还的数组，下次换数组时复用. */
+    private volatile byte[] spare;
+    /** 大报文体落盘的设置，为 null 时不落盘. */
+    private SpillPolicy              spillPolicy;
+    /** 正在落盘的报文体和它的报文头. */
+    private SpilledBody              spilling;
+    private final ProtoMessageHeader spillHeader = new ProtoMessageHeader();
+    /** 报文体长度限制，为 null 时不限制. */
+    private FrameSizeLimits          frameSizeLimits;
+    private FrameSizeLimits.Listener oversizeListener;
+    /** 正在丢弃的超长报文体的剩余字节数. */
+    private int                      discarding;
+    private final ProtoMessageHeader oversizedHeader = new ProtoMessageHeader();
+
+    public ReadBuffer(int initialCapacity) {
+        this.initialCapacity = initialCapacity > 0 ? initialCapacity : 256;
+        this.array = new byte[this.initialCapacity];
+        this.view = ByteBuffer.wrap(this.array);
+    }
+
+    public int readableBytes() {
+        return writerIndex - readerIndex;
+    }
+
+    public int writableBytes() {
+        return array.length - writerIndex;
+    }
+
+    public int capacity() {
+        return array.length;
+    }
+
+    public byte[] array() {
+        return array;
+    }
+
+    public int readerIndex() {
+        return readerIndex;
+    }
+
+    public SpillPolicy getSpillPolicy() {
+        return spillPolicy;
+    }
+
+    /**
+     * 设置大报文体落盘，只对 SliceProtoMessage 容器生效.
+     *
+     * @param spillPolicy 为 null 时不落盘
+     */
+    public void setSpillPolicy(SpillPolicy spillPolicy) {
+        this.spillPolicy = spillPolicy;
+    }
+
+    /**
+     * 设置报文体长度限制，没有入站编解码阶段时生效.
+     *
+     * @param limits   为 null 时不限制
+     * @param listener 发现超长报文时回调，可以为 null
+     */
+    public void setFrameSizeLimits(FrameSizeLimits limits, FrameSizeLimits.Listener listener) {
+        this.frameSizeLimits = limits;
+        this.oversizeListener = listener;
+    }
+
+    /**
+     * 跳过已处理的数据.
+     *
+     * @param length 长度
+     */
+    public void skip(int length) {
+        if (length < 0 || length > readableBytes()) {
+            throw new IndexOutOfBoundsException(
+                    "skip " + length + ", readable " + readableBytes());
+        }
+        readerIndex += length;
+        if (readerIndex == writerIndex && !isShared()) {
+            readerIndex = 0;
+            writerIndex = 0;
+        }
+    }
+
+    public void clear() {
+        discarding = 0;
+        if (spilling != null) {
+            spilling.release();
+            spilling = null;
+        }
+        if (isShared()) {
+            detach(0, 0);
+        }
+        readerIndex = 0;
+        writerIndex = 0;
+    }
+
+    /**
+     * 是否还有报文体引用当前数组.
+     *
+     * @return true 表示不能覆盖 readerIndex 之前的数据
+     */
+    public boolean isShared() {
+        return chunk != null && chunk.refCnt() > 1;
+    }
+
+    /**
+     * 保证至少有 minWritable 字节可写。先尝试 compact，不够再扩容。
+     *
+     * @param minWritable 最少可写字节数
+     */
+    public void ensureWritable(int minWritable) {
+        if (writableBytes() >= minWritable) {
+            return;
+        }
+        int readable = readableBytes();
+        if (isShared()) {
+            // 前面的数据还被报文体引用，不能 compact，从初始容量起算换一个数组
+            detach(readable, minWritable);
+        } else if (readerIndex > 0 && array.length - readable >= minWritable) {
+            System.arraycopy(array, readerIndex, array, 0, readable);
+        } else {
+            int newCapacity = array.length << 1;
+            while (newCapacity - readable < minWritable) {
+                newCapacity <<= 1;
+                if (newCapacity <= 0) {
+                    // 溢出
+                    newCapacity = readable + minWritable;
+                    break;
+                }
+            }
+            replaceArray(new byte[newCapacity], readable);
+        }
+        readerIndex = 0;
+        writerIndex = readable;
+    }
+
+    private void detach(int readable, int minWritable) {
+        int required = readable + minWritable;
+        byte[] newArray = spare;
+        if (newArray != null && newArray.length >= required) {
+            spare = null;
+        } else {
+            int newCapacity = initialCapacity;
+            while (newCapacity < required) {
+                newCapacity <<= 1;
+                if (newCapacity <= 0) {
+                    newCapacity = required;
+                    break;
+                }
+            }
+            newArray = new byte[newCapacity];
+        }
+        replaceArray(newArray, readable);
+    }
+
+    private void replaceArray(byte[] newArray, int readable) {
+        System.arraycopy(array, readerIndex, newArray, 0, readable);
+        if (chunk != null) {
+            // 放弃 ReadBuffer 自己的引用，报文体全部释放后旧数组进入 spare
+            chunk.release();
+            chunk = null;
+        }
+        array = newArray;
+        view = ByteBuffer.wrap(array);
+    }
+
+    public void write(byte[] src, int offset, int length) {
+        ensureWritable(length);
+        System.arraycopy(src, offset, array, writerIndex, length);
+        writerIndex += length;
+    }
+
+    /**
+     * 追加 src 中剩余的数据，src 的 position 移到 limit.
+     *
+     * @param src ByteBuffer
+     */
+    public void write(ByteBuffer src) {
+        int length = src.remaining();
+        ensureWritable(length);
+        src.get(array, writerIndex, length);
+        writerIndex += length;
+    }
+
+    /**
+     * 从输入流读取数据，至少预留 chunkSize 字节的空间，一次读满可写空间。
+     *
+     * @param in        输入流
+     * @param chunkSize 最少预留空间
+     * @return 读取的字节数，-1 表示流已经结束
+     * @throws IOException 异常
+     */
+    public int readFrom(InputStream in, int chunkSize) throws IOException {
+        ensureWritable(chunkSize);
+        int len = in.read(array, writerIndex, writableBytes());
+        if (len > 0) {
+            writerIndex += len;
+        }
+        return len;
+    }
+
+    /**
+     * 从 channel 读取数据，至少预留 chunkSize 字节的空间，一次读满可写空间。
+     *
+     * @param channel   ReadableByteChannel
+     * @param chunkSize 最少预留空间
+     * @return 读取的字节数，-1 表示流已经结束
+     * @throws IOException 异常
+     */
+    public int readFrom(ReadableByteChannel channel, int chunkSize) throws IOException {
+        ensureWritable(chunkSize);
+        view.limit(array.length).position(writerIndex);
+        int len = channel.read(view);
+        if (len > 0) {
+            writerIndex += len;
+        }
+        return len;
+    }
+
+    /**
+     * 尝试从缓冲区中解析一个报文。成功时跳过报文占用的字节，数据错乱时清空缓冲区。
+     *
+     * @param box 报文容器
+     * @return 同 {@link IMessage#decodeFrom(ByteBuffer)}，大于 0 表示成功，0 表示数据不够，小于 0 表示数据错乱
+     */
+    public int unpack(IMessage box) {
+        if (frameSizeLimits != null && spilling == null && !skipOversized()) {
+            return 0;
+        }
+        if (spillPolicy != null && box instanceof SliceProtoMessage
+                && (spilling != null || shouldSpill())) {
+            return unpackSpill((SliceProtoMessage) box);
+        }
+        if (readableBytes() == 0) {
+            return 0;
+        }
+        view.limit(writerIndex).position(readerIndex);
+        int ret;
+        if (box instanceof SliceProtoMessage) {
+            if (chunk == null) {
+                chunk = new Chunk(array);
+            }
+            ret = ((SliceProtoMessage) box).decodeFrom(view, chunk);
+        } else {
+            ret = box.decodeFrom(view);
+        }
+        if (ret > 0) {
+            skip(ret);
+        } else if (ret < 0) {
+            clear();
+        }
+        return ret;
+    }
+
+    /**
+     * 丢弃超长的报文，之后缓冲区从一个可以接收的报文开始.
+     *
+     * @return false 表示超长的报文体还没有全部到达
+     */
+    private boolean skipOversized() {
+        for (; ; ) {
+            if (discarding > 0) {
+                int n = Math.min(discarding, readableBytes());
+                skip(n);
+                discarding -= n;
+                if (discarding > 0) {
+                    return false;
+                }
+            }
+            if (readableBytes() < HEADER_LENGTH) {
+                return true;
+            }
+            view.limit(writerIndex).position(readerIndex);
+            int bodyLen = view.getInt(readerIndex + BODY_LEN_OFFSET);
+            int max = frameSizeLimits.maxBodyLength(view.getInt(readerIndex));
+            if (bodyLen <= max) {
+                // 负数交给报文解析，按数据错乱处理
+                return true;
+            }
+            oversizedHeader.readHeader(view);
+            skip(HEADER_LENGTH);
+            discarding = bodyLen;
+            if (oversizeListener != null) {
+                oversizeListener.onOversized(oversizedHeader, max);
+            }
+        }
+    }
+
+    /**
+     * 缓冲区中的报文头是否表示一个需要落盘的报文体.
+     */
+    private boolean shouldSpill() {
+        if (readableBytes() < HEADER_LENGTH) {
+            return false;
+        }
+        view.limit(writerIndex).position(readerIndex);
+        return spillPolicy.shouldSpill(view.getInt(readerIndex + BODY_LEN_OFFSET));
+    }
+
+    /**
+     * 把缓冲区中的报文体数据移入 {@link SpilledBody}，完整后交给 box.
+     *
+     * @return 完整时返回报文长度，数据不够时返回 0，无法创建临时文件时返回 -1（已清空）
+     */
+    private int unpackSpill(SliceProtoMessage box) {
+        if (spilling == null) {
+            view.limit(writerIndex).position(readerIndex);
+            spillHeader.readHeader(view);
+            try {
+                spilling = SpilledBody.create(spillPolicy.getDirectory(), spillHeader.bodyLen);
+            } catch (IOException e) {
+                clear();
+                return -1;
+            }
+            skip(HEADER_LENGTH);
+        }
+        if (readableBytes() > 0) {
+            skip(spilling.write(array, readerIndex, readableBytes()));
+        }
+        if (!spilling.isComplete()) {
+            return 0;
+        }
+        SpilledBody body = spilling;
+        spilling = null;
+        box.wrap(spillHeader, body.buffer(), body);
+        // box 已经持有引用
+        body.release();
+        return (int) Math.min(Integer.MAX_VALUE,
+                (long) HEADER_LENGTH + body.length());
+    }
+
+    /**
+     * 经过编解码流水线解析一个报文，没有入站阶段时同 {@link #unpack(IMessage)}.
+     * 被解码器丢弃的帧直接跳过。
+     *
+     * @param box      报文容器
+     * @param pipeline 流水线，可以为 null
+     * @return 大于 0 表示成功，0 表示数据不够，小于 0 表示数据错乱（已清空）
+     */
+    public int unpack(IMessage box, CodecPipeline pipeline) {
+        if (pipeline == null || !pipeline.hasInbound()) {
+            return unpack(box);
+        }
+        while (readableBytes() > 0) {
+            view.limit(writerIndex).position(readerIndex);
+            ByteBuffer frame;
+            try {
+                frame = pipeline.decode(view);
+            } catch (IOException e) {
+                clear();
+                return -1;
+            }
+            if (frame == null) {
+                return 0;
+            }
+            int consumed = view.position() - readerIndex;
+            if (frame == CodecPipeline.DROPPED) {
+                skip(consumed);
+                continue;
+            }
+            int ret;
+            if (box instanceof SliceProtoMessage && frame.hasArray() && frame.array() == array) {
+                // 帧仍然是接收缓冲区的一部分，报文体可以直接引用
+                if (chunk == null) {
+                    chunk = new Chunk(array);
+                }
+                ret = ((SliceProtoMessage) box).decodeFrom(frame, chunk);
+            } else {
+                ret = box.decodeFrom(frame);
+            }
+            if (ret <= 0) {
+                // 完整的帧解析不出报文
+                clear();
+                return -1;
+            }
+            skip(consumed);
+            return consumed;
+        }
+        return 0;
+    }
+
+    /**
+     * 被报文体引用的数组.
+     */
+    private final class Chunk extends AbstractReferenceCounted {
+
+        private final byte[] array;
+
+        Chunk(byte[] array) {
+            this.array = array;
+        }
+
+        @Override
+        protected void deallocate() {
+            // ReadBuffer 已经放弃了这个数组才会走到这里
+            spare = array;
+        }
+    }
+}
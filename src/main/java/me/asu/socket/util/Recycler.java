@@ -0,0 +1,189 @@
+package me.asu.socket.util;
+
+import java.util.Arrays;
+
+/**
+ * Recycler.
+ * 轻量的线程本地对象池，用于复用报文等高频创建的对象。
+ * <ul>
+ * <li>{@link #get()} 优先从当前线程的池中取，没有时调用 {@link #newObject(Handle)} 创建。</li>
+ * <li>对象用完调用 {@link Handle#recycle(Object)} 归还到创建它的线程的池中；
+ * 在其他线程归还时先放入一个加锁的小队列，创建线程的池取空时再一并取回。</li>
+ * <li>每个线程最多缓存 maxCapacityPerThread 个对象，超出的直接丢弃给 GC。</li>
+ * </ul>
+ * 可以通过系统属性 socket.recycler.maxCapacityPerThread 调整，0 表示不复用。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public abstract class Recycler<T> {
+
+    private static final int DEFAULT_MAX_CAPACITY_PER_THREAD = Math.max(0,
+            Integer.getInteger("socket.recycler.maxCapacityPerThread", 4096));
+
+    @SuppressWarnings("rawtypes")
+    private static final Handle NOOP_HANDLE = new Handle() {
+        @Override
+        public void recycle(Object object) {
+            // 不复用
+        }
+    };
+
+    public interface Handle<T> {
+
+        /**
+         * 归还对象，归还后调用方不能再使用它.
+         *
+         * @param object 对象
+         */
+        void recycle(T object);
+    }
+
+    private final int                   maxCapacityPerThread;
+    private final ThreadLocal<Stack<T>> threadLocal;
+
+    protected Recycler() {
+        this(DEFAULT_MAX_CAPACITY_PER_THREAD);
+    }
+
+    protected Recycler(int maxCapacityPerThread) {
+        this.maxCapacityPerThread = Math.max(0, maxCapacityPerThread);
+        this.threadLocal = new ThreadLocal<Stack<T>>() {
+            @Override
+            protected Stack<T> initialValue() {
+                return new Stack<T>(Thread.currentThread(), Recycler.this.maxCapacityPerThread);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public final T get() {
+        if (maxCapacityPerThread == 0) {
+            return newObject((Handle<T>) NOOP_HANDLE);
+        }
+        Stack<T> stack = threadLocal.get();
+        DefaultHandle<T> handle = stack.pop();
+        if (handle == null) {
+            handle = new DefaultHandle<T>(stack);
+            handle.value = newObject(handle);
+        }
+        return handle.value;
+    }
+
+    /**
+     * 当前线程池中缓存的对象数，用于测试.
+     *
+     * @return 数量
+     */
+    public final int threadLocalSize() {
+        return threadLocal.get().size;
+    }
+
+    /**
+     * 创建新对象，对象需要保存 handle 用于归还.
+     *
+     * @param handle 归还用的 Handle
+     * @return 新对象
+     */
+    protected abstract T newObject(Handle<T> handle);
+
+    private static final class DefaultHandle<T> implements Handle<T> {
+
+        private final Stack<T> stack;
+        private       T        value;
+        /** 是否在池中，防止重复归还. */
+        private       boolean  recycled;
+
+        DefaultHandle(Stack<T> stack) {
+            this.stack = stack;
+        }
+
+        @Override
+        public void recycle(T object) {
+            if (object != value) {
+                throw new IllegalArgumentException("object does not belong to this handle.");
+            }
+            stack.push(this);
+        }
+    }
+
+    private static final class Stack<T> {
+
+        private final Thread             thread;
+        private final int                maxCapacity;
+        private       DefaultHandle<T>[] elements;
+        private       int                size;
+        /** 其他线程归还的对象，访问时对 foreignLock 加锁. */
+        private       DefaultHandle<T>[] foreign;
+        private       int                foreignSize;
+        private final Object             foreignLock = new Object();
+
+        @SuppressWarnings("unchecked")
+        Stack(Thread thread, int maxCapacity) {
+            this.thread = thread;
+            this.maxCapacity = maxCapacity;
+            this.elements = new DefaultHandle[Math.min(256, maxCapacity)];
+            this.foreign = new DefaultHandle[Math.min(256, maxCapacity)];
+        }
+
+        void push(DefaultHandle<T> handle) {
+            if (Thread.currentThread() == thread) {
+                if (handle.recycled) {
+                    throw new IllegalStateException("recycled already.");
+                }
+                if (size == maxCapacity) {
+                    return;
+                }
+                handle.recycled = true;
+                if (size == elements.length) {
+                    elements = grow(elements);
+                }
+                elements[size++] = handle;
+            } else {
+                synchronized (foreignLock) {
+                    if (handle.recycled) {
+                        throw new IllegalStateException("recycled already.");
+                    }
+                    if (foreignSize == maxCapacity) {
+                        return;
+                    }
+                    handle.recycled = true;
+                    if (foreignSize == foreign.length) {
+                        foreign = grow(foreign);
+                    }
+                    foreign[foreignSize++] = handle;
+                }
+            }
+        }
+
+        DefaultHandle<T> pop() {
+            if (size == 0 && !transferForeign()) {
+                return null;
+            }
+            DefaultHandle<T> handle = elements[--size];
+            elements[size] = null;
+            handle.recycled = false;
+            return handle;
+        }
+
+        private boolean transferForeign() {
+            synchronized (foreignLock) {
+                if (foreignSize == 0) {
+                    return false;
+                }
+                DefaultHandle<T>[] tmp = elements;
+                elements = foreign;
+                size = foreignSize;
+                foreign = tmp;
+                foreignSize = 0;
+                return true;
+            }
+        }
+
+        private DefaultHandle<T>[] grow(DefaultHandle<T>[] array) {
+            int newLength = Math.min(maxCapacity, Math.max(1, array.length << 1));
+            return Arrays.copyOf(array, newLength);
+        }
+    }
+}
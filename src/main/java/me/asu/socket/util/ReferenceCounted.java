@@ -0,0 +1,33 @@
+package me.asu.socket.util;
+
+/**
+ * ReferenceCounted.
+ * 引用计数的资源，计数降为 0 时释放。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public interface ReferenceCounted {
+
+    /**
+     * 当前引用计数.
+     *
+     * @return 引用计数
+     */
+    int refCnt();
+
+    /**
+     * 引用计数加 1.
+     *
+     * @return this
+     */
+    ReferenceCounted retain();
+
+    /**
+     * 引用计数减 1，降为 0 时释放资源.
+     *
+     * @return 是否已经释放
+     */
+    boolean release();
+}
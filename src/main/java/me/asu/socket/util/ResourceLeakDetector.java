@@ -0,0 +1,124 @@
+package me.asu.socket.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * ResourceLeakDetector.
+ * 检测需要手工释放的资源（如池化的缓冲区）在被 GC 回收前没有释放的情况。
+ * 级别由系统属性 socket.leakDetection.level 控制：
+ * <ul>
+ * <li>disabled: 不检测</li>
+ * <li>simple: 默认，按 1/128 采样，只报告泄漏的资源类型</li>
+ * <li>paranoid: 全部跟踪，同时记录申请资源时的调用栈，开销较大，用于测试</li>
+ * </ul>
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+@Slf4j
+public class ResourceLeakDetector {
+
+    public enum Level {
+        DISABLED, SIMPLE, PARANOID
+    }
+
+    private static final int SAMPLING_INTERVAL = 128;
+
+    private static volatile Level level = parseLevel(
+            System.getProperty("socket.leakDetection.level", "simple"));
+
+    private final String                     resourceType;
+    private final ReferenceQueue<Object>     refQueue = new ReferenceQueue<Object>();
+    private final Set<Tracker>               trackers = ConcurrentHashMap.newKeySet();
+
+    public ResourceLeakDetector(String resourceType) {
+        this.resourceType = resourceType;
+    }
+
+    public static Level getLevel() {
+        return level;
+    }
+
+    public static void setLevel(Level level) {
+        ResourceLeakDetector.level = level;
+    }
+
+    private static Level parseLevel(String value) {
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (Exception e) {
+            return Level.SIMPLE;
+        }
+    }
+
+    /**
+     * 开始跟踪资源，资源释放时必须调用返回的 {@link Tracker#close()}.
+     *
+     * @param resource 资源
+     * @return Tracker，没有被采样时返回 null
+     */
+    public Tracker track(Object resource) {
+        Level current = level;
+        if (current == Level.DISABLED) {
+            return null;
+        }
+        if (current == Level.SIMPLE
+                && ThreadLocalRandom.current().nextInt(SAMPLING_INTERVAL) != 0) {
+            return null;
+        }
+        reportLeaks();
+        Tracker tracker = new Tracker(resource, current == Level.PARANOID);
+        trackers.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * 当前跟踪中（未释放）的资源数.
+     *
+     * @return 数量
+     */
+    public int trackedCount() {
+        return trackers.size();
+    }
+
+    private void reportLeaks() {
+        Tracker tracker;
+        while ((tracker = (Tracker) refQueue.poll()) != null) {
+            if (!trackers.remove(tracker)) {
+                continue;
+            }
+            if (tracker.createdAt != null) {
+                log.error("LEAK: {} was GC'ed without release(), created at:", resourceType,
+                        tracker.createdAt);
+            } else {
+                log.error("LEAK: {} was GC'ed without release(). "
+                                + "Use -Dsocket.leakDetection.level=paranoid to find where it was created.",
+                        resourceType);
+            }
+        }
+    }
+
+    public final class Tracker extends WeakReference<Object> {
+
+        private final Throwable createdAt;
+
+        private Tracker(Object referent, boolean recordStack) {
+            super(referent, refQueue);
+            this.createdAt = recordStack ? new Throwable("created at") : null;
+        }
+
+        /**
+         * 资源已经释放，停止跟踪.
+         */
+        public void close() {
+            trackers.remove(this);
+            clear();
+        }
+    }
+}
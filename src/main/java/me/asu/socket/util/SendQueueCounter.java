@@ -0,0 +1,116 @@
+package me.asu.socket.util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SendQueueCounter.
+ * 统计一个发送队列中排队的字节数和报文数，按 {@link SendQueueLimits} 决定是否接受入队，
+ * 可写状态变化时通知 {@link Listener}。线程安全，入队和出队可以在不同线程。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class SendQueueCounter {
+
+    public interface Listener {
+
+        /**
+         * 可写状态变化，在导致变化的线程中调用（入队的线程或者发送线程）.
+         *
+         * @param writable 是否可写
+         */
+        void onWritabilityChanged(boolean writable);
+    }
+
+    private final SendQueueLimits limits;
+    private final Listener        listener;
+    private final AtomicLong      bytes    = new AtomicLong();
+    private final AtomicInteger   messages = new AtomicInteger();
+    private final AtomicBoolean   writable = new AtomicBoolean(true);
+
+    public SendQueueCounter(SendQueueLimits limits, Listener listener) {
+        this.limits = limits == null ? SendQueueLimits.DEFAULT : limits;
+        this.listener = listener;
+    }
+
+    /**
+     * 尝试入队 size 字节的报文.
+     *
+     * @param size 字节数
+     * @return false 表示超过限制，调用方应拒绝这个报文
+     */
+    public boolean tryAdd(int size) {
+        if (messages.incrementAndGet() > limits.getMaxMessages()) {
+            messages.decrementAndGet();
+            return false;
+        }
+        long b = bytes.addAndGet(size);
+        if (b > limits.getMaxBytes() && b != size) {
+            bytes.addAndGet(-size);
+            messages.decrementAndGet();
+            return false;
+        }
+        if (b >= limits.getHighWaterMark()) {
+            updateWritability();
+        }
+        return true;
+    }
+
+    /**
+     * 报文已经出队（写出或丢弃）.
+     *
+     * @param size 入队时的字节数
+     */
+    public void remove(int size) {
+        messages.decrementAndGet();
+        long b = bytes.addAndGet(-size);
+        if (b <= limits.getLowWaterMark()) {
+            updateWritability();
+        }
+    }
+
+    public boolean isWritable() {
+        return writable.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public int getMessages() {
+        return messages.get();
+    }
+
+    public SendQueueLimits getLimits() {
+        return limits;
+    }
+
+    private void updateWritability() {
+        // 状态变化后重新检查，防止入队和出队同时发生时停在错误的状态
+        while (true) {
+            long b = bytes.get();
+            if (b >= limits.getHighWaterMark()) {
+                if (!writable.compareAndSet(true, false)) {
+                    return;
+                }
+                fire(false);
+            } else if (b <= limits.getLowWaterMark()) {
+                if (!writable.compareAndSet(false, true)) {
+                    return;
+                }
+                fire(true);
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void fire(boolean w) {
+        if (listener != null) {
+            listener.onWritabilityChanged(w);
+        }
+    }
+}
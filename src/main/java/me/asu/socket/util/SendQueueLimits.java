@@ -0,0 +1,92 @@
+package me.asu.socket.util;
+
+import me.asu.socket.message.IMessage;
+
+/**
+ * SendQueueLimits.
+ * 发送队列的限制，按字节数和报文数计算。
+ * <ul>
+ * <li>排队的字节数达到 highWaterMark 时变为不可写，降到 lowWaterMark 以下时恢复可写，
+ * 生产者根据可写状态放慢速度。</li>
+ * <li>超过 maxBytes 或 maxMessages 时拒绝入队；队列为空时单个超过 maxBytes 的报文仍然允许。</li>
+ * </ul>
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class SendQueueLimits {
+
+    /** 默认：1M 不可写，256K 恢复可写，最多 64M 或 100000 个报文. */
+    public static final SendQueueLimits DEFAULT = new SendQueueLimits(1024 * 1024, 256 * 1024,
+            64 * 1024 * 1024, 100000);
+
+    private final long highWaterMark;
+    private final long lowWaterMark;
+    private final long maxBytes;
+    private final int  maxMessages;
+
+    public SendQueueLimits(long highWaterMark, long lowWaterMark, long maxBytes, int maxMessages) {
+        if (lowWaterMark < 0 || highWaterMark < lowWaterMark) {
+            throw new IllegalArgumentException(
+                    "lowWaterMark: " + lowWaterMark + ", highWaterMark: " + highWaterMark);
+        }
+        if (maxBytes < highWaterMark || maxMessages <= 0) {
+            throw new IllegalArgumentException(
+                    "maxBytes: " + maxBytes + ", maxMessages: " + maxMessages);
+        }
+        this.highWaterMark = highWaterMark;
+        this.lowWaterMark = lowWaterMark;
+        this.maxBytes = maxBytes;
+        this.maxMessages = maxMessages;
+    }
+
+    /**
+     * 复制一份，只修改最大报文数.
+     *
+     * @param maxMessages 最大报文数
+     * @return SendQueueLimits
+     */
+    public SendQueueLimits withMaxMessages(int maxMessages) {
+        return new SendQueueLimits(highWaterMark, lowWaterMark, maxBytes, maxMessages);
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public long getLowWaterMark() {
+        return lowWaterMark;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public int getMaxMessages() {
+        return maxMessages;
+    }
+
+    /**
+     * 待发送数据的大小，支持 {@link IMessage} 和 byte[]；{@link FileRegion} 只计头部，其他类型为 0.
+     *
+     * @param data 数据
+     * @return 字节数
+     */
+    public static int sizeOf(Object data) {
+        if (data instanceof IMessage) {
+            return ((IMessage) data).encodedSize();
+        } else if (data instanceof byte[]) {
+            return ((byte[]) data).length;
+        } else if (data instanceof FileRegion) {
+            return ((FileRegion) data).header().getLength();
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return "{highWaterMark: " + highWaterMark + ", lowWaterMark: " + lowWaterMark
+                + ", maxBytes: " + maxBytes + ", maxMessages: " + maxMessages + "}";
+    }
+}
@@ -0,0 +1,52 @@
+package me.asu.socket.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * SpillPolicy.
+ * 大报文体落盘的设置：报文体超过 threshold 字节时不在堆中累积，
+ * 而是边接收边写入临时文件的内存映射（{@link SpilledBody}）。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class SpillPolicy {
+
+    private final int  threshold;
+    private final Path directory;
+
+    /**
+     * @param threshold 报文体超过这个长度时落盘
+     * @param directory 临时文件所在的目录，为 null 时使用 java.io.tmpdir
+     */
+    public SpillPolicy(int threshold, Path directory) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("threshold must not be negative (" + threshold + ")");
+        }
+        this.threshold = threshold;
+        this.directory = directory != null ? directory
+                : Paths.get(System.getProperty("java.io.tmpdir"));
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 这个长度的报文体是否需要落盘.
+     */
+    public boolean shouldSpill(int bodyLen) {
+        return bodyLen > threshold;
+    }
+
+    @Override
+    public String toString() {
+        return "{threshold: " + threshold + ", directory: " + directory + "}";
+    }
+}
@@ -0,0 +1,122 @@
+package me.asu.socket.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SpilledBody.
+ * 落盘的报文体：在临时文件上映射 length 字节，接收的数据直接写入映射区，
+ * 完成后以只读 {@link ByteBuffer} 的形式交给报文（{@link me.asu.socket.message.SliceProtoMessage}）。
+ * <ul>
+ * <li>文件用 DELETE_ON_CLOSE 打开，映射之后立即关闭，Linux 上文件随即删除，映射释放后回收磁盘空间。</li>
+ * <li>数据在页缓存中，内存紧张时由操作系统换出到文件，不占用 Java 堆。</li>
+ * <li>JDK 没有提供解除映射的接口，引用计数降为 0 后由 GC 回收映射。</li>
+ * </ul>
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class SpilledBody extends AbstractReferenceCounted {
+
+    private final    int              length;
+    private volatile MappedByteBuffer mapped;
+    private          int              written;
+
+    private SpilledBody(MappedByteBuffer mapped, int length) {
+        this.mapped = mapped;
+        this.length = length;
+    }
+
+    /**
+     * 在 directory 中创建临时文件并映射 length 字节.
+     *
+     * @param directory 临时文件所在的目录
+     * @param length    报文体长度
+     * @return SpilledBody
+     * @throws IOException 创建或映射失败
+     */
+    public static SpilledBody create(Path directory, int length) throws IOException {
+        if (length < 0) {
+            throw new IllegalArgumentException("length must not be negative (" + length + ")");
+        }
+        Path file = Files.createTempFile(directory, "socket-body-", ".tmp");
+        FileChannel ch;
+        try {
+            ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        try {
+            // READ_WRITE 映射会把文件扩展到 length
+            return new SpilledBody(ch.map(MapMode.READ_WRITE, 0, length), length);
+        } finally {
+            ch.close();
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * 已经写入的字节数.
+     */
+    public int written() {
+        return written;
+    }
+
+    public boolean isComplete() {
+        return written == length;
+    }
+
+    /**
+     * 追加接收到的数据，最多写到 length.
+     *
+     * @return 实际写入的字节数
+     */
+    public int write(byte[] src, int offset, int len) {
+        int n = Math.min(len, length - written);
+        MappedByteBuffer m = mapped;
+        if (m == null) {
+            throw new IllegalStateException("SpilledBody is released.");
+        }
+        m.position(written);
+        m.put(src, offset, n);
+        written += n;
+        return n;
+    }
+
+    /**
+     * 报文体的只读视图，position 为 0，limit 为 length.
+     *
+     * @return ByteBuffer
+     */
+    public ByteBuffer buffer() {
+        MappedByteBuffer m = mapped;
+        if (m == null) {
+            throw new IllegalStateException("SpilledBody is released.");
+        }
+        ByteBuffer b = m.duplicate();
+        b.position(0).limit(length);
+        return b.asReadOnlyBuffer();
+    }
+
+    @Override
+    protected void deallocate() {
+        mapped = null;
+    }
+
+    @Override
+    public String toString() {
+        return "SpilledBody{length: " + length + ", written: " + written + "}";
+    }
+}
@@ -1,7 +1,11 @@
 package me.asu.socket.util;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.concurrent.TimeoutException;
+import me.asu.socket.codec.CodecPipeline;
 import me.asu.socket.message.*;
 import java.net.Socket;
 
@@ -17,12 +21,19 @@ public class Stream implements Closeable {
 
     private final static int READ_CHUNK_SIZE = 4 * 1024;
     private final static int READ_BUFFER_MAX_SIZE = -1;
+    private final static int WRITE_BUFFER_INIT_SIZE = 4 * 1024;
+    /** 缓冲的数据达到这个大小时先写入 socket（不 flush）. */
+    private final static int WRITE_BUFFER_FLUSH_SIZE = 64 * 1024;
 
     private Socket socket = null;
     private int readTimeout = 0;
-    private byte[] readChunkBuffer = null;
+    private int readChunkSize;
     private int readBufferMaxSize;
-    private ByteArrayOutputStream readBufferOutputStream;
+    private ReadBuffer readBuffer;
+    /** 发送缓冲区，复用，不够时扩容；position 之前是还没写入 socket 的数据. */
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_INIT_SIZE);
+    /** 编解码流水线，为 null 时直接按报文格式收发. */
+    private CodecPipeline pipeline;
 
     public Stream() {
         this(null, READ_CHUNK_SIZE, READ_BUFFER_MAX_SIZE);
@@ -39,14 +50,20 @@ public class Stream implements Closeable {
 
     public Stream(Socket socket, int readChunkSize, int readBufferMaxSize) {
         this.readBufferMaxSize = readBufferMaxSize;
-        readChunkSize = readChunkSize > 0 ? readChunkSize : READ_CHUNK_SIZE;
         // readChunkSize 一次性读取的大小
-        readChunkBuffer = new byte[readChunkSize];
-        readBufferOutputStream = new ByteArrayOutputStream(readChunkSize << 1);
+        this.readChunkSize = readChunkSize > 0 ? readChunkSize : READ_CHUNK_SIZE;
+        readBuffer = new ReadBuffer(this.readChunkSize << 1);
         this.socket = socket;
     }
 
-    public void setSocket(Socket socket) {
+    /**
+     * 换上新的 socket，清空旧连接残留的读写缓冲（包括正在落盘的报文体），新连接从头分帧.
+     *
+     * @param socket 新的 socket
+     */
+    public synchronized void setSocket(Socket socket) {
+        readBuffer.clear();
+        writeBuffer.clear();
         this.socket = socket;
     }
 
@@ -54,6 +71,30 @@ public class Stream implements Closeable {
         return this.socket;
     }
 
+    public CodecPipeline getPipeline() {
+        return pipeline;
+    }
+
+    public void setPipeline(CodecPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * 设置大报文体落盘，read 的容器为 SliceProtoMessage 且没有入站编解码阶段时生效.
+     *
+     * @param spillPolicy 为 null 时不落盘
+     */
+    public void setSpillPolicy(SpillPolicy spillPolicy) {
+        readBuffer.setSpillPolicy(spillPolicy);
+    }
+
+    /**
+     * 设置报文体长度限制，没有入站编解码阶段时生效，见 {@link ReadBuffer#setFrameSizeLimits}.
+     */
+    public void setFrameSizeLimits(FrameSizeLimits limits, FrameSizeLimits.Listener listener) {
+        readBuffer.setFrameSizeLimits(limits, listener);
+    }
+
     public boolean read(IMessage box) throws IOException, TimeoutException {
         if (this.isClosed()) {
            throw new IllegalStateException("socket is closed.");
@@ -67,29 +108,18 @@ public class Stream implements Closeable {
                     throw new TimeoutException();
                 }
             }
-            byte[] tmpBuffer = readBufferOutputStream.toByteArray();
-
-            if (readBufferMaxSize >= 0 && tmpBuffer.length > readBufferMaxSize) {
+            if (readBufferMaxSize >= 0 && readBuffer.readableBytes() > readBufferMaxSize) {
                 // 数据过大，可能错位了。
                 return false;
             }
 
-            if (tmpBuffer.length > 0) {
-                // 说明还是可以尝试一下的
-                int ret = box.unpack(tmpBuffer, 0, tmpBuffer.length);
-                if (ret > 0) {
-                    // 说明成功
-                    readBufferOutputStream.reset();
-                    readBufferOutputStream.write(tmpBuffer, ret, tmpBuffer.length - ret);
-                    return true;
-                } else if (ret < 0) {
-                    // 说明数据错乱了
-                    readBufferOutputStream.reset();
-                }
+            // 说明还是可以尝试一下的，数据错乱时 readBuffer 会清空
+            if (readBuffer.unpack(box, pipeline) > 0) {
+                // 说明成功
+                return true;
             }
 
-            int len = this.socket.getInputStream()
-                    .read(readChunkBuffer, 0, readChunkBuffer.length);
+            int len = readBuffer.readFrom(this.socket.getInputStream(), readChunkSize);
             // 如果读取超时会抛出异常：java.net.SocketTimeoutException，不会进入下面的逻辑
             // -1：当server关闭的时候会报这个错误
             if (len <= 0) {
@@ -101,26 +131,139 @@ public class Stream implements Closeable {
                 return false;
             }
             // 进入下个循环自然会判断
-            readBufferOutputStream.write(readChunkBuffer, 0, len);
         }
     }
 
-    public void write(IMessage box) throws IOException {
+    /**
+     * 写入并 flush 一个报文.
+     *
+     * @param box 报文
+     * @throws IOException 异常
+     */
+    public synchronized void write(IMessage box) throws IOException {
+        append(box);
+        flush();
+    }
+
+    public synchronized void write(byte[] box) throws IOException {
+        if (this.isClosed()) {
+            throw new IOException("closed");
+        }
+        append(box);
+        flush();
+    }
+
+    /**
+     * 编码报文到发送缓冲区，不立即发送，调用 {@link #flush()} 时一次写出。
+     * 缓冲的数据超过 64K 时会先写入 socket。
+     *
+     * @param box 报文
+     * @throws IOException 异常
+     */
+    public synchronized void append(IMessage box) throws IOException {
         if (this.isClosed()) {
             throw new IllegalStateException("socket is closed.");
         }
-        this.socket.getOutputStream().write(box.pack());
-        this.socket.getOutputStream().flush();
+        if (pipeline != null && pipeline.hasOutbound()) {
+            ByteBuffer frame = pipeline.encode(box);
+            ensureWritable(frame.remaining());
+            writeBuffer.put(frame);
+        } else {
+            int size = box.encodedSize();
+            ensureWritable(size);
+            box.encodeTo(writeBuffer);
+        }
+        if (writeBuffer.position() >= WRITE_BUFFER_FLUSH_SIZE) {
+            writeBuffered();
+        }
     }
 
-    public void write(byte[] box) throws IOException {
+    /**
+     * 追加数据到发送缓冲区，不立即发送。大块数据直接写入 socket.
+     *
+     * @param box 数据
+     * @throws IOException 异常
+     */
+    public synchronized void append(byte[] box) throws IOException {
         if (this.isClosed()) {
-            throw new IOException("closed");
+            throw new IllegalStateException("socket is closed.");
         }
-        this.socket.getOutputStream().write(box);
+        if (box.length >= WRITE_BUFFER_FLUSH_SIZE) {
+            writeBuffered();
+            this.socket.getOutputStream().write(box);
+            return;
+        }
+        ensureWritable(box.length);
+        writeBuffer.put(box);
+    }
+
+    /**
+     * 写出缓冲的数据和 region 的头部，再把文件内容直接写到 socket，不经过发送缓冲区.
+     * 设置了出站编解码流水线时不支持。
+     *
+     * @param region 文件的一段，由调用方关闭
+     * @throws IOException 异常
+     */
+    public synchronized void writeFile(FileRegion region) throws IOException {
+        if (this.isClosed()) {
+            throw new IllegalStateException("socket is closed.");
+        }
+        if (pipeline != null && pipeline.hasOutbound()) {
+            throw new IOException("File regions can not pass through the codec pipeline.");
+        }
+        ensureWritable(region.header().getLength());
+        region.encodeHeader(writeBuffer);
+        writeBuffered();
+        OutputStream out = this.socket.getOutputStream();
+        WritableByteChannel target = socket.getChannel() != null ? socket.getChannel()
+                : Channels.newChannel(out);
+        while (!region.isDone()) {
+            region.transferTo(target);
+        }
+        out.flush();
+    }
+
+    /**
+     * 把缓冲的数据写入 socket 并 flush.
+     *
+     * @throws IOException 异常
+     */
+    public synchronized void flush() throws IOException {
+        if (this.isClosed()) {
+            throw new IllegalStateException("socket is closed.");
+        }
+        writeBuffered();
         this.socket.getOutputStream().flush();
     }
 
+    private void ensureWritable(int size) throws IOException {
+        if (writeBuffer.remaining() >= size) {
+            return;
+        }
+        if (writeBuffer.position() > 0 && writeBuffer.position() + size > WRITE_BUFFER_FLUSH_SIZE) {
+            writeBuffered();
+            if (writeBuffer.remaining() >= size) {
+                return;
+            }
+        }
+        ByteBuffer newBuffer = ByteBuffer.allocate(
+                Math.max(writeBuffer.position() + size, writeBuffer.capacity() << 1));
+        writeBuffer.flip();
+        newBuffer.put(writeBuffer);
+        writeBuffer = newBuffer;
+    }
+
+    private void writeBuffered() throws IOException {
+        if (writeBuffer.position() == 0) {
+            return;
+        }
+        try {
+            this.socket.getOutputStream().write(writeBuffer.array(), 0, writeBuffer.position());
+        } finally {
+            writeBuffer.clear();
+        }
+    }
+
     @Override
     public void close() throws IOException {
         if (this.socket != null) {
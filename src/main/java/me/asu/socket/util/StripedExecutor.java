@@ -0,0 +1,111 @@
+package me.asu.socket.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * StripedExecutor.
+ * 固定数量的单线程通道（lane），按 key 的 hash 选择通道。
+ * 同一个 key（如同一个连接）的任务总在同一个线程中按提交顺序执行，
+ * 线程总数固定，不会因为连接多而无限增长。
+ * 通道数默认为 CPU 核数的 2 倍，可以通过系统属性 socket.dispatch.lanes 调整。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public class StripedExecutor {
+
+    private static final class DefaultHolder {
+
+        static final StripedExecutor DEFAULT = new StripedExecutor("socket-dispatch",
+                Integer.getInteger("socket.dispatch.lanes",
+                        Runtime.getRuntime().availableProcessors() * 2));
+    }
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public StripedExecutor(final String name, int laneCount) {
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("laneCount must be positive (" + laneCount + ")");
+        }
+        lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            final String laneName = name + "-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, laneName + "-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+    }
+
+    /**
+     * 进程共享的默认实例，第一次使用时创建，线程在有任务时才启动.
+     *
+     * @return StripedExecutor
+     */
+    public static StripedExecutor getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * key 对应的通道.
+     *
+     * @param key 如 ChannelContext
+     * @return 单线程的 Executor
+     */
+    public Executor lane(Object key) {
+        return lanes[indexOf(key)];
+    }
+
+    /**
+     * 在 key 对应的通道中执行任务.
+     *
+     * @param key  如 ChannelContext
+     * @param task 任务
+     */
+    public void execute(Object key, Runnable task) {
+        lanes[indexOf(key)].execute(task);
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * 各通道中排队的任务总数.
+     *
+     * @return 数量
+     */
+    public int pendingTasks() {
+        int n = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            n += lane.getQueue().size();
+        }
+        return n;
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+    }
+
+    private int indexOf(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        // 打散低位
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % lanes.length;
+    }
+}
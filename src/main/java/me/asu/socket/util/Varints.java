@@ -0,0 +1,118 @@
+package me.asu.socket.util;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Varints.
+ * 无符号变长整数（LEB128，与 protobuf 的 varint 相同）：每字节 7 位，最高位表示后面还有字节。
+ * 小于 128 的值只占 1 字节，int 最多 5 字节；负数按无符号处理，占 5 字节。
+ *
+ * @author Suk
+ * @version 1.0.0
+ * @since 2026-10-17
+ */
+public final class Varints {
+
+    /** int 编码后的最大字节数. */
+    public static final int MAX_INT_SIZE = 5;
+
+    private Varints() {
+    }
+
+    /**
+     * 编码后的字节数.
+     *
+     * @param value 值
+     * @return 1 到 5
+     */
+    public static int sizeOf(int value) {
+        if ((value & 0xFFFFFF80) == 0) {
+            return 1;
+        }
+        if ((value & 0xFFFFC000) == 0) {
+            return 2;
+        }
+        if ((value & 0xFFE00000) == 0) {
+            return 3;
+        }
+        if ((value & 0xF0000000) == 0) {
+            return 4;
+        }
+        return 5;
+    }
+
+    /**
+     * 写入 dst，position 后移.
+     *
+     * @param dst   目标缓冲区
+     * @param value 值
+     */
+    public static void write(ByteBuffer dst, int value) {
+        while ((value & 0xFFFFFF80) != 0) {
+            dst.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        dst.put((byte) value);
+    }
+
+    /**
+     * 从 src 读取，position 后移.
+     *
+     * @param src 数据
+     * @return 值
+     * @throws BufferUnderflowException 数据不完整
+     * @throws IllegalArgumentException 超过 5 字节
+     */
+    public static int read(ByteBuffer src) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = src.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * src 中 index 处的 varint 的字节数，不移动 position.
+     *
+     * @param src   数据，以 limit 为界
+     * @param index 开始位置
+     * @return 1 到 5，数据不完整时返回 0
+     * @throws IllegalArgumentException 超过 5 字节
+     */
+    public static int sizeAt(ByteBuffer src, int index) {
+        int limit = src.limit();
+        for (int i = 0; i < MAX_INT_SIZE; i++) {
+            if (index + i >= limit) {
+                return 0;
+            }
+            if (src.get(index + i) >= 0) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * 读取 index 处的 varint，不移动 position，调用前用 {@link #sizeAt(ByteBuffer, int)} 确认数据完整.
+     *
+     * @param src   数据
+     * @param index 开始位置
+     * @return 值
+     */
+    public static int getAt(ByteBuffer src, int index) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = src.get(index++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
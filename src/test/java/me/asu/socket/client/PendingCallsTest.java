@@ -0,0 +1,149 @@
+package me.asu.socket.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import me.asu.socket.message.IProtoMessage;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.message.SliceProtoMessage;
+import me.asu.socket.util.HashedWheelTimer;
+import me.asu.socket.util.ReadBuffer;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class PendingCallsTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10,
+            TimeUnit.MILLISECONDS, 64);
+    private final PendingCalls     calls = new PendingCalls(timer);
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    private static ProtoMessage response(int seqId) {
+        ProtoMessage resp = new ProtoMessage();
+        resp.header().seqId = seqId;
+        resp.header().cmdType = ProtoMessageHeader.CMD_TYPE_RESPONSE;
+        return resp;
+    }
+
+    @Test
+    public void responsesMatchBySeqId() throws Exception {
+        ProtoMessage a = new ProtoMessage();
+        ProtoMessage b = new ProtoMessage();
+        CompletableFuture<IProtoMessage> fa = calls.register(a, 1, TimeUnit.SECONDS);
+        CompletableFuture<IProtoMessage> fb = calls.register(b, 1, TimeUnit.SECONDS);
+        assertNotEquals(a.seqId(), b.seqId());
+        assertEquals(ProtoMessageHeader.CMD_TYPE_REQUEST, a.header().cmdType);
+
+        ProtoMessage rb = response(b.seqId());
+        assertTrue(calls.complete(rb));
+        assertSame(rb, fb.get());
+        assertFalse(fa.isDone());
+        // 请求类型的报文不是响应
+        ProtoMessage notResp = response(a.seqId());
+        notResp.header().cmdType = ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+        assertFalse(calls.complete(notResp));
+        assertTrue(calls.complete(response(a.seqId())));
+        assertFalse(calls.complete(response(a.seqId())));
+        assertEquals(0, calls.size());
+    }
+
+    @Test
+    public void sliceResponseIsReleased() throws Exception {
+        ProtoMessage req = new ProtoMessage();
+        CompletableFuture<IProtoMessage> f = calls.register(req, 1, TimeUnit.SECONDS);
+        ProtoMessage resp = response(req.seqId());
+        resp.setBody(new byte[10]);
+        byte[] pack = resp.pack();
+        ReadBuffer buffer = new ReadBuffer(64);
+        buffer.write(pack, 0, pack.length);
+        SliceProtoMessage box = new SliceProtoMessage();
+        assertTrue(buffer.unpack(box) > 0);
+
+        assertTrue(calls.complete(box));
+        // 接收线程在 onRecv 之后回收
+        box.recycle();
+        IProtoMessage got = f.get();
+        assertSame(box, got);
+        assertEquals(1, box.refCnt());
+        assertTrue(buffer.isShared());
+        got.recycle();
+        assertEquals(0, box.refCnt());
+        assertFalse(buffer.isShared());
+    }
+
+    @Test
+    public void timesOutOnTimer() throws Exception {
+        ProtoMessage req = new ProtoMessage();
+        CompletableFuture<IProtoMessage> f = calls.register(req, 50, TimeUnit.MILLISECONDS);
+        try {
+            f.get(2, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        // 迟到的响应不再匹配
+        assertFalse(calls.complete(response(req.seqId())));
+    }
+
+    @Test
+    public void timeoutCompletesOnExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Thread callbackThread = executor.submit(new Callable<Thread>() {
+                @Override
+                public Thread call() {
+                    return Thread.currentThread();
+                }
+            }).get();
+            PendingCalls onExecutor = new PendingCalls(timer, executor);
+            final CompletableFuture<Thread> stage = new CompletableFuture<Thread>();
+            onExecutor.register(new ProtoMessage(), 50, TimeUnit.MILLISECONDS)
+                    .whenComplete(new BiConsumer<IProtoMessage, Throwable>() {
+                        @Override
+                        public void accept(IProtoMessage m, Throwable e) {
+                            stage.complete(Thread.currentThread());
+                        }
+                    });
+            // 非 Async 的阶段不在定时器线程中执行
+            assertSame(callbackThread, stage.get(2, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failAndClose() throws Exception {
+        ProtoMessage a = new ProtoMessage();
+        ProtoMessage b = new ProtoMessage();
+        CompletableFuture<IProtoMessage> fa = calls.register(a, 1, TimeUnit.SECONDS);
+        CompletableFuture<IProtoMessage> fb = calls.register(b, 1, TimeUnit.SECONDS);
+        // 不是登记的请求对象，不影响
+        ProtoMessage other = new ProtoMessage();
+        other.header().seqId = a.seqId();
+        calls.fail(other, new IOException());
+        assertFalse(fa.isDone());
+
+        calls.fail(a, new IOException("send"));
+        assertTrue(fa.isCompletedExceptionally());
+        calls.connectionClosed();
+        assertTrue(fb.isCompletedExceptionally());
+        assertEquals(0, calls.size());
+    }
+}
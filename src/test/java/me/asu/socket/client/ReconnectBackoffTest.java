@@ -0,0 +1,46 @@
+package me.asu.socket.client;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class ReconnectBackoffTest {
+
+    @Test
+    public void delaysStayWithinBaseAndCap() {
+        ReconnectBackoff backoff = new ReconnectBackoff(100, 2000, 0);
+        long prev = 100;
+        boolean grew = false;
+        for (int i = 0; i < 1000; i++) {
+            long delay = backoff.nextDelayMillis();
+            assertTrue(delay >= 100);
+            assertTrue(delay <= 2000);
+            assertTrue(delay <= Math.max(100, prev * 3));
+            grew |= delay > 300;
+            prev = delay;
+        }
+        assertTrue(grew);
+        assertEquals(1000, backoff.getAttempts());
+    }
+
+    @Test
+    public void maxAttemptsAndReset() {
+        ReconnectBackoff backoff = new ReconnectBackoff(10, 10, 3);
+        assertEquals(10, backoff.nextDelayMillis());
+        assertEquals(10, backoff.nextDelayMillis());
+        assertEquals(10, backoff.nextDelayMillis());
+        assertEquals(-1, backoff.nextDelayMillis());
+        backoff.reset();
+        assertEquals(0, backoff.getAttempts());
+        assertEquals(10, backoff.nextDelayMillis());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsCapBelowBase() {
+        new ReconnectBackoff(100, 10, 0);
+    }
+}
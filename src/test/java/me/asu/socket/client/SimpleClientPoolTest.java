@@ -0,0 +1,89 @@
+package me.asu.socket.client;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import me.asu.socket.message.IMessage;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.server.ChannelContext;
+import me.asu.socket.server.Handler.HandlerAdapter;
+import me.asu.socket.server.IoMode;
+import me.asu.socket.server.Server;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class SimpleClientPoolTest {
+
+    private Server           server;
+    private SimpleClientPool pool;
+
+    @Before
+    public void setUp() {
+        server = new Server(0).withIoMode(IoMode.NIO).withHandler(new HandlerAdapter() {
+            @Override
+            public void onRecv(IMessage message, ChannelContext ctx) {
+                ctx.send(ProtoMessage.create((ProtoMessage) message));
+            }
+        });
+        int port = server.start();
+        pool = new SimpleClientPool("127.0.0.1", port).withConnections(2, 3)
+                .withBorrowTimeout(100, TimeUnit.MILLISECONDS)
+                .withValidation(0, 1, TimeUnit.SECONDS);
+        pool.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        pool.close();
+        server.shutdown();
+    }
+
+    @Test
+    public void prewarmBorrowAndReturn() throws Exception {
+        assertEquals(2, pool.getIdleCount());
+        SimpleClient a = pool.borrow();
+        SimpleClient b = pool.borrow();
+        SimpleClient c = pool.borrow();
+        assertEquals(0, pool.getIdleCount());
+        assertEquals(3, pool.getActiveCount());
+        try {
+            pool.borrow();
+            fail();
+        } catch (TimeoutException e) {
+            // max connections
+        }
+
+        ProtoMessage req = new ProtoMessage();
+        req.header().cmdId = 5;
+        a.send(req);
+        assertEquals(5, ((ProtoMessage) a.receive()).cmdId());
+
+        pool.returnClient(a);
+        pool.returnClient(b);
+        pool.invalidate(c);
+        assertEquals(2, pool.getIdleCount());
+        // 后进先出
+        assertSame(b, pool.borrow());
+        pool.returnClient(b);
+    }
+
+    @Test
+    public void validationEvictsAndRefills() throws Exception {
+        assertTrue(pool.validate(pool.borrow()));
+        SimpleClient broken = pool.borrow();
+        broken.closeConn();
+        assertFalse(pool.validate(broken));
+        pool.returnClient(broken);
+        // 已断开的不放回
+        assertEquals(0, pool.getIdleCount());
+
+        pool.maintain();
+        assertEquals(2, pool.getActiveCount() + pool.getIdleCount());
+    }
+}
@@ -0,0 +1,122 @@
+package me.asu.socket.codec;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.SliceProtoMessage;
+import me.asu.socket.util.ReadBuffer;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class CodecPipelineTest {
+
+    private static CodecPipeline lengthPrefixed() {
+        return new CodecPipeline()
+                .frameDecoder(new LengthFieldFrameDecoder(1024 * 1024, 0, 4, 0, 4))
+                .addEncoder(new LengthFieldPrepender());
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    @Test
+    public void roundTripWithLengthPrefix() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setSeqId(3);
+        message.setBody(new byte[]{1, 2, 3, 4, 5});
+        byte[] encoded = toBytes(lengthPrefixed().encode(message));
+        assertEquals(4 + message.encodedSize(), encoded.length);
+
+        CodecPipeline pipeline = lengthPrefixed();
+        ReadBuffer readBuffer = new ReadBuffer(16);
+        // 分两次到达
+        readBuffer.write(encoded, 0, 7);
+        ProtoMessage box = new ProtoMessage();
+        assertEquals(0, readBuffer.unpack(box, pipeline));
+        readBuffer.write(encoded, 7, encoded.length - 7);
+        assertEquals(encoded.length, readBuffer.unpack(box, pipeline));
+        assertEquals(3, box.seqId());
+        assertTrue(Arrays.equals(new byte[]{1, 2, 3, 4, 5}, box.getBody()));
+        assertEquals(0, readBuffer.readableBytes());
+    }
+
+    @Test
+    public void sliceMessageReferencesReceiveBuffer() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.setBody(new byte[100]);
+        byte[] encoded = toBytes(lengthPrefixed().encode(message));
+
+        ReadBuffer readBuffer = new ReadBuffer(1024);
+        readBuffer.write(encoded, 0, encoded.length);
+        SliceProtoMessage box = new SliceProtoMessage();
+        assertEquals(encoded.length, readBuffer.unpack(box, lengthPrefixed()));
+        assertEquals(100, box.bodySlice().remaining());
+        box.recycle();
+    }
+
+    @Test
+    public void droppedFramesAreSkipped() throws Exception {
+        ProtoMessage drop = new ProtoMessage();
+        drop.getHeader().setCmdId(1);
+        ProtoMessage keep = new ProtoMessage();
+        keep.getHeader().setCmdId(2);
+        CodecPipeline pipeline = new CodecPipeline().addDecoder(new Decoder() {
+            @Override
+            public ByteBuffer decode(ByteBuffer frame) {
+                return frame.getInt(frame.position()) == 1 ? null : frame;
+            }
+        });
+
+        ReadBuffer readBuffer = new ReadBuffer(64);
+        byte[] a = drop.pack();
+        byte[] b = keep.pack();
+        readBuffer.write(a, 0, a.length);
+        readBuffer.write(b, 0, b.length);
+        ProtoMessage box = new ProtoMessage();
+        assertEquals(b.length, readBuffer.unpack(box, pipeline));
+        assertEquals(2, box.header().cmdId);
+        assertEquals(0, readBuffer.readableBytes());
+    }
+
+    @Test
+    public void oversizedFrameClearsBuffer() throws Exception {
+        CodecPipeline pipeline = new CodecPipeline()
+                .frameDecoder(new LengthFieldFrameDecoder(64, 0, 4, 0, 4));
+        ReadBuffer readBuffer = new ReadBuffer(64);
+        readBuffer.write(new byte[]{0, 0, 1, 0, 9, 9}, 0, 6);
+        assertEquals(-1, readBuffer.unpack(new ProtoMessage(), pipeline));
+        assertEquals(0, readBuffer.readableBytes());
+    }
+
+    @Test
+    public void protoFrameDecoderSplitsHeaderAndBody() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.setBody(new byte[10]);
+        byte[] pack = message.pack();
+        ByteBuffer in = ByteBuffer.allocate(pack.length * 2);
+        in.put(pack).put(pack, 0, 5).flip();
+
+        FrameDecoder decoder = LengthFieldFrameDecoder.forProtoMessage(1024);
+        ByteBuffer frame = decoder.decode(in);
+        assertEquals(pack.length, frame.remaining());
+        assertEquals(pack.length, in.position());
+        assertNull(decoder.decode(in));
+        assertEquals(pack.length, in.position());
+    }
+
+    @Test
+    public void emptyPipelineHasNoStages() {
+        CodecPipeline pipeline = new CodecPipeline();
+        assertFalse(pipeline.hasInbound());
+        assertFalse(pipeline.hasOutbound());
+        assertNull(CodecPipeline.create(null));
+    }
+}
@@ -0,0 +1,194 @@
+package me.asu.socket.codec;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.message.SimpleMessage;
+import me.asu.socket.util.ReadBuffer;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class CompactHeaderCodecTest {
+
+    private static CodecPipeline pipeline(CompactHeaderCodec codec) {
+        return new CodecPipeline().frameDecoder(codec.frameDecoder()).addDecoder(codec)
+                .addEncoder(codec);
+    }
+
+    private static ProtoMessage notification(int seqId, int bodyLength) {
+        ProtoMessage message = new ProtoMessage();
+        message.header().cmdId = 30;
+        message.header().seqId = seqId;
+        message.header().cmdType = ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+        message.setBody(new byte[bodyLength]);
+        Arrays.fill(message.getBody(), (byte) seqId);
+        return message;
+    }
+
+    /**
+     * 编码后写入 buffer，返回线上的字节数.
+     */
+    private static int send(CodecPipeline from, ReadBuffer to, ProtoMessage message)
+            throws Exception {
+        ByteBuffer frame = from.encode(message);
+        int n = frame.remaining();
+        to.write(frame);
+        return n;
+    }
+
+    @Test
+    public void negotiateAndShrinkSmallMessages() throws Exception {
+        CompactHeaderCodec client = new CompactHeaderCodec(true);
+        CompactHeaderCodec server = new CompactHeaderCodec(false);
+        CodecPipeline c = pipeline(client);
+        CodecPipeline s = pipeline(server);
+        ReadBuffer toServer = new ReadBuffer(64);
+        ReadBuffer toClient = new ReadBuffer(64);
+
+        // 服务端收到握手之前按普通格式发送
+        assertEquals(30, send(s, toClient, notification(1, 14)));
+        ProtoMessage box = new ProtoMessage();
+        assertTrue(toClient.unpack(box, c) > 0);
+        assertEquals(1, box.seqId());
+
+        // 第一个帧带着 OFFER，仍然是普通格式
+        assertEquals(16 + 30, send(c, toServer, notification(2, 14)));
+        // 没有收到服务端的握手，继续普通格式
+        assertEquals(30, send(c, toServer, notification(3, 14)));
+        for (int i = 2; i < 4; i++) {
+            box = new ProtoMessage();
+            assertTrue(toServer.unpack(box, s) > 0);
+            assertEquals(i, box.seqId());
+            assertEquals(30, box.cmdId());
+            assertEquals(ProtoMessageHeader.CMD_TYPE_NOTIFICATION, box.header().cmdType);
+            assertEquals(14, box.getBody().length);
+            assertEquals(i, box.getBody()[13]);
+        }
+        assertFalse(server.isPeerCompact());
+
+        // 服务端的第一个紧凑帧带着 SWITCH
+        assertEquals(16 + 5 + 14, send(s, toClient, notification(4, 14)));
+        assertEquals(5 + 14, send(s, toClient, notification(5, 14)));
+        for (int i = 4; i < 6; i++) {
+            box = new ProtoMessage();
+            assertTrue(toClient.unpack(box, c) > 0);
+            assertEquals(i, box.seqId());
+            assertEquals(i, box.getBody()[0]);
+        }
+        assertTrue(client.isPeerCompact());
+
+        // 客户端收到 SWITCH 之后也改用紧凑格式
+        for (int i = 6; i < 9; i++) {
+            int hello = i == 6 ? 16 : 0;
+            assertEquals(hello + 5 + 14, send(c, toServer, notification(i, 14)));
+        }
+        for (int i = 6; i < 9; i++) {
+            box = new ProtoMessage();
+            assertTrue(toServer.unpack(box, s) > 0);
+            assertEquals(i, box.seqId());
+            assertEquals(i, box.getBody()[0]);
+        }
+        assertTrue(server.isPeerCompact());
+        assertEquals(0, toServer.readableBytes());
+        assertEquals(0, toClient.readableBytes());
+    }
+
+    @Test
+    public void peerWithoutCodecGetsStandardFrames() throws Exception {
+        CompactHeaderCodec client = new CompactHeaderCodec(true);
+        CodecPipeline c = pipeline(client);
+        // 对端没有编解码器：握手帧作为普通报文收到，不回复
+        ReadBuffer toServer = new ReadBuffer(64);
+        assertEquals(16 + 30, send(c, toServer, notification(1, 14)));
+        for (int i = 2; i < 5; i++) {
+            assertEquals(30, send(c, toServer, notification(i, 14)));
+        }
+        ProtoMessage box = new ProtoMessage();
+        assertTrue(toServer.unpack(box) > 0);
+        assertEquals(CompactHeaderCodec.CMD_ID_COMPACT_HEADER, box.cmdId());
+        for (int i = 1; i < 5; i++) {
+            box = new ProtoMessage();
+            assertTrue(toServer.unpack(box) > 0);
+            assertEquals(i, box.seqId());
+            assertEquals(14, box.getBody().length);
+        }
+        assertEquals(0, toServer.readableBytes());
+    }
+
+    @Test
+    public void allFieldsAndPartialFrames() throws Exception {
+        CompactHeaderCodec client = new CompactHeaderCodec(true);
+        CompactHeaderCodec server = new CompactHeaderCodec(false);
+        CodecPipeline c = pipeline(client);
+        CodecPipeline s = pipeline(server);
+        ReadBuffer toServer = new ReadBuffer(64);
+        ReadBuffer toClient = new ReadBuffer(64);
+        // 握手：OFFER，对端回复 SWITCH，本端再发 SWITCH
+        send(c, toServer, notification(0, 0));
+        assertTrue(toServer.unpack(new ProtoMessage(), s) > 0);
+        send(s, toClient, notification(0, 0));
+        assertTrue(toClient.unpack(new ProtoMessage(), c) > 0);
+        send(c, toServer, notification(0, 0));
+        assertTrue(toServer.unpack(new ProtoMessage(), s) > 0);
+        assertTrue(server.isPeerCompact());
+
+        ProtoMessage message = new ProtoMessage();
+        ProtoMessageHeader h = message.header();
+        h.cmdId = Integer.MIN_VALUE + 100;
+        h.seqId = -1;
+        h.cmdType = ProtoMessageHeader.CMD_TYPE_RESPONSE;
+        h.bodyType = ProtoMessageHeader.BODY_TYPE_RAW;
+        h.code = 7;
+        h.ttl = 3;
+        message.setBody(new byte[300]);
+        ByteBuffer frame = c.encode(message);
+        // 头部比普通格式长的情况
+        assertEquals(1 + 2 + 5 + 5 + 4 + 300, frame.remaining());
+        byte[] wire = new byte[frame.remaining()];
+        frame.get(wire);
+
+        ProtoMessage box = new ProtoMessage();
+        for (int i = 0; i < wire.length; i++) {
+            assertEquals(0, toServer.unpack(box, s));
+            toServer.write(wire, i, 1);
+        }
+        assertEquals(wire.length, toServer.unpack(box, s));
+        assertEquals(h.cmdId, box.cmdId());
+        assertEquals(-1, box.seqId());
+        assertEquals(ProtoMessageHeader.CMD_TYPE_RESPONSE, box.header().cmdType);
+        assertEquals(ProtoMessageHeader.BODY_TYPE_RAW, box.header().bodyType);
+        assertEquals(7, box.header().code);
+        assertEquals(3, box.header().ttl);
+        assertEquals(300, box.getBody().length);
+    }
+
+    @Test
+    public void varintLengthForSimpleMessage() throws Exception {
+        VarintLengthCodec sender = new VarintLengthCodec();
+        VarintLengthCodec receiver = new VarintLengthCodec();
+        CodecPipeline out = new CodecPipeline().addEncoder(sender);
+        CodecPipeline in = new CodecPipeline().frameDecoder(receiver.frameDecoder());
+        ReadBuffer buffer = new ReadBuffer(64);
+
+        int[] sizes = {0, 10, 127, 128, 20000};
+        for (int size : sizes) {
+            SimpleMessage message = new SimpleMessage();
+            message.setBody(new byte[size]);
+            ByteBuffer frame = out.encode(message);
+            assertEquals(size + (size < 128 ? 1 : size < 16384 ? 2 : 3), frame.remaining());
+            buffer.write(frame);
+        }
+        for (int size : sizes) {
+            SimpleMessage box = new SimpleMessage();
+            assertTrue(buffer.unpack(box, in) > 0);
+            assertEquals(size, box.body().length);
+        }
+        assertEquals(0, buffer.readableBytes());
+    }
+}
@@ -0,0 +1,105 @@
+package me.asu.socket.codec;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.util.ReadBuffer;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class DeflateCodecTest {
+
+    private static byte[] json(int items) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"item\",\"enabled\":true},");
+        }
+        sb.setCharAt(sb.length() - 1, ']');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer frameOf(byte[] body) throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setCmdId(9);
+        message.getHeader().setBodyType(ProtoMessageHeader.BODY_TYPE_STR_UTF8);
+        message.setBody(body);
+        return ByteBuffer.wrap(message.pack());
+    }
+
+    @Test
+    public void compressLargeBodyAndRestore() throws Exception {
+        byte[] body = json(200);
+        DeflateCodec codec = new DeflateCodec(1024);
+        ByteBuffer frame = codec.encode(frameOf(body));
+
+        assertTrue(frame.remaining() < 16 + body.length);
+        assertEquals(frame.remaining() - 16, frame.getInt(8));
+        assertTrue((frame.get(13) & ProtoMessageHeader.BODY_TYPE_FLAG_COMPRESSED) != 0);
+
+        ByteBuffer decoded = codec.decode(frame);
+        ProtoMessage box = new ProtoMessage();
+        assertTrue(box.decodeFrom(decoded) > 0);
+        assertEquals(9, box.cmdId());
+        assertEquals(ProtoMessageHeader.BODY_TYPE_STR_UTF8, box.header().bodyType);
+        assertTrue(Arrays.equals(body, box.getBody()));
+    }
+
+    @Test
+    public void smallAndIncompressibleBodiesAreUntouched() throws Exception {
+        DeflateCodec codec = new DeflateCodec(1024);
+        byte[] small = json(2);
+        ByteBuffer frame = codec.encode(frameOf(small));
+        assertEquals(16 + small.length, frame.remaining());
+        assertEquals(0, frame.get(13) & ProtoMessageHeader.BODY_TYPE_FLAG_COMPRESSED);
+
+        byte[] random = new byte[4096];
+        new Random(1).nextBytes(random);
+        frame = codec.encode(frameOf(random));
+        assertEquals(16 + random.length, frame.remaining());
+        assertSame(frame, codec.decode(frame));
+    }
+
+    @Test
+    public void pipelineRoundTripThroughReadBuffer() throws Exception {
+        DeflateCodec codec = new DeflateCodec(64);
+        CodecPipeline pipeline = new CodecPipeline().addDecoder(codec).addEncoder(codec);
+        ReadBuffer readBuffer = new ReadBuffer(256);
+        byte[][] bodies = {json(100), json(1), json(300)};
+        for (byte[] body : bodies) {
+            ProtoMessage message = new ProtoMessage();
+            message.setBody(body);
+            ByteBuffer frame = pipeline.encode(message);
+            byte[] bytes = new byte[frame.remaining()];
+            frame.get(bytes);
+            readBuffer.write(bytes, 0, bytes.length);
+        }
+        for (byte[] body : bodies) {
+            ProtoMessage box = new ProtoMessage();
+            assertTrue(readBuffer.unpack(box, pipeline) > 0);
+            assertTrue(Arrays.equals(body, box.getBody()));
+        }
+        assertEquals(0, readBuffer.readableBytes());
+    }
+
+    @Test(expected = CorruptedFrameException.class)
+    public void corruptedBodyIsRejected() throws Exception {
+        DeflateCodec codec = new DeflateCodec(64);
+        ByteBuffer frame = codec.encode(frameOf(json(100)));
+        frame.put(16 + 6, (byte) ~frame.get(16 + 6));
+        codec.decode(frame);
+    }
+
+    @Test(expected = CorruptedFrameException.class)
+    public void oversizedBodyIsRejected() throws Exception {
+        ByteBuffer frame = new DeflateCodec(64).encode(frameOf(json(100)));
+        new DeflateCodec(64, 1, 100).decode(frame);
+    }
+}
@@ -0,0 +1,103 @@
+package me.asu.socket.codec;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.util.ReadBuffer;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class DictionaryCodecTest {
+
+    private static byte[] event(int i) {
+        return ("{\"type\":\"order.updated\",\"orderId\":" + (100000 + i)
+                + ",\"status\":\"SHIPPED\",\"customer\":{\"id\":" + (i * 7)
+                + ",\"level\":\"gold\",\"region\":\"cn-east\"},\"items\":[{\"sku\":\"A-" + i
+                + "\",\"quantity\":" + (i % 5 + 1) + ",\"price\":19.90}],\"updatedAt\":"
+                + (1700000000000L + i) + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] dictionary() {
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < 20; i++) {
+            samples.add(event(i * 13));
+        }
+        return DictionaryCodec.buildDictionary(samples, 4096);
+    }
+
+    private static void transfer(CodecPipeline from, CodecPipeline to, ReadBuffer buffer,
+            byte[] body, ProtoMessage box) throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.setBody(body);
+        ByteBuffer frame = from.encode(message);
+        byte[] bytes = new byte[frame.remaining()];
+        frame.get(bytes);
+        buffer.write(bytes, 0, bytes.length);
+        assertTrue(buffer.unpack(box, to) > 0);
+    }
+
+    @Test
+    public void dictionaryShrinksSmallBodies() throws Exception {
+        byte[] dict = dictionary();
+        byte[] body = event(1000);
+        ByteBuffer plain = new DeflateCodec(0).encode(ByteBuffer.wrap(pack(body)));
+        ByteBuffer withDict = new DictionaryCodec(dict).encode(ByteBuffer.wrap(pack(body)));
+        // 去掉握手帧
+        int compressed = withDict.remaining() - 16 - dict.length - 16;
+        assertTrue("" + compressed, compressed * 3 < body.length);
+        assertTrue(compressed < plain.remaining() - 16);
+    }
+
+    @Test
+    public void handshakeOnceAndMirrorPeerDictionary() throws Exception {
+        DictionaryCodec client = new DictionaryCodec(dictionary());
+        DictionaryCodec server = new DictionaryCodec(null);
+        CodecPipeline c = new CodecPipeline().addDecoder(client).addEncoder(client);
+        CodecPipeline s = new CodecPipeline().addDecoder(server).addEncoder(server);
+        ReadBuffer toServer = new ReadBuffer(256);
+        ReadBuffer toClient = new ReadBuffer(256);
+
+        for (int i = 0; i < 3; i++) {
+            byte[] body = event(i);
+            ProtoMessage box = new ProtoMessage();
+            transfer(c, s, toServer, body, box);
+            assertTrue(Arrays.equals(body, box.getBody()));
+            assertTrue(server.hasPeerDictionary());
+            assertEquals(0, toServer.readableBytes());
+
+            box = new ProtoMessage();
+            transfer(s, c, toClient, body, box);
+            assertTrue(Arrays.equals(body, box.getBody()));
+        }
+
+        // 重连后重新握手
+        c.reset();
+        s.reset();
+        assertFalse(server.hasPeerDictionary());
+        ProtoMessage box = new ProtoMessage();
+        transfer(c, s, toServer, event(7), box);
+        assertTrue(Arrays.equals(event(7), box.getBody()));
+    }
+
+    @Test(expected = CorruptedFrameException.class)
+    public void unknownDictionaryIsRejected() throws Exception {
+        ByteBuffer frame = new DictionaryCodec(dictionary()).encode(ByteBuffer.wrap(pack(event(1))));
+        // 跳过握手帧
+        frame.position(16 + frame.getInt(8));
+        new DictionaryCodec(null).decode(frame.slice());
+    }
+
+    private static byte[] pack(byte[] body) throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.setBody(body);
+        return message.pack();
+    }
+}
@@ -0,0 +1,118 @@
+package me.asu.socket.message;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import me.asu.socket.util.ReadBuffer;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class BodyCodecsTest {
+
+    public static class Order {
+
+        private long   id;
+        private String status;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+    }
+
+    @Test
+    public void jsonRoundTripIsCached() throws Exception {
+        Order order = new Order();
+        order.setId(42);
+        order.setStatus("已发货");
+        ProtoMessage message = new ProtoMessage();
+        message.writeBody(order);
+        assertEquals(ProtoMessageHeader.BODY_TYPE_JSON, message.header().bodyType);
+        assertTrue(new String(message.getBody(), StandardCharsets.UTF_8).contains("\"id\":42"));
+
+        ProtoMessage received = new ProtoMessage();
+        assertTrue(received.unpack(message.pack()) > 0);
+        Order decoded = received.readBody(Order.class);
+        assertEquals(42, decoded.getId());
+        assertEquals("已发货", decoded.getStatus());
+        assertSame(decoded, received.readBody(Order.class));
+
+        // 报文体变化后重新解码
+        order.setId(43);
+        received.writeBody(order);
+        assertEquals(43, received.readBody(Order.class).getId());
+    }
+
+    @Test
+    public void jsonFromSliceWithoutCopy() throws Exception {
+        Order order = new Order();
+        order.setId(7);
+        ProtoMessage message = new ProtoMessage();
+        message.writeBody(order);
+        byte[] pack = message.pack();
+
+        ReadBuffer buffer = new ReadBuffer(64);
+        buffer.write(pack, 0, pack.length);
+        SliceProtoMessage slice = new SliceProtoMessage();
+        assertTrue(buffer.unpack(slice) > 0);
+        assertEquals(7, slice.readBody(Order.class).getId());
+        assertTrue(slice.bodySlice().isReadOnly());
+        slice.release();
+        try {
+            slice.readBody(Order.class);
+            fail("message is released");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void textAndBinaryBodyTypes() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.writeBody(ProtoMessageHeader.BODY_TYPE_STR_UTF8, "你好");
+        assertEquals("你好", message.readBody(String.class));
+
+        byte[] data = {0, 1, (byte) 0xAB, (byte) 0xFF};
+        message.writeBody(ProtoMessageHeader.BODY_TYPE_HEX_STR, data);
+        assertEquals("0001abff", new String(message.getBody(), StandardCharsets.US_ASCII));
+        assertTrue(Arrays.equals(data, message.readBody(byte[].class)));
+
+        message.writeBody(ProtoMessageHeader.BODY_TYPE_BASE64_STR, data);
+        assertEquals("AAGr/w==", new String(message.getBody(), StandardCharsets.US_ASCII));
+        assertTrue(Arrays.equals(data, message.readBody(byte[].class)));
+
+        message.writeBody(ProtoMessageHeader.BODY_TYPE_RAW, ByteBuffer.wrap(data));
+        assertTrue(Arrays.equals(data, message.readBody(byte[].class)));
+        assertEquals(4, message.readBody(ByteBuffer.class).remaining());
+
+        try {
+            message.readBody(String.class);
+            fail("raw body is not a string");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        message.header().bodyType = ProtoMessageHeader.BODY_TYPE_XML;
+        try {
+            message.readBody(String.class);
+            fail("no codec for xml");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package me.asu.socket.message;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import me.asu.util.Bytes;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class MessageBatchTest {
+
+    private static ProtoMessage message(int cmdId, int seqId, String body) {
+        ProtoMessage m = new ProtoMessage();
+        m.getHeader().setCmdId(cmdId);
+        m.getHeader().setSeqId(seqId);
+        m.getHeader().setCmdType(ProtoMessageHeader.CMD_TYPE_RESPONSE);
+        m.getHeader().setBodyType(ProtoMessageHeader.BODY_TYPE_STR_UTF8);
+        m.getHeader().setCode((byte) 2);
+        m.getHeader().setTtl((byte) 9);
+        m.setBody(Bytes.toBytes(body));
+        return m;
+    }
+
+    @Test
+    public void buildAndReadBack() throws Exception {
+        MessageBatch.Builder builder = new MessageBatch.Builder(16);
+        List<ProtoMessage> sent = new ArrayList<ProtoMessage>();
+        for (int i = 0; i < 100; i++) {
+            ProtoMessage m = message(i, i * 1000, "item-" + i);
+            sent.add(m);
+            builder.add(m);
+        }
+        sent.add(message(-5, Integer.MAX_VALUE, ""));
+        builder.add(sent.get(sent.size() - 1));
+        assertEquals(101, builder.count());
+
+        ProtoMessage batch = builder.build();
+        assertTrue(MessageBatch.isBatch(batch));
+        assertTrue(builder.isEmpty());
+        // 子报文的头部比 16 字节小得多
+        int plain = 0;
+        for (ProtoMessage m : sent) {
+            plain += m.encodedSize();
+        }
+        assertTrue(batch.encodedSize() < plain - 101 * 4);
+
+        // 经过编码和解码
+        ProtoMessage received = new ProtoMessage();
+        received.decodeFrom(ByteBuffer.wrap(batch.pack()));
+        MessageBatch.Reader reader = MessageBatch.read(received);
+        assertEquals(101, reader.count());
+        int i = 0;
+        for (ProtoMessage m : reader) {
+            assertEquals(sent.get(i++), m);
+        }
+        assertEquals(101, i);
+    }
+
+    @Test
+    public void readSliceMessage() throws Exception {
+        ProtoMessage batch = new MessageBatch.Builder().add(message(1, 2, "a"))
+                .add(message(3, 4, "bc")).build();
+        SliceProtoMessage slice = new SliceProtoMessage();
+        slice.decodeFrom(ByteBuffer.wrap(batch.pack()));
+        MessageBatch.Reader reader = MessageBatch.read(slice);
+        assertEquals("a", Bytes.toString(reader.next().body()));
+        assertEquals("bc", Bytes.toString(reader.next().body()));
+        assertFalse(reader.hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void malformedBatch() {
+        ProtoMessage batch = new MessageBatch.Builder().add(message(1, 2, "hello")).build();
+        byte[] body = batch.body();
+        ProtoMessage truncated = new ProtoMessage();
+        truncated.setBody(java.util.Arrays.copyOf(body, body.length - 2));
+        MessageBatch.read(truncated).next();
+    }
+}
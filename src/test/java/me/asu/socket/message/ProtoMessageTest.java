@@ -0,0 +1,57 @@
+package me.asu.socket.message;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import me.asu.util.Bytes;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class ProtoMessageTest {
+
+    @Test
+    public void encodeAndDecode() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setCmdId(10);
+        message.getHeader().setSeqId(20);
+        message.getHeader().setCmdType(ProtoMessageHeader.CMD_TYPE_RESPONSE);
+        message.getHeader().setBodyType(ProtoMessageHeader.BODY_TYPE_STR_UTF8);
+        message.getHeader().setCode((byte) 3);
+        message.setBody(Bytes.toBytes("hello"));
+
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        message.encodeTo(buffer);
+        assertEquals(message.encodedSize(), buffer.position());
+        assertArrayEquals(message.pack(), Arrays.copyOf(buffer.array(), buffer.position()));
+
+        buffer.flip();
+        ByteBuffer half = buffer.duplicate();
+        half.limit(10);
+        ProtoMessage message2 = new ProtoMessage();
+        assertEquals(0, message2.decodeFrom(half));
+        assertEquals(0, half.position());
+
+        assertEquals(message.encodedSize(), message2.decodeFrom(buffer));
+        assertFalse(buffer.hasRemaining());
+        assertEquals(message, message2);
+    }
+
+    @Test
+    public void negativeBodyLengthIsCorrupted() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setCmdId(10);
+        ByteBuffer buffer = ByteBuffer.wrap(message.pack());
+        buffer.putInt(8, -1);
+
+        ProtoMessage box = new ProtoMessage();
+        assertEquals(-1, box.decodeFrom(buffer));
+        assertEquals(0, buffer.position());
+        assertEquals(0, box.cmdId());
+        assertEquals(0, box.getBody().length);
+    }
+
+}
@@ -2,6 +2,7 @@ package me.asu.socket.message;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
 import me.asu.util.Bytes;
 import org.junit.Before;
 import org.junit.Test;
@@ -31,4 +32,15 @@ public class SimpleMessageTest {
         assertEquals(message, message2);
     }
 
+    @Test
+    public void negativeBodyLengthIsCorrupted() throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(message.pack());
+        buffer.putInt(0, -1);
+
+        SimpleMessage box = new SimpleMessage();
+        assertEquals(-1, box.decodeFrom(buffer));
+        assertEquals(0, buffer.position());
+        assertEquals(0, box.body().length);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,194 @@
+package me.asu.socket.server;
+
+import static org.junit.Assert.*;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import me.asu.socket.message.IProtoMessage;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.message.SliceProtoMessage;
+import me.asu.socket.util.ReadBuffer;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class CommandDispatcherTest {
+
+    private final BlockingQueue<Object> sent = new LinkedBlockingQueue<Object>();
+    private final ChannelContext        ctx  = new ChannelContext(new Connection() {
+        @Override
+        public InetSocketAddress getRemoteAddress() {
+            return new InetSocketAddress("127.0.0.1", 9999);
+        }
+
+        @Override
+        public void addSendData(Object data) {
+            sent.add(data);
+        }
+
+        @Override
+        public void addSendData(Object data, SendCallBack callBack) {
+            sent.add(data);
+        }
+
+        @Override
+        public void write(Object data, SendCallBack callBack) {
+            sent.add(data);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public boolean isWritable() {
+            return true;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    });
+
+    private static ProtoMessage request(int cmdId, int seqId) {
+        ProtoMessage m = new ProtoMessage();
+        m.header().cmdId = cmdId;
+        m.header().seqId = seqId;
+        return m;
+    }
+
+    private static final CommandHandler ECHO = new CommandHandler() {
+        @Override
+        public IProtoMessage handle(IProtoMessage request, ChannelContext ctx) {
+            ProtoMessage resp = new ProtoMessage();
+            resp.setBody(request.body());
+            return resp;
+        }
+    };
+
+    @Test
+    public void routesAndBuildsResponse() throws Exception {
+        CommandDispatcher dispatcher = new CommandDispatcher().register(7, ECHO)
+                .register(100000, ECHO).register(-5, ECHO);
+        for (int cmdId : new int[]{7, 100000, -5}) {
+            ProtoMessage req = request(cmdId, 42);
+            req.setBody(new byte[]{1, 2});
+            dispatcher.onRecv(req, ctx);
+            IProtoMessage resp = (IProtoMessage) sent.poll();
+            assertNotNull(resp);
+            assertEquals(cmdId, resp.cmdId());
+            assertEquals(42, resp.seqId());
+            assertEquals(ProtoMessageHeader.CMD_TYPE_RESPONSE, resp.header().cmdType);
+            assertArrayEquals(new byte[]{1, 2}, resp.body());
+        }
+    }
+
+    @Test
+    public void notificationsGetNoResponse() {
+        CommandDispatcher dispatcher = new CommandDispatcher().register(1, ECHO);
+        ProtoMessage req = request(1, 1);
+        req.header().cmdType = ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+        dispatcher.onRecv(req, ctx);
+        req = request(2, 1);
+        req.header().cmdType = ProtoMessageHeader.CMD_TYPE_NOTIFICATION;
+        dispatcher.onRecv(req, ctx);
+        assertTrue(sent.isEmpty());
+    }
+
+    @Test
+    public void errorCodes() {
+        CommandDispatcher dispatcher = new CommandDispatcher()
+                .register(1, new CommandHandler() {
+                    @Override
+                    public IProtoMessage handle(IProtoMessage request, ChannelContext ctx)
+                            throws Exception {
+                        throw new IllegalStateException("boom");
+                    }
+                })
+                .register(2, ECHO, new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        throw new RejectedExecutionException();
+                    }
+                });
+        dispatcher.onRecv(request(1, 10), ctx);
+        dispatcher.onRecv(request(2, 11), ctx);
+        dispatcher.onRecv(request(3, 12), ctx);
+        assertEquals(CommandDispatcher.CODE_ERROR, ((IProtoMessage) sent.poll()).header().code);
+        assertEquals(CommandDispatcher.CODE_BUSY, ((IProtoMessage) sent.poll()).header().code);
+        IProtoMessage unknown = (IProtoMessage) sent.poll();
+        assertEquals(CommandDispatcher.CODE_UNKNOWN_CMD, unknown.header().code);
+        assertEquals(12, unknown.seqId());
+    }
+
+    @Test
+    public void offloadsToExecutor() throws Exception {
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            final String[] thread = new String[1];
+            CommandDispatcher dispatcher = new CommandDispatcher()
+                    .register(3, new CommandHandler() {
+                        @Override
+                        public IProtoMessage handle(IProtoMessage request, ChannelContext ctx) {
+                            thread[0] = Thread.currentThread().getName();
+                            return new ProtoMessage();
+                        }
+                    }, pool);
+            dispatcher.onRecv(request(3, 5), ctx);
+            IProtoMessage resp = (IProtoMessage) sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(resp);
+            assertEquals(5, resp.seqId());
+            assertNotEquals(Thread.currentThread().getName(), thread[0]);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void offloadedSliceIsReleased() throws Exception {
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final CountDownLatch recycled = new CountDownLatch(1);
+        try {
+            CommandDispatcher dispatcher = new CommandDispatcher()
+                    .register(3, new CommandHandler() {
+                        @Override
+                        public IProtoMessage handle(IProtoMessage request, ChannelContext ctx)
+                                throws Exception {
+                            // 框架已经回收，报文体仍然有效
+                            recycled.await();
+                            return ECHO.handle(request, ctx);
+                        }
+                    }, pool);
+            ProtoMessage req = request(3, 6);
+            req.setBody(new byte[]{3, 4});
+            byte[] pack = req.pack();
+            ReadBuffer buffer = new ReadBuffer(64);
+            buffer.write(pack, 0, pack.length);
+            SliceProtoMessage slice = new SliceProtoMessage();
+            assertTrue(buffer.unpack(slice) > 0);
+
+            dispatcher.onRecv(slice, ctx);
+            slice.recycle();
+            recycled.countDown();
+            IProtoMessage resp = (IProtoMessage) sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(resp);
+            assertArrayEquals(new byte[]{3, 4}, resp.body());
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(0, slice.refCnt());
+            assertFalse(buffer.isShared());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package me.asu.socket.server;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import me.asu.socket.Constants;
+import me.asu.socket.message.IMessage;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.server.Handler.HandlerAdapter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link IoMode#NIO} 模式的收发.
+ *
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class NioServerTest {
+
+    private final BlockingQueue<Integer> errors = new LinkedBlockingQueue<Integer>();
+    private final BlockingQueue<String>  closed = new LinkedBlockingQueue<String>();
+    private final AtomicReference<ChannelContext> opened = new AtomicReference<ChannelContext>();
+    private Server server;
+    private Socket socket;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new Server(0).withIoMode(IoMode.NIO).withHandler(new HandlerAdapter() {
+            @Override
+            public void onOpen(ChannelContext ctx) {
+                opened.set(ctx);
+            }
+
+            @Override
+            public void onRecv(IMessage message, ChannelContext ctx) {
+                ProtoMessage echo = new ProtoMessage();
+                echo.setHeader(((ProtoMessage) message).getHeader());
+                echo.setBody(((ProtoMessage) message).getBody());
+                ctx.send(echo);
+            }
+
+            @Override
+            public void onClose(ChannelContext ctx) {
+                closed.add("close");
+            }
+
+            @Override
+            public void onError(int code, Throwable cause, ChannelContext ctx) {
+                errors.add(code);
+            }
+        });
+        int port = server.start();
+        socket = new Socket();
+        socket.connect(new InetSocketAddress("127.0.0.1", port), 2000);
+        socket.setSoTimeout(5000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        socket.close();
+        server.shutdown();
+    }
+
+    private static byte[] frame(int seqId, int bodyLength) throws IOException {
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setCmdId(1);
+        message.getHeader().setSeqId(seqId);
+        message.setBody(new byte[bodyLength]);
+        return message.pack();
+    }
+
+    private ProtoMessage readEcho() throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        byte[] header = new byte[16];
+        in.readFully(header);
+        int bodyLen = ByteBuffer.wrap(header).getInt(8);
+        byte[] pack = new byte[16 + bodyLen];
+        System.arraycopy(header, 0, pack, 0, 16);
+        in.readFully(pack, 16, bodyLen);
+        ProtoMessage message = new ProtoMessage();
+        assertEquals(pack.length, message.unpack(pack));
+        return message;
+    }
+
+    @Test
+    public void splitFrames() throws Exception {
+        OutputStream out = socket.getOutputStream();
+        byte[] first = frame(1, 100);
+        // 头部分两次到达
+        out.write(first, 0, 7);
+        out.flush();
+        Thread.sleep(50);
+        out.write(first, 7, 20);
+        out.flush();
+        Thread.sleep(50);
+        // 第一个报文的剩余部分和第二个报文的开头一起到达
+        byte[] second = frame(2, 5);
+        byte[] tail = new byte[first.length - 27 + 10];
+        System.arraycopy(first, 27, tail, 0, first.length - 27);
+        System.arraycopy(second, 0, tail, first.length - 27, 10);
+        out.write(tail);
+        out.flush();
+        ProtoMessage echo = readEcho();
+        assertEquals(1, echo.seqId());
+        assertEquals(100, echo.getBody().length);
+
+        out.write(second, 10, second.length - 10);
+        out.flush();
+        echo = readEcho();
+        assertEquals(2, echo.seqId());
+        assertEquals(5, echo.getBody().length);
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void corruptHeaderClosesConnection() throws Exception {
+        byte[] bad = frame(1, 0);
+        ByteBuffer.wrap(bad).putInt(8, -1);
+        OutputStream out = socket.getOutputStream();
+        out.write(bad);
+        out.flush();
+        assertEquals(Integer.valueOf(Constants.ERROR_RECV), errors.poll(5, TimeUnit.SECONDS));
+        assertNotNull(closed.poll(5, TimeUnit.SECONDS));
+        assertEquals(-1, socket.getInputStream().read());
+    }
+
+    @Test
+    public void sendsRacingCloseAllCallBack() throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (opened.get() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        final ChannelContext ctx = opened.get();
+        assertNotNull(ctx);
+        final int perThread = 5000;
+        final AtomicInteger callbacks = new AtomicInteger();
+        final SendCallBack callBack = new SendCallBack() {
+            @Override
+            public void onComplete(boolean suc) {
+                callbacks.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                callbacks.incrementAndGet();
+            }
+        };
+        Thread[] senders = new Thread[4];
+        for (int i = 0; i < senders.length; i++) {
+            senders[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < perThread; j++) {
+                        // 只入队不写出，留在队列中的报文只能由 close 通知
+                        ctx.write(new byte[16], callBack);
+                    }
+                }
+            });
+            senders[i].start();
+        }
+        Thread.sleep(1);
+        ctx.close();
+        for (Thread t : senders) {
+            t.join();
+        }
+        int total = perThread * senders.length;
+        deadline = System.currentTimeMillis() + 5000;
+        while (callbacks.get() < total && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(total, callbacks.get());
+    }
+}
@@ -0,0 +1,205 @@
+package me.asu.socket.server;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.asu.socket.message.*;
+import me.asu.socket.server.Handler.HandlerAdapter;
+import me.asu.socket.util.Stream;
+import me.asu.socket.util.VirtualThreads;
+
+/**
+ * 比较各 {@link IoMode} 的连接数、每连接线程和内存、echo 延迟 p99。
+ * 不是单元测试，手工运行：
+ * <pre>
+ * java ... me.asu.socket.server.ServerModeBenchmark [connections] [rounds]
+ * </pre>
+ * 客户端在单独的进程中运行，每连接内存只包含服务端。
+ * <ul>
+ * <li>served：服务端 onOpen 的连接数；alive：echo 期间一直有回复的连接数。</li>
+ * <li>threads/conn：{@link ThreadMXBean} 统计的平台线程，不包括虚拟线程。</li>
+ * <li>carriers：承载虚拟线程的平台线程数，已经包含在 threads/conn 中。</li>
+ * </ul>
+ *
+ * @author Suk
+ * @since 2026-10-17
+ */
+public class ServerModeBenchmark {
+
+    private static final String CLIENT = "client";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && CLIENT.equals(args[0])) {
+            runClients(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                    Integer.parseInt(args[3]));
+            return;
+        }
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        System.out.printf("%-9s %12s %10s %10s %14s %10s %14s %12s%n", "mode", "connections",
+                "served", "alive", "threads/conn", "carriers", "heapKB/conn", "p99(us)");
+        for (IoMode mode : IoMode.values()) {
+            if (mode == IoMode.VIRTUAL && !VirtualThreads.isSupported()) {
+                System.out.printf("%-9s skipped, requires JDK 21+ (current %s)%n", mode,
+                        System.getProperty("java.version"));
+                continue;
+            }
+            run(mode, connections, rounds);
+        }
+        System.exit(0);
+    }
+
+    private static void run(IoMode mode, int connections, int rounds) throws Exception {
+        final AtomicInteger opened = new AtomicInteger();
+        Server server = new Server(0).withIoMode(mode).withHandler(new HandlerAdapter() {
+            @Override
+            public void onOpen(ChannelContext ctx) {
+                opened.incrementAndGet();
+            }
+
+            @Override
+            public void onRecv(IMessage message, ChannelContext ctx) {
+                ctx.send(message);
+            }
+
+            @Override
+            public void onClose(ChannelContext ctx) {
+            }
+
+            @Override
+            public void onError(int code, Throwable cause, ChannelContext ctx) {
+            }
+        });
+        int port = server.start();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long heapBefore = usedHeap();
+        int threadsBefore = threads.getThreadCount();
+        int carriersBefore = carrierThreads();
+
+        Process process = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                "-cp", System.getProperty("java.class.path"), ServerModeBenchmark.class.getName(),
+                CLIENT, String.valueOf(port), String.valueOf(connections),
+                String.valueOf(rounds)).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        OutputStream out = process.getOutputStream();
+        try {
+            int connected = Integer.parseInt(in.readLine().trim());
+            // 等待服务端处理完 accept
+            for (int i = 0; i < 100 && opened.get() < connected; i++) {
+                Thread.sleep(50);
+            }
+            int served = opened.get();
+            long heapAfter = usedHeap();
+            int threadsAfter = threads.getThreadCount();
+            int carriers = carrierThreads() - carriersBefore;
+
+            out.write('\n');
+            out.flush();
+            String[] result = in.readLine().trim().split(" ");
+            int alive = Integer.parseInt(result[0]);
+            long p99 = Long.parseLong(result[1]);
+
+            int n = Math.max(served, 1);
+            System.out.printf("%-9s %12d %10d %10d %14.2f %10d %14.2f %12d%n", mode, connected,
+                    served, alive, (threadsAfter - threadsBefore) / (double) n, carriers,
+                    (heapAfter - heapBefore) / 1024.0 / n, p99);
+            process.waitFor();
+        } finally {
+            process.destroy();
+            server.shutdown();
+        }
+        Thread.sleep(500);
+    }
+
+    /**
+     * 客户端进程：建立连接后输出连接数，等到标准输入的一行后做 echo，输出 alive 和 p99.
+     */
+    private static void runClients(int port, int connections, int rounds) throws Exception {
+        List<Stream> clients = new ArrayList<Stream>(connections);
+        for (int i = 0; i < connections; i++) {
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 2000);
+                socket.setSoTimeout(500);
+            } catch (IOException e) {
+                // 服务端已经不再 accept，backlog 满了
+                break;
+            }
+            Stream client = new Stream(socket);
+            clients.add(client);
+        }
+        System.out.println(clients.size());
+        System.out.flush();
+        // 服务端统计完再开始
+        new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)).readLine();
+
+        // 超出服务端处理能力的连接收不到回复，从列表中剔除
+        List<Stream> alive = new ArrayList<Stream>(clients);
+        long[] latencies = new long[rounds];
+        int count = 0;
+        ProtoMessage ping = new ProtoMessage();
+        ping.setBody(new byte[64]);
+        for (int i = 0; i < rounds && !alive.isEmpty(); i++) {
+            Stream client = alive.get(i % alive.size());
+            ping.getHeader().setSeqId(i);
+            long start = System.nanoTime();
+            try {
+                client.write(ping);
+                if (!client.read(new ProtoMessage())) {
+                    alive.remove(client);
+                    continue;
+                }
+            } catch (Exception e) {
+                alive.remove(client);
+                continue;
+            }
+            latencies[count++] = System.nanoTime() - start;
+        }
+        latencies = Arrays.copyOf(latencies, count);
+        Arrays.sort(latencies);
+        long p99 = latencies.length == 0 ? -1 : latencies[(int) (latencies.length * 0.99)] / 1000;
+        System.out.println(alive.size() + " " + p99);
+        System.out.flush();
+
+        for (Stream client : clients) {
+            client.close();
+        }
+        System.exit(0);
+    }
+
+    /**
+     * 虚拟线程调度器的承载线程数.
+     */
+    private static int carrierThreads() {
+        int n = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if ("jdk.internal.misc.CarrierThread".equals(t.getClass().getName())) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
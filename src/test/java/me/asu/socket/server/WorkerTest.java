@@ -0,0 +1,234 @@
+package me.asu.socket.server;
+
+import static org.junit.Assert.*;
+
+import java.io.DataInputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import me.asu.socket.codec.CodecPipeline;
+import me.asu.socket.codec.DeflateCodec;
+import me.asu.socket.message.Heartbeat;
+import me.asu.socket.message.IMessage;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.server.Handler.HandlerAdapter;
+import me.asu.socket.util.FileRegion;
+import me.asu.socket.util.SendQueueLimits;
+import me.asu.socket.util.StripedExecutor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link IoMode#BLOCKING} 模式的发送回调.
+ *
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class WorkerTest {
+
+    private final BlockingQueue<Object> results = new LinkedBlockingQueue<Object>();
+    private ServerSocket serverSocket;
+    private Socket       client;
+    private Worker       worker;
+    private Path         file;
+
+    @Before
+    public void setUp() throws Exception {
+        serverSocket = new ServerSocket(0);
+        client = new Socket();
+        client.connect(new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()), 2000);
+        client.setSoTimeout(5000);
+        worker = new Worker(serverSocket.accept(), new HandlerAdapter(), 0);
+        file = Files.createTempFile("worker", ".bin");
+        Files.write(file, new byte[100]);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        worker.shutdown();
+        client.close();
+        serverSocket.close();
+        Files.deleteIfExists(file);
+    }
+
+    private SendCallBack callBack(final String name) {
+        return new SendCallBack() {
+            @Override
+            public void onComplete(boolean suc) {
+                results.add(name + ":" + suc);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                results.add(name + ":error");
+            }
+        };
+    }
+
+    private static ProtoMessage message(int seqId) {
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setSeqId(seqId);
+        message.setBody(new byte[10]);
+        return message;
+    }
+
+    private void start() {
+        Thread t = new Thread(worker, "worker-test");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private String next() throws InterruptedException {
+        Object r = results.poll(5, TimeUnit.SECONDS);
+        assertNotNull("callback not fired", r);
+        return (String) r;
+    }
+
+    @Test
+    public void callbacksOnSuccess() throws Exception {
+        // 启动前入队，发送线程一次取出整批
+        worker.write(message(1), callBack("a"));
+        worker.write(FileRegion.open(file, 0, -1, null), callBack("b"));
+        worker.addSendData(message(2), callBack("c"));
+        start();
+        assertEquals("a:true", next());
+        assertEquals("b:true", next());
+        assertEquals("c:true", next());
+
+        DataInputStream in = new DataInputStream(client.getInputStream());
+        byte[] wire = new byte[26 + 116 + 26];
+        in.readFully(wire);
+    }
+
+    @Test
+    public void callbacksOnWriteFailure() throws Exception {
+        // 经过编码流水线时不能发送文件，writeFile 抛出 IOException
+        worker.setCodecPipeline(new CodecPipeline().addEncoder(new DeflateCodec()));
+        worker.addSendData(new Object(), callBack("x"));
+        worker.write(message(1), callBack("a"));
+        worker.write(FileRegion.open(file, 0, -1, null), callBack("b"));
+        worker.addSendData(message(2), callBack("c"));
+        start();
+        assertEquals("x:error", next());
+        assertEquals("a:error", next());
+        assertEquals("b:error", next());
+        assertEquals("c:error", next());
+        assertNull(results.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void blockedLaneHoldsBackReader() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final BlockingQueue<Integer> received = new LinkedBlockingQueue<Integer>();
+        final BlockingQueue<Integer> errors = new LinkedBlockingQueue<Integer>();
+        StripedExecutor lanes = new StripedExecutor("worker-test", 1);
+        final Socket other = new Socket();
+        other.connect(new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()), 2000);
+        Worker slow = new Worker(serverSocket.accept(), new HandlerAdapter() {
+            @Override
+            public void onRecv(IMessage message, ChannelContext ctx) {
+                received.add(((ProtoMessage) message).seqId());
+            }
+
+            @Override
+            public void onError(int code, Throwable cause, ChannelContext ctx) {
+                errors.add(code);
+            }
+        }, 0, null, lanes, SendQueueLimits.DEFAULT);
+        try {
+            // 同一个通道上的另一个连接阻塞了回调线程
+            lanes.execute(this, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        blocked.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            Thread t = new Thread(slow, "worker-test-slow");
+            t.setDaemon(true);
+            t.start();
+            // 远多于回调积压的上限
+            final int count = 2000;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < count; i++) {
+                            other.getOutputStream().write(message(i).pack());
+                        }
+                    } catch (Exception e) {
+                        // 连接关闭
+                    }
+                }
+            }).start();
+            Thread.sleep(500);
+            assertTrue(received.isEmpty());
+            assertTrue(errors.isEmpty());
+
+            blocked.countDown();
+            for (int i = 0; i < count; i++) {
+                assertEquals(Integer.valueOf(i), received.poll(5, TimeUnit.SECONDS));
+            }
+            assertTrue(errors.isEmpty());
+        } finally {
+            blocked.countDown();
+            slow.shutdown();
+            other.close();
+            lanes.shutdown();
+        }
+    }
+
+    @Test
+    public void pingAnsweredWhileLaneBlocked() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        StripedExecutor lanes = new StripedExecutor("worker-test", 1);
+        Socket other = new Socket();
+        other.connect(new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()), 2000);
+        other.setSoTimeout(5000);
+        Worker slow = new Worker(serverSocket.accept(), new HandlerAdapter(), 0, null, lanes,
+                SendQueueLimits.DEFAULT);
+        try {
+            lanes.execute(this, new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        blocked.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            Thread t = new Thread(slow, "worker-test-slow");
+            t.setDaemon(true);
+            t.start();
+            // 排在回调线程中的普通报文不影响心跳
+            other.getOutputStream().write(message(1).pack());
+            ProtoMessage ping = Heartbeat.newPingNotification();
+            ping.getHeader().setSeqId(7);
+            other.getOutputStream().write(ping.pack());
+
+            DataInputStream in = new DataInputStream(other.getInputStream());
+            byte[] wire = new byte[16];
+            in.readFully(wire);
+            ProtoMessage pong = new ProtoMessage();
+            assertEquals(16, pong.unpack(wire));
+            assertTrue(Heartbeat.isPong(pong));
+            assertEquals(7, pong.seqId());
+        } finally {
+            blocked.countDown();
+            slow.shutdown();
+            other.close();
+            lanes.shutdown();
+        }
+    }
+}
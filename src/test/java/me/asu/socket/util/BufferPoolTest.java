@@ -0,0 +1,59 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class BufferPoolTest {
+
+    @Test
+    public void acquireRoundsUpAndReuses() {
+        BufferPool pool = new BufferPool(4, 2);
+        PooledByteBuffer a = pool.acquire(600);
+        ByteBuffer buffer = a.buffer();
+        assertTrue(buffer.isDirect());
+        assertEquals(1024, buffer.capacity());
+        buffer.put((byte) 1);
+        a.release();
+
+        PooledByteBuffer b = pool.acquire(1000);
+        assertSame(buffer, b.buffer());
+        assertEquals(0, b.buffer().position());
+        b.release();
+    }
+
+    @Test
+    public void unpooledAboveMaxSize() {
+        BufferPool pool = new BufferPool(4, 2);
+        PooledByteBuffer a = pool.acquire(BufferPool.MAX_SIZE + 1);
+        assertEquals(BufferPool.MAX_SIZE + 1, a.capacity());
+        a.release();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void doubleRelease() {
+        PooledByteBuffer a = new BufferPool(4, 2).acquire(10);
+        a.release();
+        a.release();
+    }
+
+    @Test
+    public void leakDetectionTracksUntilRelease() {
+        ResourceLeakDetector.Level level = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(ResourceLeakDetector.Level.PARANOID);
+        try {
+            BufferPool pool = new BufferPool(4, 2);
+            PooledByteBuffer a = pool.acquire(10);
+            assertEquals(1, pool.trackedCount());
+            a.release();
+            assertEquals(0, pool.trackedCount());
+        } finally {
+            ResourceLeakDetector.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class FileRegionTest {
+
+    private Path   file;
+    private byte[] content;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("file-region", ".bin");
+        content = new byte[300 * 1024];
+        new Random(3).nextBytes(content);
+        Files.write(file, content);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void regionIsReceivedAsProtoMessage() throws Exception {
+        ProtoMessageHeader header = new ProtoMessageHeader();
+        header.cmdId = 42;
+        header.seqId = 7;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        WritableByteChannel target = Channels.newChannel(bytes);
+        FileRegion region = FileRegion.open(file, 1000, 200 * 1024, header);
+        try {
+            ByteBuffer head = ByteBuffer.allocate(16);
+            region.encodeHeader(head);
+            target.write((ByteBuffer) head.flip());
+            assertEquals(200 * 1024, region.transferTo(target));
+            assertTrue(region.isDone());
+        } finally {
+            region.close();
+        }
+
+        ProtoMessage box = new ProtoMessage();
+        byte[] received = bytes.toByteArray();
+        assertEquals(received.length, box.unpack(received));
+        assertEquals(42, box.cmdId());
+        assertEquals(7, box.seqId());
+        assertTrue(Arrays.equals(Arrays.copyOfRange(content, 1000, 1000 + 200 * 1024),
+                box.getBody()));
+    }
+
+    @Test
+    public void lengthToEndOfFile() throws Exception {
+        FileRegion region = FileRegion.open(file, 100, -1, null);
+        region.close();
+        assertEquals(content.length - 100, region.count());
+        assertEquals(content.length - 100, region.header().bodyLen);
+    }
+
+    @Test(expected = IOException.class)
+    public void regionOutOfFile() throws Exception {
+        FileRegion.open(file, 100, content.length, null);
+    }
+}
@@ -0,0 +1,78 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import me.asu.socket.util.IdleMonitor.IdleState;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class HashedWheelTimerTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10,
+            TimeUnit.MILLISECONDS, 8);
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void expireAndCancel() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger cancelledRuns = new AtomicInteger();
+        long start = System.nanoTime();
+        // 超过一圈（8 * 10ms）
+        timer.newTimeout(new HashedWheelTimer.TimerTask() {
+            @Override
+            public void run(HashedWheelTimer.Timeout timeout) {
+                latch.countDown();
+            }
+        }, 150, TimeUnit.MILLISECONDS);
+        HashedWheelTimer.Timeout cancelled = timer.newTimeout(new HashedWheelTimer.TimerTask() {
+            @Override
+            public void run(HashedWheelTimer.Timeout timeout) {
+                cancelledRuns.incrementAndGet();
+            }
+        }, 50, TimeUnit.MILLISECONDS);
+        assertTrue(cancelled.cancel());
+
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 150);
+        assertEquals(0, cancelledRuns.get());
+        assertTrue(cancelled.isCancelled());
+    }
+
+    @Test
+    public void idleMonitor() throws Exception {
+        final AtomicInteger readerIdle = new AtomicInteger();
+        final AtomicInteger writerIdle = new AtomicInteger();
+        IdleMonitor monitor = new IdleMonitor(timer,
+                new IdleTimeouts(100, 100, 0, TimeUnit.MILLISECONDS), new IdleMonitor.Listener() {
+            @Override
+            public void onIdle(IdleState state) {
+                if (state == IdleState.READER_IDLE) {
+                    readerIdle.incrementAndGet();
+                } else if (state == IdleState.WRITER_IDLE) {
+                    writerIdle.incrementAndGet();
+                }
+            }
+        });
+        monitor.start();
+        // 一直有读，只有写空闲
+        long end = System.currentTimeMillis() + 350;
+        while (System.currentTimeMillis() < end) {
+            monitor.touchRead();
+            Thread.sleep(10);
+        }
+        monitor.stop();
+        assertEquals(0, readerIdle.get());
+        assertTrue(writerIdle.get() >= 2);
+    }
+}
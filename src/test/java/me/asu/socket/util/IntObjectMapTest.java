@@ -0,0 +1,56 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class IntObjectMapTest {
+
+    @Test
+    public void putGetRemove() {
+        IntObjectMap<String> map = new IntObjectMap<String>(2);
+        for (int i = 0; i < 100; i++) {
+            assertNull(map.put(i, "v" + i));
+        }
+        assertEquals(100, map.size());
+        assertEquals("v42", map.put(42, "x"));
+        assertEquals("x", map.get(42));
+        for (int i = 0; i < 100; i += 2) {
+            assertNotNull(map.remove(i));
+        }
+        assertEquals(50, map.size());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(i));
+        }
+        assertNull(map.remove(0));
+        assertEquals(50, map.drain().length);
+        assertTrue(map.isEmpty());
+        assertNull(map.get(1));
+    }
+
+    @Test
+    public void matchesHashMap() {
+        IntObjectMap<Integer> map = new IntObjectMap<Integer>();
+        Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+        Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            int key = random.nextInt(512) - 256;
+            if (random.nextBoolean()) {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -256; key < 256; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class KeepAliveTest {
+
+    private final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10,
+            TimeUnit.MILLISECONDS, 64);
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void missedPongClosesOnce() throws Exception {
+        final AtomicInteger pings = new AtomicInteger();
+        final CountDownLatch missed = new CountDownLatch(1);
+        KeepAlive keepAlive = new KeepAlive(timer, 50, 50, TimeUnit.MILLISECONDS,
+                new KeepAlive.Listener() {
+                    @Override
+                    public void onPing() {
+                        pings.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onMissedPong() {
+                        missed.countDown();
+                    }
+                });
+        keepAlive.start();
+        assertTrue(missed.await(2, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(1, pings.get());
+    }
+
+    @Test
+    public void pongKeepsAlive() throws Exception {
+        final AtomicInteger pings = new AtomicInteger();
+        final AtomicInteger missed = new AtomicInteger();
+        final KeepAlive[] ref = new KeepAlive[1];
+        ref[0] = new KeepAlive(timer, 50, 100, TimeUnit.MILLISECONDS,
+                new KeepAlive.Listener() {
+                    @Override
+                    public void onPing() {
+                        pings.incrementAndGet();
+                        // 对端立即回复 pong
+                        ref[0].touchRead();
+                    }
+
+                    @Override
+                    public void onMissedPong() {
+                        missed.incrementAndGet();
+                    }
+                });
+        ref[0].start();
+        Thread.sleep(500);
+        ref[0].stop();
+        assertEquals(0, missed.get());
+        assertTrue(pings.get() >= 2);
+    }
+
+    @Test
+    public void busyLinkSendsNoPing() throws Exception {
+        final AtomicInteger pings = new AtomicInteger();
+        KeepAlive keepAlive = new KeepAlive(timer, 100, 100, TimeUnit.MILLISECONDS,
+                new KeepAlive.Listener() {
+                    @Override
+                    public void onPing() {
+                        pings.incrementAndGet();
+                    }
+
+                    @Override
+                    public void onMissedPong() {
+                    }
+                });
+        keepAlive.start();
+        for (int i = 0; i < 30; i++) {
+            keepAlive.touchRead();
+            Thread.sleep(10);
+        }
+        keepAlive.stop();
+        assertEquals(0, pings.get());
+    }
+}
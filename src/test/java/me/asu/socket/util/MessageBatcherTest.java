@@ -0,0 +1,171 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import me.asu.socket.message.IMessage;
+import me.asu.socket.message.MessageBatch;
+import me.asu.socket.message.ProtoMessage;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class MessageBatcherTest {
+
+    private final List<IMessage> out = new CopyOnWriteArrayList<IMessage>();
+
+    private final MessageBatcher.Sink sink = new MessageBatcher.Sink() {
+        @Override
+        public void send(IMessage message) {
+            out.add(message);
+        }
+    };
+
+    private static ProtoMessage message(int cmdId, int bodyLen) {
+        ProtoMessage m = new ProtoMessage();
+        m.getHeader().setCmdId(cmdId);
+        m.setBody(new byte[bodyLen]);
+        return m;
+    }
+
+    @Test
+    public void flushByCount() {
+        MessageBatcher batcher = new MessageBatcher(sink, 3, 1024 * 1024);
+        for (int i = 0; i < 7; i++) {
+            batcher.add(message(i, 10));
+        }
+        assertEquals(2, out.size());
+        assertEquals(1, batcher.pending());
+        assertEquals(3, MessageBatch.read((ProtoMessage) out.get(0)).count());
+
+        // 只剩一个时原样发出
+        batcher.flush();
+        assertEquals(3, out.size());
+        assertFalse(MessageBatch.isBatch(out.get(2)));
+        assertEquals(6, ((ProtoMessage) out.get(2)).cmdId());
+        assertEquals(0, batcher.pending());
+    }
+
+    @Test
+    public void flushByBytes() {
+        MessageBatcher batcher = new MessageBatcher(sink, 1000, 100);
+        batcher.add(message(1, 40));
+        batcher.add(message(2, 40));
+        assertEquals(0, out.size());
+        batcher.add(message(3, 40));
+        assertEquals(1, out.size());
+        assertEquals(3, MessageBatch.read((ProtoMessage) out.get(0)).count());
+
+        // 单个就超过的直接发出
+        batcher.add(message(4, 200));
+        assertEquals(2, out.size());
+        assertEquals(4, ((ProtoMessage) out.get(1)).cmdId());
+    }
+
+    @Test
+    public void lingerFlushes() throws Exception {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, TimeUnit.MILLISECONDS, 64);
+        try {
+            MessageBatcher batcher = new MessageBatcher(sink, 100, 1024 * 1024, timer, 50,
+                    TimeUnit.MILLISECONDS);
+            batcher.add(message(1, 1));
+            batcher.add(message(2, 1));
+            long deadline = System.currentTimeMillis() + 2000;
+            while (out.isEmpty() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, out.size());
+            assertEquals(2, MessageBatch.read((ProtoMessage) out.get(0)).count());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    public void concurrentProducersKeepOrder() throws Exception {
+        final MessageBatcher batcher = new MessageBatcher(new MessageBatcher.Sink() {
+            @Override
+            public void send(IMessage message) {
+                // 放大取出和发出之间的窗口
+                if (ThreadLocalRandom.current().nextInt(4) == 0) {
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                out.add(message);
+            }
+        }, 3, 1024 * 1024);
+        final int producers = 4;
+        final int count = 1000;
+        Thread[] threads = new Thread[producers + 1];
+        for (int p = 0; p < producers; p++) {
+            final int id = p;
+            threads[p] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < count; i++) {
+                        batcher.add(message(id * count + i, 1));
+                    }
+                }
+            });
+        }
+        // 模拟 linger 定时器
+        threads[producers] = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; i++) {
+                    batcher.flush();
+                }
+            }
+        });
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        batcher.flush();
+
+        int[] last = new int[producers];
+        Arrays.fill(last, -1);
+        int total = 0;
+        for (IMessage m : out) {
+            Iterable<ProtoMessage> items = MessageBatch.isBatch(m)
+                    ? MessageBatch.read((ProtoMessage) m)
+                    : Collections.singletonList((ProtoMessage) m);
+            for (ProtoMessage item : items) {
+                int id = item.cmdId() / count;
+                int seq = item.cmdId() % count;
+                assertTrue("producer " + id + " reordered at " + seq, seq > last[id]);
+                last[id] = seq;
+                total++;
+            }
+        }
+        assertEquals(producers * count, total);
+    }
+
+    @Test
+    public void varintRoundTrip() {
+        int[] values = {0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        ByteBuffer buffer = ByteBuffer.allocate(64);
+        for (int v : values) {
+            int start = buffer.position();
+            Varints.write(buffer, v);
+            assertEquals(Varints.sizeOf(v), buffer.position() - start);
+        }
+        buffer.flip();
+        for (int v : values) {
+            assertEquals(v, Varints.read(buffer));
+        }
+    }
+}
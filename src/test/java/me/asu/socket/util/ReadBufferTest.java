@@ -0,0 +1,254 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.ProtoMessageHeader;
+import me.asu.socket.message.SliceProtoMessage;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class ReadBufferTest {
+
+    @Test
+    public void unpackLargeMessageInChunks() throws Exception {
+        byte[] body = new byte[1024 * 1024];
+        new Random(1).nextBytes(body);
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setSeqId(7);
+        message.setBody(body);
+        byte[] pack = message.pack();
+
+        ReadBuffer readBuffer = new ReadBuffer(8 * 1024);
+        ProtoMessage box = new ProtoMessage();
+        int chunk = 4 * 1024;
+        for (int offset = 0; offset < pack.length; offset += chunk) {
+            assertEquals(0, readBuffer.unpack(box));
+            readBuffer.write(pack, offset, Math.min(chunk, pack.length - offset));
+        }
+        assertEquals(pack.length, readBuffer.unpack(box));
+        assertEquals(7, box.seqId());
+        assertTrue(Arrays.equals(body, box.getBody()));
+        assertEquals(0, readBuffer.readableBytes());
+    }
+
+    @Test
+    public void unpackMultipleMessagesAndKeepHalfPackage() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.setBody(new byte[100]);
+        byte[] pack = message.pack();
+
+        ReadBuffer readBuffer = new ReadBuffer(64);
+        readBuffer.write(pack, 0, pack.length);
+        readBuffer.write(pack, 0, pack.length);
+        readBuffer.write(pack, 0, 10);
+
+        assertEquals(pack.length, readBuffer.unpack(new ProtoMessage()));
+        assertEquals(pack.length, readBuffer.unpack(new ProtoMessage()));
+        assertEquals(0, readBuffer.unpack(new ProtoMessage()));
+        assertEquals(10, readBuffer.readableBytes());
+
+        readBuffer.write(pack, 10, pack.length - 10);
+        assertEquals(pack.length, readBuffer.unpack(new ProtoMessage()));
+        assertEquals(0, readBuffer.readableBytes());
+    }
+
+    @Test
+    public void sliceSurvivesCompactUntilReleased() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setSeqId(1);
+        message.setBody("hello slice".getBytes("utf-8"));
+        byte[] pack = message.pack();
+
+        ReadBuffer readBuffer = new ReadBuffer(64);
+        readBuffer.write(pack, 0, pack.length);
+        SliceProtoMessage box = new SliceProtoMessage();
+        assertEquals(pack.length, readBuffer.unpack(box));
+        assertTrue(readBuffer.isShared());
+        byte[] first = readBuffer.array();
+
+        // 继续写入会触发 compact，报文体还在使用，不能被覆盖
+        for (int i = 0; i < 10; i++) {
+            readBuffer.write(new byte[30], 0, 30);
+            readBuffer.skip(30);
+        }
+        assertNotSame(first, readBuffer.array());
+        assertEquals("hello slice", new String(box.body(), "utf-8"));
+        assertEquals(pack.length, box.encodedSize());
+        assertEquals(1, box.seqId());
+
+        assertTrue(box.release());
+        assertFalse(readBuffer.isShared());
+        try {
+            box.body();
+            fail("body is released");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void recycleReleasesSlice() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.setBody(new byte[20]);
+        byte[] pack = message.pack();
+
+        ReadBuffer readBuffer = new ReadBuffer(64);
+        readBuffer.write(pack, 0, pack.length);
+        SliceProtoMessage box = new SliceProtoMessage();
+        assertEquals(pack.length, readBuffer.unpack(box));
+        assertTrue(readBuffer.isShared());
+
+        // 框架在 onRecv 之后调用 recycle()
+        box.retain();
+        box.recycle();
+        assertTrue(readBuffer.isShared());
+        box.recycle();
+        assertEquals(0, box.refCnt());
+        assertFalse(readBuffer.isShared());
+    }
+
+    @Test
+    public void releasedArrayIsReused() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.setBody(new byte[20]);
+        byte[] pack = message.pack();
+
+        ReadBuffer readBuffer = new ReadBuffer(64);
+        readBuffer.write(pack, 0, pack.length);
+        SliceProtoMessage box = new SliceProtoMessage();
+        assertEquals(pack.length, readBuffer.unpack(box));
+        byte[] first = readBuffer.array();
+
+        readBuffer.write(new byte[64], 0, 64);
+        byte[] second = readBuffer.array();
+        assertNotSame(first, second);
+        readBuffer.skip(64);
+        box.release();
+
+        // second 没有被引用，原地重置；再次共享时复用 first
+        readBuffer.write(pack, 0, pack.length);
+        SliceProtoMessage box2 = new SliceProtoMessage();
+        assertEquals(pack.length, readBuffer.unpack(box2));
+        readBuffer.write(new byte[64], 0, 64);
+        assertSame(first, readBuffer.array());
+        box2.release();
+    }
+
+    @Test
+    public void spillLargeBodyWithoutGrowingBuffer() throws Exception {
+        byte[] body = new byte[256 * 1024];
+        new Random(2).nextBytes(body);
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setSeqId(9);
+        message.setBody(body);
+        byte[] pack = message.pack();
+        ProtoMessage small = new ProtoMessage();
+        small.setBody(new byte[100]);
+        byte[] smallPack = small.pack();
+
+        Path dir = Files.createTempDirectory("spill");
+        ReadBuffer readBuffer = new ReadBuffer(8 * 1024);
+        readBuffer.setSpillPolicy(new SpillPolicy(1024, dir));
+        int chunk = 4 * 1024;
+        for (int offset = 0; offset < pack.length; offset += chunk) {
+            assertEquals(0, readBuffer.unpack(new SliceProtoMessage()));
+            readBuffer.write(pack, offset, Math.min(chunk, pack.length - offset));
+        }
+        readBuffer.write(smallPack, 0, smallPack.length);
+        SliceProtoMessage box = new SliceProtoMessage();
+        assertEquals(pack.length, readBuffer.unpack(box));
+        // 报文体没有在缓冲区中累积
+        assertEquals(8 * 1024, readBuffer.capacity());
+        assertTrue(box.isSpilled());
+        assertEquals(9, box.seqId());
+        assertEquals(body.length, box.header().bodyLen);
+
+        ByteBuffer slice = box.bodySlice();
+        byte[] copy = new byte[slice.remaining()];
+        slice.get(copy);
+        assertTrue(Arrays.equals(body, copy));
+        InputStream in = box.bodyStream();
+        byte[] streamed = new byte[body.length];
+        int n = 0;
+        for (int len; (len = in.read(streamed, n, streamed.length - n)) > 0; ) {
+            n += len;
+        }
+        assertEquals(body.length, n);
+        assertTrue(Arrays.equals(body, streamed));
+        assertTrue(box.release());
+
+        // 后面的小报文照常解析
+        SliceProtoMessage next = new SliceProtoMessage();
+        assertEquals(smallPack.length, readBuffer.unpack(next));
+        assertFalse(next.isSpilled());
+        next.release();
+        assertEquals(0, readBuffer.readableBytes());
+        // 临时文件映射后即删除
+        assertFalse(Files.list(dir).findAny().isPresent());
+    }
+
+    @Test
+    public void plainMessageIsNotSpilled() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.setBody(new byte[4096]);
+        byte[] pack = message.pack();
+
+        ReadBuffer readBuffer = new ReadBuffer(64);
+        readBuffer.setSpillPolicy(new SpillPolicy(1024, null));
+        readBuffer.write(pack, 0, pack.length);
+        ProtoMessage box = new ProtoMessage();
+        assertEquals(pack.length, readBuffer.unpack(box));
+        assertEquals(4096, box.getBody().length);
+    }
+
+    @Test
+    public void oversizedBodyIsDiscardedWithoutBuffering() throws Exception {
+        ProtoMessage big = new ProtoMessage();
+        big.getHeader().setCmdId(5);
+        big.getHeader().setSeqId(1);
+        big.setBody(new byte[64 * 1024]);
+        byte[] bigPack = big.pack();
+        ProtoMessage allowed = new ProtoMessage();
+        allowed.getHeader().setCmdId(6);
+        allowed.getHeader().setSeqId(2);
+        allowed.setBody(new byte[64 * 1024]);
+        byte[] allowedPack = allowed.pack();
+
+        final List<Integer> rejected = new ArrayList<Integer>();
+        ReadBuffer readBuffer = new ReadBuffer(1024);
+        readBuffer.setFrameSizeLimits(new FrameSizeLimits(1024).limit(6, 128 * 1024),
+                new FrameSizeLimits.Listener() {
+                    @Override
+                    public void onOversized(ProtoMessageHeader header, int maxBodyLength) {
+                        assertEquals(1024, maxBodyLength);
+                        rejected.add(header.seqId);
+                    }
+                });
+        int chunk = 1000;
+        for (int offset = 0; offset < bigPack.length; offset += chunk) {
+            readBuffer.write(bigPack, offset, Math.min(chunk, bigPack.length - offset));
+            assertEquals(0, readBuffer.unpack(new ProtoMessage()));
+            assertEquals(1024, readBuffer.capacity());
+        }
+        assertEquals(Arrays.asList(1), rejected);
+        assertEquals(0, readBuffer.readableBytes());
+
+        readBuffer.write(allowedPack, 0, allowedPack.length);
+        ProtoMessage box = new ProtoMessage();
+        assertEquals(allowedPack.length, readBuffer.unpack(box));
+        assertEquals(2, box.seqId());
+        assertEquals(1, rejected.size());
+    }
+}
@@ -0,0 +1,85 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import me.asu.socket.message.ProtoMessage;
+import me.asu.socket.message.RecyclableProtoMessage;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class RecyclerTest {
+
+    private static class Item {
+
+        final Recycler.Handle<Item> handle;
+
+        Item(Recycler.Handle<Item> handle) {
+            this.handle = handle;
+        }
+    }
+
+    private final Recycler<Item> recycler = new Recycler<Item>(16) {
+        @Override
+        protected Item newObject(Handle<Item> handle) {
+            return new Item(handle);
+        }
+    };
+
+    @Test
+    public void reuseInSameThread() {
+        Item a = recycler.get();
+        a.handle.recycle(a);
+        assertEquals(1, recycler.threadLocalSize());
+        assertSame(a, recycler.get());
+        assertNotSame(a, recycler.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void recycleTwice() {
+        Item a = recycler.get();
+        a.handle.recycle(a);
+        a.handle.recycle(a);
+    }
+
+    @Test
+    public void recycleFromOtherThread() throws Exception {
+        final Item a = recycler.get();
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                a.handle.recycle(a);
+            }
+        });
+        t.start();
+        t.join();
+        assertSame(a, recycler.get());
+    }
+
+    @Test
+    public void retainedMessageIsNotRecycled() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setSeqId(3);
+        message.setBody(new byte[32]);
+        byte[] pack = message.pack();
+
+        RecyclableProtoMessage box = RecyclableProtoMessage.newInstance();
+        assertEquals(pack.length, box.unpack(pack));
+        byte[] body = box.getBody();
+        box.retain();
+        box.recycle();
+        assertEquals(3, box.seqId());
+        box.recycle();
+        assertEquals(0, box.refCnt());
+
+        RecyclableProtoMessage again = RecyclableProtoMessage.newInstance();
+        assertSame(box, again);
+        assertEquals(1, again.refCnt());
+        assertEquals(pack.length, again.unpack(pack));
+        // 报文体长度相同时复用数组
+        assertSame(body, again.getBody());
+        again.recycle();
+    }
+}
@@ -0,0 +1,59 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class SendQueueCounterTest {
+
+    private final List<Boolean> changes = new ArrayList<Boolean>();
+
+    private SendQueueCounter newCounter(SendQueueLimits limits) {
+        return new SendQueueCounter(limits, new SendQueueCounter.Listener() {
+            @Override
+            public void onWritabilityChanged(boolean writable) {
+                changes.add(writable);
+            }
+        });
+    }
+
+    @Test
+    public void watermarks() {
+        SendQueueCounter counter = newCounter(new SendQueueLimits(100, 40, 1000, 100));
+        assertTrue(counter.tryAdd(60));
+        assertTrue(counter.isWritable());
+        assertTrue(counter.tryAdd(60));
+        assertFalse(counter.isWritable());
+
+        counter.remove(60);
+        // 60 还高于低水位
+        assertFalse(counter.isWritable());
+        counter.remove(60);
+        assertTrue(counter.isWritable());
+        assertEquals(2, changes.size());
+        assertFalse(changes.get(0));
+        assertTrue(changes.get(1));
+    }
+
+    @Test
+    public void rejectOverLimits() {
+        SendQueueCounter counter = newCounter(new SendQueueLimits(100, 40, 200, 3));
+        // 队列为空时允许单个大报文
+        assertTrue(counter.tryAdd(500));
+        assertFalse(counter.tryAdd(1));
+        counter.remove(500);
+
+        assertTrue(counter.tryAdd(1));
+        assertTrue(counter.tryAdd(1));
+        assertTrue(counter.tryAdd(1));
+        assertFalse(counter.tryAdd(1));
+        assertEquals(3, counter.getMessages());
+        assertEquals(3, counter.getBytes());
+    }
+}
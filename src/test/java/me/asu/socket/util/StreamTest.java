@@ -0,0 +1,56 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import me.asu.socket.message.ProtoMessage;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class StreamTest {
+
+    private static Socket connect(ServerSocket server) throws Exception {
+        Socket socket = new Socket();
+        socket.connect(new InetSocketAddress("127.0.0.1", server.getLocalPort()), 2000);
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    @Test
+    public void newSocketDropsHalfFrame() throws Exception {
+        ProtoMessage message = new ProtoMessage();
+        message.getHeader().setSeqId(9);
+        message.setBody(new byte[20]);
+        byte[] pack = message.pack();
+
+        ServerSocket server = new ServerSocket(0);
+        try {
+            Stream stream = new Stream(connect(server));
+            Socket peer = server.accept();
+            // 旧连接只收到半个报文就断开
+            peer.getOutputStream().write(pack, 0, 10);
+            peer.close();
+            assertFalse(stream.read(new ProtoMessage()));
+
+            stream.setSocket(connect(server));
+            peer = server.accept();
+            OutputStream out = peer.getOutputStream();
+            out.write(pack);
+            out.flush();
+            ProtoMessage box = new ProtoMessage();
+            assertTrue(stream.read(box));
+            assertEquals(9, box.seqId());
+            assertEquals(20, box.getBody().length);
+            stream.close();
+            peer.close();
+        } finally {
+            server.close();
+        }
+    }
+}
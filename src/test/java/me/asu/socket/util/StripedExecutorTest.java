@@ -0,0 +1,77 @@
+package me.asu.socket.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author Suk.
+ * @since 2026-10-17
+ */
+public class StripedExecutorTest {
+
+    private final StripedExecutor executor = new StripedExecutor("test-dispatch", 4);
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void sameKeyRunsInOrderOnOneThread() throws Exception {
+        final Object key = new Object();
+        final int count = 1000;
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch done = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            final int n = i;
+            executor.execute(key, new Runnable() {
+                @Override
+                public void run() {
+                    order.add(n);
+                    threads.add(Thread.currentThread().getName());
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, order.get(i).intValue());
+        }
+        assertEquals(1, threads.size());
+    }
+
+    @Test
+    public void laneIsStableForKey() {
+        Object key = new Object();
+        assertSame(executor.lane(key), executor.lane(key));
+        assertSame(executor.lane(null), executor.lane(null));
+        assertEquals(4, executor.laneCount());
+    }
+
+    @Test
+    public void threadCountIsBounded() throws Exception {
+        final Set<String> threads = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch done = new CountDownLatch(200);
+        for (int i = 0; i < 200; i++) {
+            executor.execute(new Object(), new Runnable() {
+                @Override
+                public void run() {
+                    threads.add(Thread.currentThread().getName());
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(threads.size() <= 4);
+    }
+}